@@ -0,0 +1,93 @@
+package biblioteca.model;
+
+/**
+ * Alteração de um livro recebida pelo canal de notificações do banco (LISTEN/NOTIFY).
+ */
+public class AlteracaoLivro {
+    public enum Tipo {
+        INSERCAO, ATUALIZACAO, EXCLUSAO
+    }
+
+    private final Tipo tipo;
+    private final Long id;
+    // ISBN que deixou de valer (exclusão ou troca de ISBN); null nos demais casos
+    private final Long isbnAnterior;
+    // ISBN do livro inserido/alterado (null: sem ISBN, ou servidor anterior à migração V014)
+    private final Long isbn;
+
+    public AlteracaoLivro(Tipo tipo, Long id) {
+        this(tipo, id, null);
+    }
+
+    public AlteracaoLivro(Tipo tipo, Long id, Long isbnAnterior) {
+        this(tipo, id, isbnAnterior, null);
+    }
+
+    public AlteracaoLivro(Tipo tipo, Long id, Long isbnAnterior, Long isbn) {
+        this.tipo = tipo;
+        this.id = id;
+        this.isbnAnterior = isbnAnterior;
+        this.isbn = isbn;
+    }
+
+    /**
+     * Interpreta o payload enviado pelo trigger tg_livros_notificar ("INSERT:42" ou, desde a
+     * migrações V008 e V014, "DELETE:42:9788535902778" e "UPDATE:42::9788535902778").
+     *
+     * @return a alteração, ou null se o payload não estiver no formato esperado
+     */
+    public static AlteracaoLivro doPayload(String payload) {
+        if (payload == null) {
+            return null;
+        }
+
+        String[] partes = payload.split(":");
+        if (partes.length < 2) {
+            return null;
+        }
+
+        Tipo tipo;
+        switch (partes[0]) {
+            case "INSERT":
+                tipo = Tipo.INSERCAO;
+                break;
+            case "UPDATE":
+                tipo = Tipo.ATUALIZACAO;
+                break;
+            case "DELETE":
+                tipo = Tipo.EXCLUSAO;
+                break;
+            default:
+                return null;
+        }
+
+        try {
+            Long isbnAnterior = partes.length > 2 && !partes[2].isEmpty() ? Long.parseLong(partes[2]) : null;
+            Long isbn = partes.length > 3 && !partes[3].isEmpty() ? Long.parseLong(partes[3]) : null;
+            return new AlteracaoLivro(tipo, Long.parseLong(partes[1]), isbnAnterior, isbn);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public Tipo getTipo() {
+        return tipo;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getIsbnAnterior() {
+        return isbnAnterior;
+    }
+
+    public Long getIsbn() {
+        return isbn;
+    }
+
+    @Override
+    public String toString() {
+        return tipo + ":" + id;
+    }
+}
@@ -0,0 +1,76 @@
+package biblioteca.model;
+
+import javax.persistence.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Autor normalizado. Cada nome é gravado uma única vez e ligado aos livros por livros_autores.
+ * O campo Livro.autores continua guardando o texto exibido na tela.
+ */
+@Entity
+@Table(name = "autores",
+        uniqueConstraints = @UniqueConstraint(name = "uk_autores_nome_normalizado", columnNames = "nome_normalizado"))
+public class Autor {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "autores_seq")
+    @SequenceGenerator(name = "autores_seq", sequenceName = "autores_seq", allocationSize = 1)
+    private Long id;
+
+    @Column(nullable = false)
+    private String nome;
+
+    // Nome em minúsculas e com espaços normalizados, usado nas buscas indexadas
+    @Column(name = "nome_normalizado", nullable = false)
+    private String nomeNormalizado;
+
+    public Autor() {}
+
+    public Autor(String nome) {
+        this.nome = nome;
+        this.nomeNormalizado = normalizar(nome);
+    }
+
+    /**
+     * Deve produzir o mesmo resultado que a expressão usada na migração V002.
+     */
+    public static String normalizar(String nome) {
+        return nome.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Separa o texto de autores (ex.: "Autor A, Autor B") nos nomes individuais.
+     */
+    public static List<String> separarNomes(String autores) {
+        List<String> nomes = new ArrayList<>();
+        if (autores == null) {
+            return nomes;
+        }
+
+        for (String nome : autores.split("[,;]")) {
+            String limpo = nome.trim().replaceAll("\\s+", " ");
+            if (!limpo.isEmpty()) {
+                nomes.add(limpo);
+            }
+        }
+        return nomes;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getNome() {
+        return nome;
+    }
+
+    public String getNomeNormalizado() {
+        return nomeNormalizado;
+    }
+
+    @Override
+    public String toString() {
+        return nome;
+    }
+}
@@ -0,0 +1,381 @@
+package biblioteca.model;
+
+import biblioteca.util.Dicionario;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.function.IntPredicate;
+
+/**
+ * Cópia em memória do catálogo para a tela principal, em colunas: um array primitivo por campo,
+ * com as linhas ordenadas por id.
+ *
+ * - id e ISBN em long[] (ISBN 0 = sem ISBN)
+ * - editora e autores codificados por dicionário (int[] de códigos)
+ * - data de publicação como dia epoch em int[]
+ * - títulos em UTF-8, todos em um único byte[], com início e tamanho de cada um
+ *
+ * Sem um objeto por livro, 1 milhão de livros ocupa algumas dezenas de MB (dominados pelos títulos),
+ * contra centenas com List&lt;Livro&gt; mais as linhas de um DefaultTableModel.
+ *
+ * Não é thread-safe: é alterado e lido só pela thread do Swing depois de montado.
+ */
+public class CatalogoColunar {
+    private static final int SEM_VALOR = Integer.MIN_VALUE;
+    private static final int CAPACIDADE_INICIAL = 1024;
+
+    private int tamanho;
+    private long[] ids;
+    private long[] isbns;
+    private int[] autores;
+    private int[] editoras;
+    private int[] datas;
+    private int[] semelhantes;
+
+    private int[] inicioTitulo;
+    private int[] tamanhoTitulo;
+    private byte[] titulos;
+    private int bytesTitulosUsados;
+    // Títulos substituídos ou removidos que ainda ocupam espaço em 'titulos'
+    private int bytesTitulosDescartados;
+
+    private final Dicionario dicionarioAutores = new Dicionario();
+    private final Dicionario dicionarioEditoras = new Dicionario();
+
+    public CatalogoColunar() {
+        this(CAPACIDADE_INICIAL);
+    }
+
+    public CatalogoColunar(int capacidade) {
+        capacidade = Math.max(capacidade, 16);
+        ids = new long[capacidade];
+        isbns = new long[capacidade];
+        autores = new int[capacidade];
+        editoras = new int[capacidade];
+        datas = new int[capacidade];
+        semelhantes = new int[capacidade];
+        inicioTitulo = new int[capacidade];
+        tamanhoTitulo = new int[capacidade];
+        titulos = new byte[capacidade * 32];
+    }
+
+    /**
+     * Acrescenta um livro. Pensado para a carga em ordem de id (custo constante); fora de ordem,
+     * insere na posição correta.
+     */
+    public void adicionar(LivroResumo livro) {
+        if (tamanho == 0 || ids[tamanho - 1] < livro.getId()) {
+            inserir(tamanho, livro);
+        } else {
+            atualizarOuInserir(livro);
+        }
+    }
+
+    /**
+     * @return a posição do livro
+     */
+    public int atualizarOuInserir(LivroResumo livro) {
+        int indice = indiceDe(livro.getId());
+        if (indice >= 0) {
+            atualizar(indice, livro);
+            return indice;
+        }
+        indice = -indice - 1;
+        inserir(indice, livro);
+        return indice;
+    }
+
+    public void atualizar(int indice, LivroResumo livro) {
+        bytesTitulosDescartados += tamanhoTitulo[indice];
+        gravar(indice, livro);
+        compactarSeNecessario();
+    }
+
+    public void inserir(int indice, LivroResumo livro) {
+        garantirCapacidade(tamanho + 1);
+        int mover = tamanho - indice;
+        if (mover > 0) {
+            System.arraycopy(ids, indice, ids, indice + 1, mover);
+            System.arraycopy(isbns, indice, isbns, indice + 1, mover);
+            System.arraycopy(autores, indice, autores, indice + 1, mover);
+            System.arraycopy(editoras, indice, editoras, indice + 1, mover);
+            System.arraycopy(datas, indice, datas, indice + 1, mover);
+            System.arraycopy(semelhantes, indice, semelhantes, indice + 1, mover);
+            System.arraycopy(inicioTitulo, indice, inicioTitulo, indice + 1, mover);
+            System.arraycopy(tamanhoTitulo, indice, tamanhoTitulo, indice + 1, mover);
+        }
+        tamanho++;
+        gravar(indice, livro);
+    }
+
+    public void remover(int indice) {
+        bytesTitulosDescartados += tamanhoTitulo[indice];
+        int mover = tamanho - indice - 1;
+        if (mover > 0) {
+            System.arraycopy(ids, indice + 1, ids, indice, mover);
+            System.arraycopy(isbns, indice + 1, isbns, indice, mover);
+            System.arraycopy(autores, indice + 1, autores, indice, mover);
+            System.arraycopy(editoras, indice + 1, editoras, indice, mover);
+            System.arraycopy(datas, indice + 1, datas, indice, mover);
+            System.arraycopy(semelhantes, indice + 1, semelhantes, indice, mover);
+            System.arraycopy(inicioTitulo, indice + 1, inicioTitulo, indice, mover);
+            System.arraycopy(tamanhoTitulo, indice + 1, tamanhoTitulo, indice, mover);
+        }
+        tamanho--;
+        compactarSeNecessario();
+    }
+
+    /**
+     * Posição do livro pelo id (busca binária). Se não achar, devolve -(ponto de inserção) - 1,
+     * como Arrays.binarySearch.
+     */
+    public int indiceDe(long id) {
+        return Arrays.binarySearch(ids, 0, tamanho, id);
+    }
+
+    public int tamanho() {
+        return tamanho;
+    }
+
+    public long getId(int indice) {
+        return ids[indice];
+    }
+
+    public String getTitulo(int indice) {
+        return new String(titulos, inicioTitulo[indice], tamanhoTitulo[indice], StandardCharsets.UTF_8);
+    }
+
+    public String getAutores(int indice) {
+        return dicionarioAutores.valor(autores[indice]);
+    }
+
+    public Long getIsbn(int indice) {
+        return isbns[indice] != 0 ? isbns[indice] : null;
+    }
+
+    public String getEditora(int indice) {
+        return dicionarioEditoras.valor(editoras[indice]);
+    }
+
+    public LocalDate getDataPublicacao(int indice) {
+        return datas[indice] != SEM_VALOR ? LocalDate.ofEpochDay(datas[indice]) : null;
+    }
+
+    public Integer getLivrosSemelhantes(int indice) {
+        return semelhantes[indice] != SEM_VALOR ? semelhantes[indice] : null;
+    }
+
+    public LivroResumo getResumo(int indice) {
+        return new LivroResumo(getId(indice), getTitulo(indice), getAutores(indice), getIsbn(indice),
+                getEditora(indice), getDataPublicacao(indice), getLivrosSemelhantes(indice));
+    }
+
+    /*
+     * Filtros usados pela busca da tela principal, com a mesma semântica das consultas do
+     * LivroRepository (trecho sem diferenciar maiúsculas, ISBN exato, intervalo de datas).
+     * Devolvem os ids encontrados, em ordem crescente.
+     */
+
+    public long[] filtrarPorTitulo(String trecho) {
+        String procurado = trecho.toLowerCase(Locale.ROOT);
+        return filtrar(i -> getTitulo(i).toLowerCase(Locale.ROOT).contains(procurado));
+    }
+
+    public long[] filtrarPorAutores(String trecho) {
+        return filtrarPorDicionario(dicionarioAutores, autores, trecho);
+    }
+
+    public long[] filtrarPorEditora(String trecho) {
+        return filtrarPorDicionario(dicionarioEditoras, editoras, trecho);
+    }
+
+    public long[] filtrarPorIsbn(long isbn) {
+        return filtrar(i -> isbns[i] == isbn);
+    }
+
+    public long[] filtrarPorDatas(LocalDate inicio, LocalDate fim) {
+        long primeiro = inicio.toEpochDay();
+        long ultimo = fim.toEpochDay();
+        return filtrar(i -> datas[i] != SEM_VALOR && datas[i] >= primeiro && datas[i] <= ultimo);
+    }
+
+    /**
+     * Trecho da data no formato ISO (aaaa-mm-dd), como o CAST(... AS string) LIKE da consulta.
+     */
+    public long[] filtrarPorTextoData(String trecho) {
+        return filtrar(i -> datas[i] != SEM_VALOR && LocalDate.ofEpochDay(datas[i]).toString().contains(trecho));
+    }
+
+    /**
+     * O critério é avaliado uma vez por valor distinto do dicionário; a varredura compara só códigos.
+     */
+    private long[] filtrarPorDicionario(Dicionario dicionario, int[] codigos, String trecho) {
+        String procurado = trecho.toLowerCase(Locale.ROOT);
+        boolean[] atende = dicionario.marcar(valor -> valor.toLowerCase(Locale.ROOT).contains(procurado));
+        return filtrar(i -> codigos[i] != Dicionario.NULO && atende[codigos[i]]);
+    }
+
+    private long[] filtrar(IntPredicate criterio) {
+        long[] encontrados = new long[16];
+        int quantidade = 0;
+        for (int i = 0; i < tamanho; i++) {
+            if (criterio.test(i)) {
+                if (quantidade == encontrados.length) {
+                    encontrados = Arrays.copyOf(encontrados, quantidade * 2);
+                }
+                encontrados[quantidade++] = ids[i];
+            }
+        }
+        return Arrays.copyOf(encontrados, quantidade);
+    }
+
+    /**
+     * Grava as colunas em formato binário (ver ArquivoCatalogo). Os títulos saem compactados,
+     * na ordem das linhas.
+     */
+    public void gravar(DataOutput saida) throws IOException {
+        saida.writeInt(tamanho);
+        gravarDicionario(saida, dicionarioAutores);
+        gravarDicionario(saida, dicionarioEditoras);
+
+        for (int i = 0; i < tamanho; i++) {
+            saida.writeLong(ids[i]);
+        }
+        for (int i = 0; i < tamanho; i++) {
+            saida.writeLong(isbns[i]);
+        }
+        gravarInts(saida, autores);
+        gravarInts(saida, editoras);
+        gravarInts(saida, datas);
+        gravarInts(saida, semelhantes);
+        gravarInts(saida, tamanhoTitulo);
+
+        saida.writeInt(bytesTitulosUsados - bytesTitulosDescartados);
+        for (int i = 0; i < tamanho; i++) {
+            saida.write(titulos, inicioTitulo[i], tamanhoTitulo[i]);
+        }
+    }
+
+    /**
+     * Lê o que gravar produziu. Pensado para um buffer mapeado do arquivo: cada coluna é copiada
+     * de uma vez (get em bloco), sem criar objetos por linha.
+     */
+    public static CatalogoColunar ler(ByteBuffer entrada) {
+        int tamanho = entrada.getInt();
+        CatalogoColunar catalogo = new CatalogoColunar(tamanho);
+        lerDicionario(entrada, catalogo.dicionarioAutores);
+        lerDicionario(entrada, catalogo.dicionarioEditoras);
+        catalogo.tamanho = tamanho;
+
+        entrada.asLongBuffer().get(catalogo.ids, 0, tamanho);
+        entrada.position(entrada.position() + tamanho * Long.BYTES);
+        entrada.asLongBuffer().get(catalogo.isbns, 0, tamanho);
+        entrada.position(entrada.position() + tamanho * Long.BYTES);
+        lerInts(entrada, catalogo.autores, tamanho);
+        lerInts(entrada, catalogo.editoras, tamanho);
+        lerInts(entrada, catalogo.datas, tamanho);
+        lerInts(entrada, catalogo.semelhantes, tamanho);
+        lerInts(entrada, catalogo.tamanhoTitulo, tamanho);
+
+        int bytesTitulos = entrada.getInt();
+        catalogo.titulos = new byte[Math.max(bytesTitulos, 16)];
+        entrada.get(catalogo.titulos, 0, bytesTitulos);
+        catalogo.bytesTitulosUsados = bytesTitulos;
+        int inicio = 0;
+        for (int i = 0; i < tamanho; i++) {
+            catalogo.inicioTitulo[i] = inicio;
+            inicio += catalogo.tamanhoTitulo[i];
+        }
+        if (inicio != bytesTitulos) {
+            throw new IllegalStateException("Arquivo de catálogo inconsistente");
+        }
+        return catalogo;
+    }
+
+    private void gravarInts(DataOutput saida, int[] coluna) throws IOException {
+        for (int i = 0; i < tamanho; i++) {
+            saida.writeInt(coluna[i]);
+        }
+    }
+
+    private static void lerInts(ByteBuffer entrada, int[] coluna, int tamanho) {
+        entrada.asIntBuffer().get(coluna, 0, tamanho);
+        entrada.position(entrada.position() + tamanho * Integer.BYTES);
+    }
+
+    private static void gravarDicionario(DataOutput saida, Dicionario dicionario) throws IOException {
+        saida.writeInt(dicionario.tamanho());
+        for (int codigo = 0; codigo < dicionario.tamanho(); codigo++) {
+            byte[] valor = dicionario.valor(codigo).getBytes(StandardCharsets.UTF_8);
+            saida.writeInt(valor.length);
+            saida.write(valor);
+        }
+    }
+
+    private static void lerDicionario(ByteBuffer entrada, Dicionario dicionario) {
+        int quantidade = entrada.getInt();
+        for (int i = 0; i < quantidade; i++) {
+            byte[] valor = new byte[entrada.getInt()];
+            entrada.get(valor);
+            // Códigos são atribuídos em ordem, então cada valor volta com o mesmo código
+            dicionario.codificar(new String(valor, StandardCharsets.UTF_8));
+        }
+    }
+
+    private void gravar(int indice, LivroResumo livro) {
+        ids[indice] = livro.getId();
+        isbns[indice] = livro.getIsbnNumerico() != null ? livro.getIsbnNumerico() : 0;
+        autores[indice] = dicionarioAutores.codificar(livro.getAutores());
+        editoras[indice] = dicionarioEditoras.codificar(livro.getEditora());
+        datas[indice] = livro.getDataPublicacao() != null ? (int) livro.getDataPublicacao().toEpochDay() : SEM_VALOR;
+        semelhantes[indice] = livro.getLivrosSemelhantes() != null ? livro.getLivrosSemelhantes() : SEM_VALOR;
+
+        byte[] titulo = livro.getTitulo() != null ? livro.getTitulo().getBytes(StandardCharsets.UTF_8) : new byte[0];
+        if (bytesTitulosUsados + titulo.length > titulos.length) {
+            titulos = Arrays.copyOf(titulos, Math.max(titulos.length * 2, bytesTitulosUsados + titulo.length));
+        }
+        System.arraycopy(titulo, 0, titulos, bytesTitulosUsados, titulo.length);
+        inicioTitulo[indice] = bytesTitulosUsados;
+        tamanhoTitulo[indice] = titulo.length;
+        bytesTitulosUsados += titulo.length;
+    }
+
+    private void garantirCapacidade(int necessario) {
+        if (necessario <= ids.length) {
+            return;
+        }
+        int capacidade = Math.max(necessario, ids.length + (ids.length >> 1));
+        ids = Arrays.copyOf(ids, capacidade);
+        isbns = Arrays.copyOf(isbns, capacidade);
+        autores = Arrays.copyOf(autores, capacidade);
+        editoras = Arrays.copyOf(editoras, capacidade);
+        datas = Arrays.copyOf(datas, capacidade);
+        semelhantes = Arrays.copyOf(semelhantes, capacidade);
+        inicioTitulo = Arrays.copyOf(inicioTitulo, capacidade);
+        tamanhoTitulo = Arrays.copyOf(tamanhoTitulo, capacidade);
+    }
+
+    /**
+     * Reescreve os títulos sem os trechos descartados quando eles passam da metade do espaço usado.
+     */
+    private void compactarSeNecessario() {
+        if (bytesTitulosDescartados < 4096 || bytesTitulosDescartados * 2 < bytesTitulosUsados) {
+            return;
+        }
+        byte[] compactado = new byte[Math.max(bytesTitulosUsados - bytesTitulosDescartados, 16)];
+        int usados = 0;
+        for (int i = 0; i < tamanho; i++) {
+            System.arraycopy(titulos, inicioTitulo[i], compactado, usados, tamanhoTitulo[i]);
+            inicioTitulo[i] = usados;
+            usados += tamanhoTitulo[i];
+        }
+        titulos = compactado;
+        bytesTitulosUsados = usados;
+        bytesTitulosDescartados = 0;
+    }
+}
@@ -0,0 +1,65 @@
+package biblioteca.model;
+
+/**
+ * Uma linha da tabela estatisticas_catalogo (migração V010): quantos livros há para um valor de
+ * uma dimensão (editora, autor, ano ou faixa de edições).
+ */
+public class EstatisticaCatalogo {
+    public enum Dimensao {
+        EDITORA("editora"),
+        AUTOR("autor"),
+        ANO("ano"),
+        FAIXA_EDICOES("faixa_edicoes");
+
+        private final String coluna;
+
+        Dimensao(String coluna) {
+            this.coluna = coluna;
+        }
+
+        /**
+         * Valor gravado em estatisticas_catalogo.dimensao.
+         */
+        public String getColuna() {
+            return coluna;
+        }
+    }
+
+    // Rótulos das chaves de faixa_edicoes() ('0'..'5')
+    private static final String[] FAIXAS_EDICOES = {
+            "Sem informação", "1 edição", "2 a 5 edições", "6 a 20 edições", "21 a 100 edições", "Mais de 100 edições"
+    };
+
+    private final String rotulo;
+    private final long quantidade;
+
+    public EstatisticaCatalogo(String rotulo, long quantidade) {
+        this.rotulo = rotulo;
+        this.quantidade = quantidade;
+    }
+
+    /**
+     * Texto exibido para a chave gravada pelo banco; chave vazia é ausência de valor.
+     */
+    public static String rotular(Dimensao dimensao, String chave) {
+        switch (dimensao) {
+            case FAIXA_EDICOES:
+                int faixa = chave.isEmpty() ? 0 : chave.charAt(0) - '0';
+                return faixa >= 0 && faixa < FAIXAS_EDICOES.length ? FAIXAS_EDICOES[faixa] : chave;
+            case ANO:
+                return chave.isEmpty() ? "Sem data" : chave;
+            case EDITORA:
+                return chave.isEmpty() ? "Sem editora" : chave;
+            default:
+                return chave;
+        }
+    }
+
+    public String getRotulo() {
+        return rotulo;
+    }
+
+    public long getQuantidade() {
+        return quantidade;
+    }
+}
@@ -1,13 +1,29 @@
 package biblioteca.model;
 
+import biblioteca.util.Isbn;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.OptimisticLock;
+
 import javax.persistence.*;
 import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 @Entity
-@Table(name = "livros")
+@DynamicUpdate
+@Table(name = "livros",
+        uniqueConstraints = @UniqueConstraint(name = "uk_livros_isbn", columnNames = "isbn"))
 public class Livro {
+    /**
+     * Ids vêm de uma sequence com alocação em blocos (otimizador pooled-lo), assim o Hibernate
+     * não precisa executar o INSERT na hora do persist e consegue agrupar inserções em lote.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "livros_seq")
+    @SequenceGenerator(name = "livros_seq", sequenceName = "livros_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -19,8 +35,9 @@ public class Livro {
     @Column(name = "data_publicacao")
     private LocalDate dataPublicacao;
 
-    @Column(unique = true)
-    private String isbn;
+    // ISBN-13 canônico como número; ver biblioteca.util.Isbn
+    @Column
+    private Long isbn;
 
     @Column
     private String editora;
@@ -28,6 +45,29 @@ public class Livro {
     @Column(name = "livros_semelhantes")
     private Integer livrosSemelhantes;
 
+    // Autores normalizados, mantidos pelo LivroRepository a partir do texto de 'autores'.
+    // Derivados de 'autores', por isso não incrementam a versão por conta própria.
+    @ManyToMany
+    @OptimisticLock(excluded = true)
+    @JoinTable(name = "livros_autores",
+            joinColumns = @JoinColumn(name = "livro_id", foreignKey = @ForeignKey(name = "fk_livros_autores_livro")),
+            inverseJoinColumns = @JoinColumn(name = "autor_id"),
+            indexes = @Index(name = "ix_livros_autores_autor", columnList = "autor_id"))
+    private Set<Autor> listaAutores = new LinkedHashSet<>();
+
+    // Controle de concorrência otimista: edições sobre uma versão antiga são recusadas
+    @Version
+    private Long versao;
+
+    // Nomes dos atributos na mesma ordem de estadoAtual()
+    private static final String[] CAMPOS_EDITAVEIS = {
+            "titulo", "autores", "isbn", "editora", "dataPublicacao", "livrosSemelhantes"
+    };
+
+    // Valores como vieram do banco, para gravar só os campos alterados sem reler o registro
+    @Transient
+    private Object[] estadoCarregado;
+
     public Livro() {}
 
     public Livro(String titulo, String autores, LocalDate dataPublicacao,
@@ -35,10 +75,56 @@ public class Livro {
         this.titulo = titulo;
         this.autores = autores;
         this.dataPublicacao = dataPublicacao;
-        this.isbn = isbn;
+        setIsbn(isbn);
         this.editora = editora;
     }
 
+    @PostLoad
+    public void registrarEstadoCarregado() {
+        estadoCarregado = estadoAtual();
+    }
+
+    private Object[] estadoAtual() {
+        return new Object[]{titulo, autores, isbn, editora, dataPublicacao, livrosSemelhantes};
+    }
+
+    /**
+     * Indica se o livro foi lido do banco (ou já gravado) nesta sessão da aplicação, ou seja,
+     * se camposAlterados() consegue comparar com o estado persistido.
+     */
+    public boolean isEstadoCarregadoConhecido() {
+        return estadoCarregado != null;
+    }
+
+    /**
+     * Atributos alterados desde a leitura, com os novos valores.
+     */
+    public Map<String, Object> camposAlterados() {
+        Map<String, Object> alterados = new LinkedHashMap<>();
+        Object[] atual = estadoAtual();
+        for (int i = 0; i < atual.length; i++) {
+            if (!Objects.equals(atual[i], estadoCarregado[i])) {
+                alterados.put(CAMPOS_EDITAVEIS[i], atual[i]);
+            }
+        }
+        return alterados;
+    }
+
+    /**
+     * ISBN numérico como foi lido do banco, mesmo que já alterado neste objeto.
+     */
+    public Long getIsbnCarregado() {
+        return (Long) estadoCarregado[2];
+    }
+
+    public Long getVersao() {
+        return versao;
+    }
+
+    public void setVersao(Long versao) {
+        this.versao = versao;
+    }
+
     public Integer getLivrosSemelhantes() {
         return livrosSemelhantes;
     }
@@ -79,12 +165,32 @@ public class Livro {
         this.dataPublicacao = dataPublicacao;
     }
 
+    /**
+     * ISBN-13 canônico com 13 dígitos, ou null se o livro não tiver ISBN.
+     */
     public String getIsbn() {
-        return isbn;
+        return isbn != null ? Isbn.formatar(isbn) : null;
     }
 
+    /**
+     * Aceita ISBN-10 ou ISBN-13, com ou sem hífens, e guarda a forma canônica.
+     *
+     * @throws IllegalArgumentException se o ISBN for inválido
+     */
     public void setIsbn(String isbn) {
-        this.isbn = isbn;
+        this.isbn = isbn == null || isbn.trim().isEmpty() ? null : Isbn.canonizar(isbn);
+    }
+
+    public Long getIsbnNumerico() {
+        return isbn;
+    }
+
+    public Set<Autor> getListaAutores() {
+        return listaAutores;
+    }
+
+    public void setListaAutores(Set<Autor> listaAutores) {
+        this.listaAutores = listaAutores;
     }
 
     public String getEditora() {
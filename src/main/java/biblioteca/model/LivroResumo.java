@@ -0,0 +1,70 @@
+package biblioteca.model;
+
+import biblioteca.util.Isbn;
+
+import java.time.LocalDate;
+
+/**
+ * Projeção somente leitura de um livro com as colunas exibidas na tabela principal.
+ * Criada direto pela consulta (SELECT new ...), sem passar pelo contexto de persistência.
+ */
+public class LivroResumo {
+    private final Long id;
+    private final String titulo;
+    private final String autores;
+    private final Long isbn;
+    private final String editora;
+    private final LocalDate dataPublicacao;
+    private final Integer livrosSemelhantes;
+
+    public LivroResumo(Long id, String titulo, String autores, Long isbn, String editora,
+                       LocalDate dataPublicacao, Integer livrosSemelhantes) {
+        this.id = id;
+        this.titulo = titulo;
+        this.autores = autores;
+        this.isbn = isbn;
+        this.editora = editora;
+        this.dataPublicacao = dataPublicacao;
+        this.livrosSemelhantes = livrosSemelhantes;
+    }
+
+    /**
+     * Linha de tabela de um livro que acabou de ser gravado, sem reler do banco.
+     */
+    public static LivroResumo de(Livro livro) {
+        return new LivroResumo(livro.getId(), livro.getTitulo(), livro.getAutores(), livro.getIsbnNumerico(),
+                livro.getEditora(), livro.getDataPublicacao(), livro.getLivrosSemelhantes());
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getTitulo() {
+        return titulo;
+    }
+
+    public String getAutores() {
+        return autores;
+    }
+
+    public String getIsbn() {
+        return isbn != null ? Isbn.formatar(isbn) : null;
+    }
+
+    public Long getIsbnNumerico() {
+        return isbn;
+    }
+
+    public String getEditora() {
+        return editora;
+    }
+
+    public LocalDate getDataPublicacao() {
+        return dataPublicacao;
+    }
+
+    public Integer getLivrosSemelhantes() {
+        return livrosSemelhantes;
+    }
+}
@@ -0,0 +1,60 @@
+package biblioteca.model;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Um registro de livros_alteracoes (migração V011), como sai da exportação incremental.
+ */
+public class RegistroAlteracaoLivro {
+    private final long seq;
+    private final AlteracaoLivro.Tipo tipo;
+    private final long livroId;
+    private final OffsetDateTime alteradoEm;
+    // Linha de livros após a alteração, em JSON com os nomes das colunas; null na exclusão
+    private final String dadosJson;
+
+    public RegistroAlteracaoLivro(long seq, AlteracaoLivro.Tipo tipo, long livroId,
+                                  OffsetDateTime alteradoEm, String dadosJson) {
+        this.seq = seq;
+        this.tipo = tipo;
+        this.livroId = livroId;
+        this.alteradoEm = alteradoEm;
+        this.dadosJson = dadosJson;
+    }
+
+    /**
+     * Converte o código gravado pelo trigger ('I', 'U' ou 'D').
+     */
+    public static AlteracaoLivro.Tipo tipoDoCodigo(String codigo) {
+        switch (codigo) {
+            case "I":
+                return AlteracaoLivro.Tipo.INSERCAO;
+            case "U":
+                return AlteracaoLivro.Tipo.ATUALIZACAO;
+            case "D":
+                return AlteracaoLivro.Tipo.EXCLUSAO;
+            default:
+                throw new IllegalArgumentException("Operação desconhecida no registro de alterações: " + codigo);
+        }
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    public AlteracaoLivro.Tipo getTipo() {
+        return tipo;
+    }
+
+    public long getLivroId() {
+        return livroId;
+    }
+
+    public OffsetDateTime getAlteradoEm() {
+        return alteradoEm;
+    }
+
+    public String getDadosJson() {
+        return dadosJson;
+    }
+}
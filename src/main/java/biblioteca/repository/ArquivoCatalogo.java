@@ -0,0 +1,126 @@
+package biblioteca.repository;
+
+import biblioteca.model.CatalogoColunar;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Cópia local do CatalogoColunar em arquivo binário, para a tela abrir com o catálogo sem esperar
+ * o Hibernate subir nem a consulta completa. Na abertura o arquivo é mapeado em memória e as
+ * colunas copiadas em bloco; depois, em segundo plano, o marcador gravado junto é comparado ao
+ * catalogo_marcador do banco (migração V009) e o catálogo é relido se houver diferença.
+ *
+ * Formato (big-endian): "BIBC", versão do formato, marcador, URL do banco, colunas (CatalogoColunar.gravar).
+ * Arquivo de outra versão do formato é ignorado.
+ *
+ * Local: -Dbiblioteca.catalogo.arquivo (padrão ~/.biblioteca/catalogo.bin); vazio desliga.
+ */
+public class ArquivoCatalogo {
+    private static final int ASSINATURA = 0x42494243; // "BIBC"
+    private static final int VERSAO_FORMATO = 1;
+
+    public static class CatalogoSalvo {
+        public final CatalogoColunar catalogo;
+        public final long marcador;
+        public final String urlBanco;
+
+        CatalogoSalvo(CatalogoColunar catalogo, long marcador, String urlBanco) {
+            this.catalogo = catalogo;
+            this.marcador = marcador;
+            this.urlBanco = urlBanco;
+        }
+
+        /**
+         * Se o arquivo é do mesmo banco e nada mudou desde que foi gravado.
+         */
+        public boolean isAtual(long marcadorBanco) {
+            return marcador == marcadorBanco && urlBanco.equals(FabricaEntityManager.urlPrimario());
+        }
+    }
+
+    private static Path caminho() {
+        String configurado = System.getProperty("biblioteca.catalogo.arquivo");
+        if (configurado == null) {
+            return Paths.get(System.getProperty("user.home"), ".biblioteca", "catalogo.bin");
+        }
+        return configurado.trim().isEmpty() ? null : Paths.get(configurado.trim());
+    }
+
+    /**
+     * @return o catálogo salvo, ou null se não houver arquivo válido
+     */
+    public static CatalogoSalvo ler() {
+        Path arquivo = caminho();
+        if (arquivo == null || !Files.isRegularFile(arquivo)) {
+            return null;
+        }
+
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+            if (buffer.getInt() != ASSINATURA || buffer.getInt() != VERSAO_FORMATO) {
+                return null;
+            }
+
+            long marcador = buffer.getLong();
+            String urlBanco = lerTexto(buffer);
+            return new CatalogoSalvo(CatalogoColunar.ler(buffer), marcador, urlBanco);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Arquivo de catálogo ignorado: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Grava em um arquivo temporário e troca pelo definitivo, para uma gravação interrompida
+     * não deixar arquivo pela metade. Falhas só são registradas: o arquivo é apenas um atalho.
+     */
+    public static void salvar(CatalogoColunar catalogo, long marcador) {
+        Path arquivo = caminho();
+        if (arquivo == null) {
+            return;
+        }
+
+        try {
+            Path pasta = arquivo.toAbsolutePath().getParent();
+            Files.createDirectories(pasta);
+            Path temporario = Files.createTempFile(pasta, "catalogo", ".tmp");
+            try {
+                try (DataOutputStream saida = new DataOutputStream(new BufferedOutputStream(
+                        Files.newOutputStream(temporario), 1 << 16))) {
+                    saida.writeInt(ASSINATURA);
+                    saida.writeInt(VERSAO_FORMATO);
+                    saida.writeLong(marcador);
+                    saida.writeUTF(FabricaEntityManager.urlPrimario());
+                    catalogo.gravar(saida);
+                }
+                // No Windows a troca falha enquanto o arquivo anterior continuar mapeado; fica para a próxima carga
+                Files.move(temporario, arquivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporario);
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Não foi possível salvar o arquivo de catálogo: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Lê o texto gravado por DataOutput.writeUTF (tamanho em 2 bytes + UTF-8 modificado;
+     * URLs JDBC são ASCII, onde os dois coincidem).
+     */
+    private static String lerTexto(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
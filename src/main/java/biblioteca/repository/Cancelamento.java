@@ -0,0 +1,62 @@
+package biblioteca.repository;
+
+import org.postgresql.PGConnection;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Permite interromper, de outra thread, uma consulta do LivroRepository que ainda está rodando no
+ * banco (cancel request do PostgreSQL), em vez de só descartar o resultado quando ele chegar.
+ *
+ * O pedido de cancelamento abre uma conexão própria com o servidor, por isso é enviado em segundo
+ * plano: cancelar() pode ser chamado da thread do Swing.
+ */
+public class Cancelamento {
+    private boolean cancelado;
+    // Conexão da consulta em andamento; só recebe o pedido enquanto a consulta roda
+    private Connection conexao;
+
+    public synchronized void cancelar() {
+        if (cancelado) {
+            return;
+        }
+        cancelado = true;
+        if (conexao != null) {
+            Connection alvo = conexao;
+            CompletableFuture.runAsync(() -> {
+                synchronized (this) {
+                    // A consulta pode ter terminado e a conexão voltado ao pool nesse meio tempo
+                    if (conexao != alvo) {
+                        return;
+                    }
+                    try {
+                        alvo.unwrap(PGConnection.class).cancelQuery();
+                    } catch (SQLException e) {
+                        System.err.println("Não foi possível cancelar a consulta: " + e.getMessage());
+                    }
+                }
+            });
+        }
+    }
+
+    public synchronized boolean isCancelado() {
+        return cancelado;
+    }
+
+    /**
+     * @throws CancellationException se já foi cancelado antes de a consulta começar
+     */
+    synchronized void iniciar(Connection conexao) {
+        if (cancelado) {
+            throw new CancellationException();
+        }
+        this.conexao = conexao;
+    }
+
+    synchronized void terminar() {
+        conexao = null;
+    }
+}
@@ -0,0 +1,156 @@
+package biblioteca.repository;
+
+import biblioteca.model.Autor;
+
+import javax.persistence.Query;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Busca com vários campos ao mesmo tempo (ex.: autor, editora e período de publicação), montada
+ * como uma única consulta parametrizada: cada critério preenchido vira um predicado ligado por AND,
+ * e o banco escolhe entre os índices de cada coluna (ISBN único, data e edições da V012) ou os
+ * combina. Critérios vazios são ignorados; sem nenhum, vale o catálogo inteiro.
+ *
+ * Textos são buscados em qualquer parte do campo, sem diferenciar maiúsculas, como na busca simples.
+ * Esse LIKE '%x%' só usa índice pelos trigramas da V013 (LOWER(titulo), LOWER(editora) e
+ * autores.nome_normalizado), quando o banco tem a extensão pg_trgm e o trecho tem três letras ou
+ * mais; os índices B-tree (ix_autores_nome_prefixo, os de ordenação) não o atendem.
+ */
+public class CriteriosBusca {
+    private String titulo;
+    private String autor;
+    private String editora;
+    private Long isbn;
+    private LocalDate dataInicial;
+    private LocalDate dataFinal;
+    private Integer edicoesMinimas;
+
+    public CriteriosBusca titulo(String titulo) {
+        this.titulo = vazioComoNulo(titulo);
+        return this;
+    }
+
+    public CriteriosBusca autor(String autor) {
+        this.autor = vazioComoNulo(autor);
+        return this;
+    }
+
+    public CriteriosBusca editora(String editora) {
+        this.editora = vazioComoNulo(editora);
+        return this;
+    }
+
+    /**
+     * @param isbn ISBN-13 canônico (Isbn.canonizar)
+     */
+    public CriteriosBusca isbn(Long isbn) {
+        this.isbn = isbn;
+        return this;
+    }
+
+    /**
+     * Publicados entre as datas, inclusive; qualquer uma pode ser nula (período aberto).
+     */
+    public CriteriosBusca periodo(LocalDate dataInicial, LocalDate dataFinal) {
+        this.dataInicial = dataInicial;
+        this.dataFinal = dataFinal;
+        return this;
+    }
+
+    public CriteriosBusca edicoesMinimas(Integer edicoesMinimas) {
+        this.edicoesMinimas = edicoesMinimas;
+        return this;
+    }
+
+    public boolean isVazio() {
+        return condicao().isEmpty();
+    }
+
+    /**
+     * Condição JPQL sobre o alias l, sem o WHERE; vazia sem critérios.
+     */
+    String condicao() {
+        List<String> condicoes = new ArrayList<>();
+        montar(condicoes, new HashMap<>());
+        return String.join(" AND ", condicoes);
+    }
+
+    void aplicarParametros(Query consulta) {
+        Map<String, Object> parametros = new HashMap<>();
+        montar(new ArrayList<>(), parametros);
+        parametros.forEach(consulta::setParameter);
+    }
+
+    private void montar(List<String> condicoes, Map<String, Object> parametros) {
+        if (titulo != null) {
+            condicoes.add("LOWER(l.titulo) LIKE LOWER(:titulo)");
+            parametros.put("titulo", contendo(titulo));
+        }
+        if (autor != null) {
+            // Pela tabela de autores, como na busca simples por autor
+            condicoes.add("l.id IN (SELECT l2.id FROM Livro l2 JOIN l2.listaAutores a " +
+                    "WHERE a.nomeNormalizado LIKE :autor)");
+            parametros.put("autor", contendo(Autor.normalizar(autor)));
+        }
+        if (editora != null) {
+            condicoes.add("LOWER(l.editora) LIKE LOWER(:editora)");
+            parametros.put("editora", contendo(editora));
+        }
+        if (isbn != null) {
+            condicoes.add("l.isbn = :isbn");
+            parametros.put("isbn", isbn);
+        }
+        if (dataInicial != null) {
+            condicoes.add("l.dataPublicacao >= :dataInicial");
+            parametros.put("dataInicial", dataInicial);
+        }
+        if (dataFinal != null) {
+            condicoes.add("l.dataPublicacao <= :dataFinal");
+            parametros.put("dataFinal", dataFinal);
+        }
+        if (edicoesMinimas != null) {
+            condicoes.add("l.livrosSemelhantes >= :edicoesMinimas");
+            parametros.put("edicoesMinimas", edicoesMinimas);
+        }
+    }
+
+    private static String contendo(String texto) {
+        return "%" + LivroRepository.escaparLike(texto) + "%";
+    }
+
+    private static String vazioComoNulo(String texto) {
+        return texto == null || texto.trim().isEmpty() ? null : texto.trim();
+    }
+
+    /**
+     * Resumo dos critérios para a tela (ex.: "autor: machado, 1990–2000").
+     */
+    @Override
+    public String toString() {
+        List<String> partes = new ArrayList<>();
+        if (titulo != null) {
+            partes.add("título: " + titulo);
+        }
+        if (autor != null) {
+            partes.add("autor: " + autor);
+        }
+        if (editora != null) {
+            partes.add("editora: " + editora);
+        }
+        if (isbn != null) {
+            partes.add("ISBN: " + isbn);
+        }
+        if (dataInicial != null || dataFinal != null) {
+            partes.add((dataInicial != null ? String.valueOf(dataInicial.getYear()) : "…") + "–"
+                    + (dataFinal != null ? String.valueOf(dataFinal.getYear()) : "…"));
+        }
+        if (edicoesMinimas != null) {
+            partes.add(edicoesMinimas + "+ edições");
+        }
+        return String.join(", ", partes);
+    }
+}
@@ -0,0 +1,146 @@
+package biblioteca.repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fornece os EntityManagers da aplicação, separando escrita e leitura.
+ *
+ * Escritas vão sempre para o banco primário (persistence.xml). Consultas vão para as réplicas
+ * configuradas, em rodízio, ou para o primário quando não há réplicas. Depois de uma escrita,
+ * as leituras ficam no primário por uma janela de tempo, para que a tela enxergue a própria
+ * alteração mesmo com atraso de replicação.
+ *
+ * Configuração por propriedades de sistema (-D):
+ * - biblioteca.db.url / biblioteca.db.usuario / biblioteca.db.senha: sobrescrevem o primário
+ * - biblioteca.db.replicas: URLs JDBC das réplicas separadas por vírgula
+ * - biblioteca.db.replicas.usuario / biblioteca.db.replicas.senha: padrão igual ao primário
+ * - biblioteca.db.leituraPrimarioAposEscritaMs: janela de leitura no primário (padrão 3000, 0 desliga)
+ */
+public class FabricaEntityManager {
+    private static final String UNIDADE = "BibliotecaPU";
+
+    private static final long JANELA_LEITURA_PRIMARIO_NANOS = TimeUnit.MILLISECONDS.toNanos(
+            Long.getLong("biblioteca.db.leituraPrimarioAposEscritaMs", 3000));
+
+    private static final AtomicInteger proximaReplica = new AtomicInteger();
+    private static volatile boolean iniciada = false;
+    private static volatile long ultimaEscrita = System.nanoTime() - JANELA_LEITURA_PRIMARIO_NANOS - 1;
+
+    /**
+     * Criados só no primeiro uso (holder), para a tela poder abrir antes do Hibernate subir.
+     */
+    private static class Fabricas {
+        static final EntityManagerFactory primario;
+        static final List<EntityManagerFactory> replicas;
+
+        static {
+            try {
+                primario = Persistence.createEntityManagerFactory(UNIDADE, sobrescritasPrimario());
+                MigracaoEsquema.aplicar(primario);
+            } catch (Exception e) {
+                e.printStackTrace();
+                throw new ExceptionInInitializerError("Erro ao criar EntityManagerFactory: " + e.getMessage());
+            }
+            replicas = criarReplicas();
+            iniciada = true;
+        }
+    }
+
+    public static EntityManager escrita() {
+        return Fabricas.primario.createEntityManager();
+    }
+
+    public static EntityManager leitura() {
+        List<EntityManagerFactory> replicas = Fabricas.replicas;
+        if (replicas.isEmpty() || System.nanoTime() - ultimaEscrita < JANELA_LEITURA_PRIMARIO_NANOS) {
+            return Fabricas.primario.createEntityManager();
+        }
+
+        int indice = Math.floorMod(proximaReplica.getAndIncrement(), replicas.size());
+        return replicas.get(indice).createEntityManager();
+    }
+
+    /**
+     * Chamado depois de cada commit de escrita para ativar a janela de leitura no primário.
+     */
+    public static void registrarEscrita() {
+        ultimaEscrita = System.nanoTime();
+    }
+
+    /**
+     * Propriedades efetivas do primário (persistence.xml mais sobrescritas), para quem precisa
+     * de uma conexão JDBC própria fora do Hibernate.
+     */
+    public static Map<String, Object> propriedadesPrimario() {
+        return Fabricas.primario.getProperties();
+    }
+
+    public static String urlPrimario() {
+        return String.valueOf(propriedadesPrimario().get("javax.persistence.jdbc.url"));
+    }
+
+    public static void fechar() {
+        if (!iniciada) {
+            return;
+        }
+        for (EntityManagerFactory replica : Fabricas.replicas) {
+            if (replica.isOpen()) {
+                replica.close();
+            }
+        }
+        if (Fabricas.primario.isOpen()) {
+            Fabricas.primario.close();
+        }
+    }
+
+    private static Map<String, Object> sobrescritasPrimario() {
+        Map<String, Object> propriedades = new HashMap<>();
+        sobrescrever(propriedades, "javax.persistence.jdbc.url", System.getProperty("biblioteca.db.url"));
+        sobrescrever(propriedades, "javax.persistence.jdbc.user", System.getProperty("biblioteca.db.usuario"));
+        sobrescrever(propriedades, "javax.persistence.jdbc.password", System.getProperty("biblioteca.db.senha"));
+        return propriedades;
+    }
+
+    private static List<EntityManagerFactory> criarReplicas() {
+        String urls = System.getProperty("biblioteca.db.replicas", "").trim();
+        if (urls.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<EntityManagerFactory> replicas = new ArrayList<>();
+        for (String url : urls.split(",")) {
+            if (url.trim().isEmpty()) {
+                continue;
+            }
+
+            Map<String, Object> propriedades = sobrescritasPrimario();
+            propriedades.put("javax.persistence.jdbc.url", url.trim());
+            sobrescrever(propriedades, "javax.persistence.jdbc.user", System.getProperty("biblioteca.db.replicas.usuario"));
+            sobrescrever(propriedades, "javax.persistence.jdbc.password", System.getProperty("biblioteca.db.replicas.senha"));
+            // Réplicas são somente leitura: o esquema é mantido pelo primário
+            propriedades.put("hibernate.hbm2ddl.auto", "none");
+
+            try {
+                replicas.add(Persistence.createEntityManagerFactory(UNIDADE, propriedades));
+            } catch (Exception e) {
+                System.err.println("Réplica ignorada (" + url.trim() + "): " + e.getMessage());
+            }
+        }
+        return Collections.unmodifiableList(replicas);
+    }
+
+    private static void sobrescrever(Map<String, Object> propriedades, String chave, String valor) {
+        if (valor != null && !valor.trim().isEmpty()) {
+            propriedades.put(chave, valor.trim());
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package biblioteca.repository;
+
+import biblioteca.util.ConjuntoLongos;
+import biblioteca.util.FiltroBloom;
+
+/**
+ * Índice em memória dos ISBNs cadastrados (ISBN-13 canônico como long), para responder
+ * "este ISBN já está no catálogo?" sem ida ao banco.
+ *
+ * Carregado por uma única consulta (carregar), e mantido em dia pelas gravações do
+ * LivroRepository e pelo feed de alterações (ver BibliotecaApp). Enquanto não estiver carregado,
+ * ou para ISBNs que ele diz existir, quem chama confirma no banco: o índice só serve para
+ * dispensar a consulta quando o ISBN com certeza não está cadastrado. A restrição única
+ * uk_livros_isbn continua sendo a garantia final.
+ *
+ * Com -Dbiblioteca.indiceIsbn.bloom=true, um filtro de Bloom (~1,2 byte por ISBN) responde antes
+ * a maior parte das consultas negativas, sem tocar na tabela de hash.
+ */
+public class IndiceIsbn {
+    private static final boolean USAR_FILTRO_BLOOM = Boolean.getBoolean("biblioteca.indiceIsbn.bloom");
+    private static final double TAXA_FALSO_POSITIVO = 0.01;
+
+    private static ConjuntoLongos isbns;
+    private static FiltroBloom filtro;
+
+    // Alterações que chegam durante a carga, reaplicadas sobre o conjunto recém-lido
+    private static ConjuntoLongos adicionadosDuranteCarga;
+    private static ConjuntoLongos removidosDuranteCarga;
+
+    // Serializa cargas simultâneas (ex.: a da abertura da tela e a de uma importação)
+    private static final Object CARGA = new Object();
+
+    private IndiceIsbn() {}
+
+    /**
+     * Lê todos os ISBNs do banco e substitui o índice. Pode ser chamado de novo para
+     * ressincronizar (ex.: quando o feed de alterações perdeu eventos).
+     */
+    public static void carregar() {
+        synchronized (CARGA) {
+            carregarIsbns();
+        }
+    }
+
+    private static void carregarIsbns() {
+        synchronized (IndiceIsbn.class) {
+            adicionadosDuranteCarga = new ConjuntoLongos();
+            removidosDuranteCarga = new ConjuntoLongos();
+        }
+
+        ConjuntoLongos lidos = new ConjuntoLongos();
+        try {
+            new LivroRepository().listarIsbns(lidos::adicionar);
+        } catch (RuntimeException e) {
+            synchronized (IndiceIsbn.class) {
+                adicionadosDuranteCarga = null;
+                removidosDuranteCarga = null;
+            }
+            throw e;
+        }
+
+        synchronized (IndiceIsbn.class) {
+            // Gravações confirmadas antes da leitura aparecem em 'lidos'; reaplicar é inofensivo
+            ConjuntoLongos adicionados = adicionadosDuranteCarga;
+            ConjuntoLongos removidos = removidosDuranteCarga;
+            adicionadosDuranteCarga = null;
+            removidosDuranteCarga = null;
+
+            isbns = lidos;
+            reaplicar(adicionados, removidos);
+            filtro = USAR_FILTRO_BLOOM ? criarFiltro() : null;
+        }
+    }
+
+    /**
+     * Carrega em uma thread própria, para não atrasar a abertura da tela.
+     */
+    public static void carregarEmSegundoPlano() {
+        Thread thread = new Thread(() -> {
+            try {
+                carregar();
+            } catch (RuntimeException e) {
+                System.err.println("Não foi possível carregar o índice de ISBNs: " + e.getMessage());
+            }
+        }, "carga-indice-isbn");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Carrega agora se ainda não houver índice; usado por quem vai consultar muitos ISBNs (importação).
+     */
+    public static void carregarSeNecessario() {
+        synchronized (CARGA) {
+            if (!isCarregado()) {
+                carregarIsbns();
+            }
+        }
+    }
+
+    public static synchronized boolean isCarregado() {
+        return isbns != null;
+    }
+
+    /**
+     * @return false apenas quando o ISBN com certeza não está cadastrado; true se está ou se o
+     * índice ainda não foi carregado (nesse caso, confirme no banco)
+     */
+    public static synchronized boolean talvezCadastrado(long isbn) {
+        if (isbns == null) {
+            return true;
+        }
+        if (filtro != null && !filtro.podeConter(isbn)) {
+            return false;
+        }
+        return isbns.contem(isbn);
+    }
+
+    static synchronized void adicionar(long isbn) {
+        if (adicionadosDuranteCarga != null) {
+            adicionadosDuranteCarga.adicionar(isbn);
+            removidosDuranteCarga.remover(isbn);
+        }
+        if (isbns != null && isbns.adicionar(isbn) && filtro != null) {
+            filtro.adicionar(isbn);
+        }
+    }
+
+    static synchronized void remover(long isbn) {
+        if (adicionadosDuranteCarga != null) {
+            removidosDuranteCarga.adicionar(isbn);
+            adicionadosDuranteCarga.remover(isbn);
+        }
+        // O filtro de Bloom não remove; o ISBN só deixa de passar por ele na próxima carga
+        if (isbns != null) {
+            isbns.remover(isbn);
+        }
+    }
+
+    /**
+     * Aplica ao índice o que o feed de alterações informou: ISBNs que deixaram de valer e os
+     * ISBNs atuais das linhas inseridas/alteradas.
+     */
+    public static synchronized void aplicarAlteracoes(Iterable<Long> isbnsRemovidos, Iterable<Long> isbnsAtuais) {
+        for (Long isbn : isbnsRemovidos) {
+            remover(isbn);
+        }
+        for (Long isbn : isbnsAtuais) {
+            adicionar(isbn);
+        }
+    }
+
+    private static void reaplicar(ConjuntoLongos adicionados, ConjuntoLongos removidos) {
+        adicionados.paraCada(isbns::adicionar);
+        removidos.paraCada(isbns::remover);
+    }
+
+    private static FiltroBloom criarFiltro() {
+        // Folga para crescer sem estourar a taxa de falso positivo antes da próxima carga
+        FiltroBloom novo = new FiltroBloom(Math.max(isbns.tamanho() * 2, 1024), TAXA_FALSO_POSITIVO);
+        isbns.paraCada(novo::adicionar);
+        return novo;
+    }
+}
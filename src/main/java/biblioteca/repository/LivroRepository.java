@@ -1,104 +1,364 @@
 package biblioteca.repository;
 
+import biblioteca.model.Autor;
+import biblioteca.model.EstatisticaCatalogo;
 import biblioteca.model.Livro;
+import biblioteca.model.LivroResumo;
+import biblioteca.model.RegistroAlteracaoLivro;
+import biblioteca.util.Isbn;
+import org.hibernate.Session;
+import org.hibernate.StaleStateException;
+import org.hibernate.exception.ConstraintViolationException;
+import org.hibernate.jpa.QueryHints;
 
 import javax.persistence.EntityManager;
-import javax.persistence.EntityManagerFactory;
-import javax.persistence.Persistence;
+import javax.persistence.OptimisticLockException;
+import javax.persistence.TypedQuery;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.time.LocalDate;
+import java.time.OffsetDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
 
 public class LivroRepository {
-    private static final EntityManagerFactory emf;
+    // Deve acompanhar hibernate.jdbc.batch_size no persistence.xml
+    private static final int TAMANHO_LOTE = 50;
 
-    static {
-        try {
-            emf = Persistence.createEntityManagerFactory("BibliotecaPU");
-        } catch (Exception e) {
-            e.printStackTrace();
-            throw new ExceptionInInitializerError("Erro ao criar EntityManagerFactory: " + e.getMessage());
-        }
-    }
+    // Linhas trazidas por ida ao banco nas consultas de listagem
+    private static final int TAMANHO_FETCH = 500;
+
+    // Restrições únicas criadas pela migração V003
+    private static final String RESTRICAO_TITULO_AUTOR = "ux_livros_titulo_autores";
+    private static final String RESTRICAO_ISBN = "uk_livros_isbn";
+
+    private static final String SELECT_ENTIDADE = "SELECT l FROM Livro l";
+    /*
+     * Livros já exibidos pelo id e pelo ISBN: na tabela particionada por hash do ISBN (P001) o
+     * ISBN restringe o comando às partições dos livros, enquanto o id sozinho consultaria o
+     * ix_livros_id de todas. Sem particionamento, o índice do id atende e o ISBN só filtra.
+     * Parâmetros: array de ids, array de ISBNs.
+     */
+    private static final String CONDICAO_CHAVES = "id = ANY(?) AND isbn = ANY(?)";
+    private static final String CONDICAO_CHAVES_COM_NULOS = "id = ANY(?) AND (isbn = ANY(?) OR isbn IS NULL)";
+    private static final String SELECT_RESUMO = "SELECT new biblioteca.model.LivroResumo(" +
+            "l.id, l.titulo, l.autores, l.isbn, l.editora, l.dataPublicacao, l.livrosSemelhantes) FROM Livro l";
 
     /**
-     * Verifica se já existe um livro com o mesmo título e autor
-     * @param livro O livro a ser verificado
-     * @return True se já existir, False caso contrário
+     * Salva um livro no banco de dados. Livros com o mesmo título e autor (ou mesmo ISBN) são
+     * barrados pelas restrições únicas do banco, sem consulta prévia; a violação é traduzida
+     * para a mensagem correspondente.
+     *
+     * Na edição de um livro lido do banco, grava só os campos alterados com um UPDATE que confere
+     * a versão, sem o SELECT prévio do merge. Se outro usuário gravou antes, a edição é recusada.
      */
-    public boolean livroJaExiste(Livro livro) {
-        EntityManager em = emf.createEntityManager();
+    public void salvar(Livro livro) throws RuntimeException {
+        boolean novo = livro.getId() == null;
+        EntityManager em = FabricaEntityManager.escrita();
         try {
-            String jpql = "SELECT COUNT(l) FROM Livro l WHERE " +
-                    "LOWER(l.titulo) = LOWER(:titulo) AND " +
-                    "LOWER(l.autores) = LOWER(:autores)";
+            em.getTransaction().begin();
 
-            if (livro.getId() != null) {
-                jpql += " AND l.id != :id";
+            Long novaVersao;
+            if (livro.getId() == null) {
+                vincularAutores(em, Collections.singletonList(livro));
+                em.persist(livro);
+                em.flush();
+                novaVersao = livro.getVersao();
+            } else if (livro.isEstadoCarregadoConhecido() && livro.getVersao() != null) {
+                novaVersao = atualizarCamposAlterados(em, livro);
+            } else {
+                Livro gerenciado = em.merge(livro);
+                vincularAutores(em, Collections.singletonList(gerenciado));
+                em.flush();
+                novaVersao = gerenciado.getVersao();
             }
 
-            javax.persistence.Query query = em.createQuery(jpql);
-            query.setParameter("titulo", livro.getTitulo().toLowerCase());
-            query.setParameter("autores", livro.getAutores().toLowerCase());
+            em.getTransaction().commit();
+            FabricaEntityManager.registrarEscrita();
 
-            if (livro.getId() != null) {
-                query.setParameter("id", livro.getId());
+            livro.setVersao(novaVersao);
+            livro.registrarEstadoCarregado();
+            // Um ISBN trocado na edição fica no índice até a notificação do banco; só custa uma consulta a mais
+            if (livro.getIsbnNumerico() != null) {
+                IndiceIsbn.adicionar(livro.getIsbnNumerico());
             }
-
-            Long count = (Long) query.getSingleResult();
-            return count > 0;
         } catch (Exception e) {
-            e.printStackTrace();
-            return false;
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            if (novo) {
+                livro.setId(null);
+            }
+            throw traduzirErroGravacao("Erro ao salvar livro", e);
         } finally {
             em.close();
         }
     }
 
     /**
-     * Salva um livro no banco de dados, verificando se já existe
-     * um livro com o mesmo título e autor
+     * Insere vários livros novos em uma única transação. Com a sequence em blocos e o
+     * hibernate.jdbc.batch_size, os INSERTs são enviados em lote em vez de um por livro.
+     * Título/autor repetido é barrado pelo ux_livros_titulo_autores e faz o lote inteiro falhar;
+     * quem chama refaz livro a livro para saber qual (ex.: importação).
      */
-    public void salvar(Livro livro) throws RuntimeException {
-        if (livroJaExiste(livro)) {
-            throw new RuntimeException("Já existe um livro cadastrado com o mesmo título e autor.");
+    public void salvarTodos(List<Livro> livros) throws RuntimeException {
+        if (livros.isEmpty()) {
+            return;
         }
 
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = FabricaEntityManager.escrita();
         try {
             em.getTransaction().begin();
 
-            if (livro.getId() == null) {
+            vincularAutores(em, livros);
+
+            int contador = 0;
+            for (Livro livro : livros) {
                 em.persist(livro);
-            } else {
-                em.merge(livro);
+                if (++contador % TAMANHO_LOTE == 0) {
+                    em.flush();
+                    em.clear();
+                }
             }
 
             em.getTransaction().commit();
+            FabricaEntityManager.registrarEscrita();
+
+            for (Livro livro : livros) {
+                if (livro.getIsbnNumerico() != null) {
+                    IndiceIsbn.adicionar(livro.getIsbnNumerico());
+                }
+            }
         } catch (Exception e) {
             if (em.getTransaction().isActive()) {
                 em.getTransaction().rollback();
             }
-            throw new RuntimeException("Erro ao salvar livro", e);
+            // Ids atribuídos no persist não valem após o rollback
+            for (Livro livro : livros) {
+                livro.setId(null);
+            }
+            throw traduzirErroGravacao("Erro ao salvar livros em lote", e);
         } finally {
             em.close();
         }
     }
 
+    /**
+     * UPDATE apenas das colunas alteradas, condicionado à versão lida. Os vínculos de autores
+     * só são refeitos quando o texto de autores mudou.
+     *
+     * @return a nova versão do livro
+     */
+    private Long atualizarCamposAlterados(EntityManager em, Livro livro) {
+        Map<String, Object> alterados = livro.camposAlterados();
+        if (alterados.isEmpty()) {
+            return livro.getVersao();
+        }
+
+        StringBuilder jpql = new StringBuilder("UPDATE Livro l SET ");
+        for (String campo : alterados.keySet()) {
+            jpql.append("l.").append(campo).append(" = :").append(campo).append(", ");
+        }
+        jpql.append("l.versao = l.versao + 1 WHERE l.id = :id AND l.versao = :versao");
+        // Com livros particionada por ISBN (P001), o ISBN lido restringe o UPDATE a uma partição.
+        // Se outro usuário trocou o ISBN, a versão também mudou: o resultado é o mesmo.
+        Long isbnCarregado = livro.getIsbnCarregado();
+        jpql.append(isbnCarregado != null ? " AND l.isbn = :isbnCarregado" : " AND l.isbn IS NULL");
+
+        javax.persistence.Query query = em.createQuery(jpql.toString());
+        alterados.forEach(query::setParameter);
+        query.setParameter("id", livro.getId());
+        query.setParameter("versao", livro.getVersao());
+        if (isbnCarregado != null) {
+            query.setParameter("isbnCarregado", isbnCarregado);
+        }
+
+        if (query.executeUpdate() == 0) {
+            throw new OptimisticLockException("Livro " + livro.getId() + " foi alterado ou excluído por outro usuário");
+        }
+
+        if (alterados.containsKey("autores")) {
+            Livro referencia = em.getReference(Livro.class, livro.getId());
+            referencia.setAutores(livro.getAutores());
+            vincularAutores(em, Collections.singletonList(referencia));
+        }
+
+        return livro.getVersao() + 1;
+    }
+
+    /**
+     * Converte violações das restrições únicas de livros nas mensagens usadas pela interface.
+     * A mensagem do PostgreSQL traz o nome da restrição, inclusive em erros de INSERT em lote.
+     */
+    private static RuntimeException traduzirErroGravacao(String mensagemPadrao, Exception e) {
+        for (Throwable causa = e; causa != null; causa = causa.getCause()) {
+            String restricao = restricaoViolada(causa);
+            if (restricao == null && causa instanceof SQLException) {
+                for (SQLException proxima = ((SQLException) causa).getNextException(); proxima != null && restricao == null;
+                     proxima = proxima.getNextException()) {
+                    restricao = restricaoViolada(proxima);
+                }
+            }
+
+            if (RESTRICAO_TITULO_AUTOR.equals(restricao)) {
+                return new RuntimeException("Já existe um livro cadastrado com o mesmo título e autor.", e);
+            }
+            if (RESTRICAO_ISBN.equals(restricao)) {
+                return new RuntimeException("ISBN já existe no catálogo.", e);
+            }
+            if (causa instanceof OptimisticLockException || causa instanceof StaleStateException) {
+                return new RuntimeException("Este livro foi alterado ou excluído por outro usuário. " +
+                        "Reabra o cadastro para editar a versão atual.", e);
+            }
+        }
+        return new RuntimeException(mensagemPadrao, e);
+    }
+
+    private static String restricaoViolada(Throwable erro) {
+        if (erro instanceof ConstraintViolationException
+                && ((ConstraintViolationException) erro).getConstraintName() != null) {
+            return ((ConstraintViolationException) erro).getConstraintName();
+        }
+        String mensagem = erro.getMessage();
+        if (mensagem != null) {
+            if (mensagem.contains(RESTRICAO_TITULO_AUTOR)) {
+                return RESTRICAO_TITULO_AUTOR;
+            }
+            if (mensagem.contains(RESTRICAO_ISBN)) {
+                return RESTRICAO_ISBN;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Liga cada livro aos registros de Autor correspondentes aos nomes do campo 'autores',
+     * criando os autores que ainda não existem. Os nomes novos são inseridos com um único
+     * INSERT ... ON CONFLICT, seguro mesmo com outro cliente cadastrando o mesmo autor.
+     */
+    private void vincularAutores(EntityManager em, List<Livro> livros) {
+        Map<String, String> nomesPorChave = new LinkedHashMap<>();
+        for (Livro livro : livros) {
+            for (String nome : Autor.separarNomes(livro.getAutores())) {
+                nomesPorChave.putIfAbsent(Autor.normalizar(nome), nome);
+            }
+        }
+
+        Map<String, Autor> autoresPorChave = new HashMap<>();
+        if (!nomesPorChave.isEmpty()) {
+            em.unwrap(Session.class).doWork(conexao -> {
+                try (PreparedStatement ps = conexao.prepareStatement(
+                        "INSERT INTO autores (id, nome, nome_normalizado) " +
+                                "SELECT nextval('autores_seq'), n.nome, n.chave FROM unnest(?, ?) AS n(nome, chave) " +
+                                "ON CONFLICT (nome_normalizado) DO NOTHING")) {
+                    ps.setArray(1, conexao.createArrayOf("varchar", nomesPorChave.values().toArray()));
+                    ps.setArray(2, conexao.createArrayOf("varchar", nomesPorChave.keySet().toArray()));
+                    ps.executeUpdate();
+                }
+            });
+
+            em.createQuery("SELECT a FROM Autor a WHERE a.nomeNormalizado IN :chaves", Autor.class)
+                    .setParameter("chaves", nomesPorChave.keySet())
+                    .getResultList()
+                    .forEach(autor -> autoresPorChave.put(autor.getNomeNormalizado(), autor));
+        }
+
+        for (Livro livro : livros) {
+            Set<Autor> autores = new LinkedHashSet<>();
+            for (String nome : Autor.separarNomes(livro.getAutores())) {
+                Autor autor = autoresPorChave.get(Autor.normalizar(nome));
+                if (autor != null) {
+                    autores.add(autor);
+                }
+            }
+            // retainAll/addAll para o Hibernate gravar só a diferença em livros_autores
+            livro.getListaAutores().retainAll(autores);
+            livro.getListaAutores().addAll(autores);
+        }
+    }
+
+    /**
+     * Livros de um autor, pelo nome exato (sem diferenciar maiúsculas). Usa o índice único de
+     * autores.nome_normalizado e o índice de livros_autores.autor_id.
+     */
+    public List<LivroResumo> buscarResumosPorAutor(String nomeAutor) {
+        return consultarSomenteLeitura(em ->
+                criarConsulta(em, SELECT_RESUMO + " JOIN l.listaAutores a " +
+                        "WHERE a.nomeNormalizado = :nome ORDER BY l.id", LivroResumo.class)
+                        .setParameter("nome", Autor.normalizar(nomeAutor))
+                        .getResultList());
+    }
+
+    /**
+     * Sugestões de autores cujo nome começa com o prefixo informado, para autocomplete.
+     * O índice ix_autores_nome_prefixo (text_pattern_ops) atende o LIKE 'prefixo%'.
+     */
+    public List<String> sugerirAutores(String prefixo, int limite) {
+        String chave = Autor.normalizar(prefixo);
+        if (chave.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        return consultarSomenteLeitura(em ->
+                criarConsulta(em, "SELECT a.nome FROM Autor a WHERE a.nomeNormalizado LIKE :prefixo " +
+                        "ORDER BY a.nomeNormalizado", String.class)
+                        .setParameter("prefixo", escaparLike(chave) + "%")
+                        .setMaxResults(limite)
+                        .getResultList());
+    }
+
+    static String escaparLike(String valor) {
+        return valor.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
 
     /**
      * Funções para cada tipo de busca na barra de pesquisa.
      */
     public Livro buscarPorIsbn(String isbn) {
-        EntityManager em = emf.createEntityManager();
-        try {
-            if (isbn == null || isbn.isEmpty()) {
-                return null;
-            }
+        if (isbn == null || !Isbn.valido(isbn)) {
+            return null;
+        }
+        return buscarPorIsbn(Isbn.canonizar(isbn));
+    }
+
+    /**
+     * Busca pela chave numérica do ISBN-13 canônico (índice de uk_livros_isbn).
+     */
+    public Livro buscarPorIsbn(long isbn) {
+        return buscarPorIsbn(FabricaEntityManager.leitura(), isbn);
+    }
+
+    /**
+     * Como buscarPorIsbn, mas no primário, como buscarPorId: para o livro que vai ser alterado e
+     * gravado de volta. Lido de uma réplica atrasada, ele viria com uma versao antiga e o UPDATE
+     * falharia como alteração de outro usuário.
+     */
+    public Livro buscarPorIsbnParaEdicao(long isbn) {
+        return buscarPorIsbn(FabricaEntityManager.escrita(), isbn);
+    }
 
+    private Livro buscarPorIsbn(EntityManager em, long isbn) {
+        try {
             String jpql = "SELECT l FROM Livro l WHERE l.isbn = :isbn";
 
             List<Livro> resultados = em.createQuery(jpql, Livro.class)
@@ -115,7 +375,7 @@ public class LivroRepository {
     }
 
     public Livro buscarPorId(Long id) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = FabricaEntityManager.escrita();
         try {
             return em.find(Livro.class, id);
         } finally {
@@ -123,127 +383,771 @@ public class LivroRepository {
         }
     }
 
+    /**
+     * Como buscarPorId, para um livro já exibido, com o ISBN da linha (null: sem ISBN). Na tabela
+     * particionada (P001) o ISBN leva a consulta só à partição do livro; o id sozinho consultaria
+     * o ix_livros_id de todas. Se o ISBN mudou desde que a linha foi lida, busca pelo id.
+     */
+    public Livro buscarPorId(Long id, Long isbn) {
+        EntityManager em = FabricaEntityManager.escrita();
+        try {
+            TypedQuery<Livro> query = em.createQuery(SELECT_ENTIDADE + " WHERE l.id = :id AND "
+                    + (isbn != null ? "l.isbn = :isbn" : "l.isbn IS NULL"), Livro.class)
+                    .setParameter("id", id);
+            if (isbn != null) {
+                query.setParameter("isbn", isbn);
+            }
+            List<Livro> encontrados = query.getResultList();
+            return !encontrados.isEmpty() ? encontrados.get(0) : em.find(Livro.class, id);
+        } finally {
+            em.close();
+        }
+    }
+
     public List<Livro> buscarPorCampo(String campo, String valor) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = FabricaEntityManager.leitura();
         try {
-            String jpql = "SELECT l FROM Livro l WHERE ";
+            return listar(consultaPorCampo(em, SELECT_ENTIDADE, Livro.class, campo, valor));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return Collections.emptyList();
+        } finally {
+            em.close();
+        }
+    }
 
-            if ("dataPublicacao".equals(campo)) {
-                return buscarPorData(valor);
-            }
+    /**
+     * Mesma busca de buscarPorCampo, mas projetada em LivroResumo: só as colunas exibidas na tabela,
+     * sem entidades gerenciadas nem snapshots de dirty-checking.
+     */
+    public List<LivroResumo> buscarResumosPorCampo(String campo, String valor) {
+        return consultarSomenteLeitura(em -> listar(consultaPorCampo(em, SELECT_RESUMO, LivroResumo.class, campo, valor)));
+    }
 
-            switch (campo) {
-                case "titulo":
-                    jpql += "LOWER(l.titulo) LIKE LOWER(:valor)";
-                    break;
-                case "autores":
-                    jpql += "LOWER(l.autores) LIKE LOWER(:valor)";
-                    break;
-                case "isbn":
-                    jpql += "(:valor IS NULL OR l.isbn = :valor)";
-                    break;
-                case "editora":
-                    jpql += "LOWER(l.editora) LIKE LOWER(:valor)";
-                    break;
-                default:
-                    if (!Arrays.asList("titulo", "autores", "isbn", "editora", "dataPublicacao").contains(campo)) {
-                        throw new IllegalArgumentException("Campo de busca inválido: " + campo);
+    /**
+     * Consulta de uma busca por campo, ainda não executada; null quando nada pode ser encontrado.
+     */
+    private <T> TypedQuery<T> consultaPorCampo(EntityManager em, String select, Class<T> tipo, String campo, String valor) {
+        String jpql = select + " WHERE ";
+
+        if ("dataPublicacao".equals(campo)) {
+            return consultaPorData(em, select, tipo, valor);
+        }
+
+        switch (campo) {
+            case "titulo":
+                jpql += "LOWER(l.titulo) LIKE LOWER(:valor)";
+                break;
+            case "autores":
+                // Busca na tabela de autores (um registro por nome) e chega aos livros pelo índice de livros_autores
+                jpql += "l.id IN (SELECT l2.id FROM Livro l2 JOIN l2.listaAutores a " +
+                        "WHERE a.nomeNormalizado LIKE LOWER(:valor))";
+                break;
+            case "isbn":
+                // ISBN é comparado pela forma canônica; texto que não é ISBN válido não encontra nada
+                if (!Isbn.valido(valor)) {
+                    return null;
+                }
+                jpql += "l.isbn = :valor";
+                break;
+            case "editora":
+                jpql += "LOWER(l.editora) LIKE LOWER(:valor)";
+                break;
+            default:
+                if (!Arrays.asList("titulo", "autores", "isbn", "editora", "dataPublicacao").contains(campo)) {
+                    throw new IllegalArgumentException("Campo de busca inválido: " + campo);
+                }
+        }
+
+        // Para campos de texto (não ISBN), usar busca parcial
+        if (!campo.equals("isbn")) {
+            return criarConsulta(em, jpql, tipo)
+                    .setParameter("valor", "%" + valor + "%");
+        } else {
+            return criarConsulta(em, jpql, tipo)
+                    .setParameter("valor", Isbn.canonizar(valor));
+        }
+    }
+
+    /**
+     * Mesma busca de buscarResumosPorCampo, entregando os livros à medida que chegam do cursor, até o
+     * limite: a tela mostra os primeiros resultados sem esperar a consulta inteira. Acionado o
+     * cancelamento, a consulta é interrompida no próprio banco e o método lança CancellationException.
+     *
+     * @return quantidade de livros entregues
+     */
+    public int percorrerResumosPorCampo(String campo, String valor, int limite, Cancelamento cancelamento,
+                                        Consumer<LivroResumo> consumidor) {
+        EntityManager em = FabricaEntityManager.leitura();
+        try {
+            em.unwrap(Session.class).setDefaultReadOnly(true);
+            em.getTransaction().begin();
+            int entregues = 0;
+            TypedQuery<LivroResumo> consulta = consultaPorCampo(em, SELECT_RESUMO, LivroResumo.class, campo, valor);
+            if (consulta != null) {
+                em.unwrap(Session.class).doWork(cancelamento::iniciar);
+                try (Stream<LivroResumo> resumos = consulta.setMaxResults(limite).getResultStream()) {
+                    Iterator<LivroResumo> iterador = resumos.iterator();
+                    while (!cancelamento.isCancelado() && iterador.hasNext()) {
+                        consumidor.accept(iterador.next());
+                        entregues++;
                     }
+                } finally {
+                    cancelamento.terminar();
+                }
             }
+            em.getTransaction().commit();
 
-            // Para campos de texto (não ISBN), usar busca parcial
-            if (!campo.equals("isbn")) {
-                return em.createQuery(jpql, Livro.class)
-                        .setParameter("valor", "%" + valor + "%")
-                        .getResultList();
-            } else {
-                return em.createQuery(jpql, Livro.class)
-                        .setParameter("valor", valor)
-                        .getResultList();
+            if (cancelamento.isCancelado()) {
+                throw new CancellationException();
             }
+            return entregues;
         } catch (Exception e) {
-            e.printStackTrace();
-            return Collections.emptyList();
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            // O cancelamento chega como erro do driver ("canceling statement due to user request")
+            if (cancelamento.isCancelado()) {
+                throw new CancellationException();
+            }
+            throw new RuntimeException("Erro na busca", e);
         } finally {
             em.close();
         }
     }
 
+    private static <T> List<T> listar(TypedQuery<T> consulta) {
+        return consulta != null ? consulta.getResultList() : Collections.emptyList();
+    }
+
     public List<Livro> buscarPorData(String dataString) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = FabricaEntityManager.leitura();
         try {
-            LocalDate data = null;
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+            return listar(consultaPorData(em, SELECT_ENTIDADE, Livro.class, dataString));
+        } finally {
+            em.close();
+        }
+    }
 
+    public List<LivroResumo> buscarResumosPorData(String dataString) {
+        return consultarSomenteLeitura(em -> listar(consultaPorData(em, SELECT_RESUMO, LivroResumo.class, dataString)));
+    }
+
+    private <T> TypedQuery<T> consultaPorData(EntityManager em, String select, Class<T> tipo, String dataString) {
+        LocalDate data = null;
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+        try {
+            data = LocalDate.parse(dataString, formatter);
+        } catch (DateTimeParseException e) {
             try {
-                data = LocalDate.parse(dataString, formatter);
-            } catch (DateTimeParseException e) {
+                data = LocalDate.parse(dataString);
+            } catch (DateTimeParseException ex) {
                 try {
-                    data = LocalDate.parse(dataString);
-                } catch (DateTimeParseException ex) {
-                    try {
-                        int ano = Integer.parseInt(dataString);
-                        return buscarPorAno(ano);
-                    } catch (NumberFormatException nex) {
-                        // Se tudo falhar, faz busca parcial na string da data
-                        String jpql = "SELECT l FROM Livro l WHERE CAST(l.dataPublicacao AS string) LIKE :valor";
-                        return em.createQuery(jpql, Livro.class)
-                                .setParameter("valor", "%" + dataString + "%")
-                                .getResultList();
+                    int ano = Integer.parseInt(dataString);
+                    return consultaPorAno(em, select, tipo, ano);
+                } catch (NumberFormatException nex) {
+                    // Se tudo falhar, faz busca parcial na string da data
+                    String jpql = select + " WHERE CAST(l.dataPublicacao AS string) LIKE :valor";
+                    return criarConsulta(em, jpql, tipo)
+                            .setParameter("valor", "%" + dataString + "%");
+                }
+            }
+        }
+
+        String jpql = select + " WHERE l.dataPublicacao = :data";
+        return criarConsulta(em, jpql, tipo)
+                .setParameter("data", data);
+    }
+
+    public List<Livro> buscarPorAno(int ano) {
+        EntityManager em = FabricaEntityManager.leitura();
+        try {
+            return listar(consultaPorAno(em, SELECT_ENTIDADE, Livro.class, ano));
+        } finally {
+            em.close();
+        }
+    }
+
+    private <T> TypedQuery<T> consultaPorAno(EntityManager em, String select, Class<T> tipo, int ano) {
+        LocalDate inicioAno = LocalDate.of(ano, 1, 1);
+        LocalDate fimAno = LocalDate.of(ano, 12, 31);
+
+        String jpql = select + " WHERE l.dataPublicacao BETWEEN :inicio AND :fim";
+        return criarConsulta(em, jpql, tipo)
+                .setParameter("inicio", inicioAno)
+                .setParameter("fim", fimAno);
+    }
+
+    public void excluir(Long id) {
+        excluirTodos(Collections.singletonList(id));
+    }
+
+    /**
+     * Exclui todos os livros indicados com um único DELETE ... WHERE id = ANY(?).
+     * Os vínculos em livros_autores saem pelo ON DELETE CASCADE (migração V006).
+     * O RETURNING traz os ISBNs excluídos para tirá-los do IndiceIsbn.
+     *
+     * @return quantidade de livros excluídos
+     */
+    public int excluirTodos(Collection<Long> ids) {
+        return excluirTodos(ids, null);
+    }
+
+    /**
+     * Como excluirTodos(ids), para linhas já exibidas, com o ISBN de cada uma (CONDICAO_CHAVES).
+     *
+     * @param isbnsPorId ISBN de cada id (null: livro sem ISBN)
+     */
+    public int excluirTodos(Map<Long, Long> isbnsPorId) {
+        return excluirTodos(isbnsPorId.keySet(), isbnsPorId);
+    }
+
+    private int excluirTodos(Collection<Long> ids, Map<Long, Long> isbnsPorId) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> isbnsExcluidos = new ArrayList<>();
+        int excluidos = executarPorChaves("Erro ao excluir livros", "DELETE FROM livros WHERE ",
+                " RETURNING id, isbn", ids, isbnsPorId, rs -> {
+                    long isbn = rs.getLong(2);
+                    if (!rs.wasNull()) {
+                        isbnsExcluidos.add(isbn);
+                    }
+                });
+        for (Long isbn : isbnsExcluidos) {
+            IndiceIsbn.remover(isbn);
+        }
+        return excluidos;
+    }
+
+    /**
+     * Atualiza um mesmo campo de vários livros com um único UPDATE ... WHERE id = ANY(?),
+     * incrementando a versão de cada um. Título e autores ficam de fora por envolverem
+     * deduplicação e vínculos de autores.
+     *
+     * @param isbnsPorId livros a atualizar, com o ISBN de cada um (CONDICAO_CHAVES)
+     * @param campo "editora", "dataPublicacao" ou "livrosSemelhantes"
+     * @return quantidade de livros atualizados
+     */
+    public int atualizarCampoEmLote(Map<Long, Long> isbnsPorId, String campo, Object valor) {
+        String coluna;
+        switch (campo) {
+            case "editora":
+                coluna = "editora";
+                break;
+            case "dataPublicacao":
+                coluna = "data_publicacao";
+                break;
+            case "livrosSemelhantes":
+                coluna = "livros_semelhantes";
+                break;
+            default:
+                throw new IllegalArgumentException("Campo não permitido para atualização em lote: " + campo);
+        }
+
+        if (isbnsPorId.isEmpty()) {
+            return 0;
+        }
+        if (valor instanceof LocalDate) {
+            valor = java.sql.Date.valueOf((LocalDate) valor);
+        }
+        return executarPorChaves("Erro ao atualizar livros",
+                "UPDATE livros SET " + coluna + " = ?, versao = versao + 1 WHERE ", " RETURNING id",
+                isbnsPorId.keySet(), isbnsPorId, rs -> {}, valor);
+    }
+
+    private interface LeitorLinha {
+        void ler(ResultSet rs) throws SQLException;
+    }
+
+    /**
+     * Executa, numa transação, um comando com RETURNING id (primeira coluna) sobre os livros
+     * indicados: inicio + condição + fim, com os valores antes das chaves. Com os ISBNs, a condição
+     * é CONDICAO_CHAVES e os ids que não voltarem (ISBN trocado desde que a linha foi lida) são
+     * tentados de novo só pelo id, em todas as partições; sem eles, vai direto pelo id.
+     *
+     * @param isbnsPorId ISBN de cada id (null no valor: livro sem ISBN), ou null se não conhecidos
+     * @return quantidade de linhas afetadas
+     */
+    private int executarPorChaves(String mensagemErro, String inicio, String fim, Collection<Long> ids,
+                                  Map<Long, Long> isbnsPorId, LeitorLinha leitor, Object... valores) {
+        EntityManager em = FabricaEntityManager.escrita();
+        try {
+            em.getTransaction().begin();
+            int[] afetados = new int[1];
+            em.unwrap(Session.class).doWork(conexao -> {
+                Set<Long> restantes = new HashSet<>(ids);
+                if (isbnsPorId != null) {
+                    List<Long> isbns = new ArrayList<>();
+                    for (Long isbn : isbnsPorId.values()) {
+                        if (isbn != null) {
+                            isbns.add(isbn);
+                        }
+                    }
+
+                    String condicao = isbnsPorId.containsValue(null) ? CONDICAO_CHAVES_COM_NULOS : CONDICAO_CHAVES;
+                    try (PreparedStatement ps = conexao.prepareStatement(inicio + condicao + fim)) {
+                        int indice = 1;
+                        for (Object valor : valores) {
+                            ps.setObject(indice++, valor);
+                        }
+                        ps.setArray(indice++, conexao.createArrayOf("bigint", restantes.toArray()));
+                        ps.setArray(indice, conexao.createArrayOf("bigint", isbns.toArray()));
+                        afetados[0] += lerAfetados(ps, restantes, leitor);
+                    }
+                }
+
+                if (!restantes.isEmpty()) {
+                    try (PreparedStatement ps = conexao.prepareStatement(inicio + "id = ANY(?)" + fim)) {
+                        int indice = 1;
+                        for (Object valor : valores) {
+                            ps.setObject(indice++, valor);
+                        }
+                        ps.setArray(indice, conexao.createArrayOf("bigint", restantes.toArray()));
+                        afetados[0] += lerAfetados(ps, restantes, leitor);
                     }
                 }
+            });
+            em.getTransaction().commit();
+            FabricaEntityManager.registrarEscrita();
+            return afetados[0];
+        } catch (Exception e) {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
             }
+            throw new RuntimeException(mensagemErro, e);
+        } finally {
+            em.close();
+        }
+    }
 
-            String jpql = "SELECT l FROM Livro l WHERE l.dataPublicacao = :data";
-            return em.createQuery(jpql, Livro.class)
-                    .setParameter("data", data)
+    private static int lerAfetados(PreparedStatement ps, Set<Long> restantes, LeitorLinha leitor) throws SQLException {
+        int afetados = 0;
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                afetados++;
+                restantes.remove(rs.getLong(1));
+                leitor.ler(rs);
+            }
+        }
+        return afetados;
+    }
+
+    public List<Livro> listarTodos() {
+        EntityManager em = FabricaEntityManager.leitura();
+        try {
+            return em.createQuery(SELECT_ENTIDADE, Livro.class)
                     .getResultList();
+        } catch (Exception e) {
+            e.printStackTrace();
+            return Collections.emptyList();
         } finally {
             em.close();
         }
     }
 
-    public List<Livro> buscarPorAno(int ano) {
-        EntityManager em = emf.createEntityManager();
+    /**
+     * Percorre os ISBNs de todo o catálogo sem montar entidades nem lista, em blocos de TAMANHO_FETCH
+     * linhas (cursor do driver). Lê do primário, que é a base do IndiceIsbn.
+     */
+    public void listarIsbns(LongConsumer consumidor) {
+        EntityManager em = FabricaEntityManager.escrita();
         try {
-            LocalDate inicioAno = LocalDate.of(ano, 1, 1);
-            LocalDate fimAno = LocalDate.of(ano, 12, 31);
+            em.getTransaction().begin();
+            em.unwrap(Session.class).doWork(conexao -> {
+                try (PreparedStatement ps = conexao.prepareStatement(
+                        "SELECT isbn FROM livros WHERE isbn IS NOT NULL")) {
+                    ps.setFetchSize(TAMANHO_FETCH);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            consumidor.accept(rs.getLong(1));
+                        }
+                    }
+                }
+            });
+            em.getTransaction().commit();
+        } catch (Exception e) {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            throw new RuntimeException("Erro ao listar ISBNs", e);
+        } finally {
+            em.close();
+        }
+    }
 
-            String jpql = "SELECT l FROM Livro l WHERE l.dataPublicacao BETWEEN :inicio AND :fim";
-            return em.createQuery(jpql, Livro.class)
-                    .setParameter("inicio", inicioAno)
-                    .setParameter("fim", fimAno)
-                    .getResultList();
+    /**
+     * Quais dos ISBNs (ISBN-13 canônicos) já estão cadastrados, em uma única consulta
+     * WHERE isbn = ANY(?) sobre uk_livros_isbn. Lê do primário, como listarIsbns.
+     */
+    public Set<Long> filtrarIsbnsCadastrados(Collection<Long> isbns) {
+        if (isbns.isEmpty()) {
+            return Collections.emptySet();
+        }
+
+        Set<Long> cadastrados = new HashSet<>();
+        EntityManager em = FabricaEntityManager.escrita();
+        try {
+            em.getTransaction().begin();
+            em.unwrap(Session.class).doWork(conexao -> {
+                try (PreparedStatement ps = conexao.prepareStatement(
+                        "SELECT isbn FROM livros WHERE isbn = ANY(?)")) {
+                    ps.setArray(1, conexao.createArrayOf("bigint", isbns.toArray()));
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            cadastrados.add(rs.getLong(1));
+                        }
+                    }
+                }
+            });
+            em.getTransaction().commit();
+            return cadastrados;
+        } catch (Exception e) {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            throw new RuntimeException("Erro ao verificar ISBNs cadastrados", e);
         } finally {
             em.close();
         }
     }
 
-    public void excluir(Long id) {
-        EntityManager em = emf.createEntityManager();
+    /**
+     * Lista o catálogo inteiro já projetado para a tabela da tela principal, ordenado por id.
+     */
+    public List<LivroResumo> listarResumos() {
+        return consultarSomenteLeitura(em ->
+                criarConsulta(em, SELECT_RESUMO + " ORDER BY l.id", LivroResumo.class).getResultList());
+    }
+
+    /**
+     * Uma página da listagem, para a tabela paginada, só com os livros que atendem aos critérios
+     * (null ou vazios: catálogo inteiro). Com aposLivro (última linha da página anterior), a página
+     * continua dela pela chave (Ordenacao.continuacoes), posicionando no índice (coluna, id) da
+     * V012 em qualquer ordem; sem ela, num salto para o meio da listagem, pula deslocamento linhas
+     * (OFFSET).
+     */
+    public List<LivroResumo> listarPaginaResumos(CriteriosBusca criterios, Ordenacao ordenacao, LivroResumo aposLivro,
+                                                 int deslocamento, int limite) {
+        return consultarSomenteLeitura(em -> {
+            if (aposLivro == null) {
+                return listarTrecho(em, criterios, ordenacao, null, deslocamento, limite);
+            }
+            List<LivroResumo> pagina = new ArrayList<>(limite);
+            for (Ordenacao.Trecho trecho : ordenacao.continuacoes(aposLivro)) {
+                pagina.addAll(listarTrecho(em, criterios, ordenacao, trecho, 0, limite - pagina.size()));
+                if (pagina.size() >= limite) {
+                    break;
+                }
+            }
+            return pagina;
+        });
+    }
+
+    private List<LivroResumo> listarTrecho(EntityManager em, CriteriosBusca criterios, Ordenacao ordenacao,
+                                           Ordenacao.Trecho trecho, int deslocamento, int limite) {
+        List<String> condicoes = new ArrayList<>();
+        if (criterios != null && !criterios.isVazio()) {
+            condicoes.add(criterios.condicao());
+        }
+        if (trecho != null) {
+            condicoes.add(trecho.condicao);
+        }
+
+        String where = condicoes.isEmpty() ? "" : " WHERE " + String.join(" AND ", condicoes);
+        TypedQuery<LivroResumo> query = criarConsulta(em, SELECT_RESUMO + where + ordenacao.clausula(), LivroResumo.class);
+        if (criterios != null) {
+            criterios.aplicarParametros(query);
+        }
+        if (trecho != null) {
+            trecho.parametros.forEach(query::setParameter);
+        }
+        return query.setFirstResult(deslocamento).setMaxResults(limite).getResultList();
+    }
+
+    /**
+     * Quantos livros atendem aos critérios, no mesmo predicado de listarPaginaResumos. Sem critérios,
+     * vale o total mantido por contarLivros.
+     */
+    public long contarResumos(CriteriosBusca criterios) {
+        if (criterios == null || criterios.isVazio()) {
+            return contarLivros();
+        }
+        List<Long> total = consultarSomenteLeitura(em -> {
+            TypedQuery<Long> query = criarConsulta(em, "SELECT COUNT(l) FROM Livro l WHERE " + criterios.condicao(), Long.class);
+            criterios.aplicarParametros(query);
+            return query.getResultList();
+        });
+        return total.isEmpty() ? 0 : total.get(0);
+    }
+
+    /**
+     * Entrega o catálogo inteiro, em ordem de id, um livro por vez: as linhas chegam do cursor em
+     * blocos de TAMANHO_FETCH e nenhuma lista é montada. Usado para preencher o CatalogoColunar.
+     *
+     * Marcador e livros são lidos na mesma transação REPEATABLE READ, então o marcador devolvido
+     * corresponde exatamente ao catálogo entregue (também numa réplica, que replica a tabela do marcador).
+     *
+     * @return o catalogo_marcador no momento da leitura
+     */
+    public long percorrerResumos(Consumer<LivroResumo> consumidor) {
+        EntityManager em = FabricaEntityManager.leitura();
         try {
+            em.unwrap(Session.class).setDefaultReadOnly(true);
             em.getTransaction().begin();
-            Livro livro = em.find(Livro.class, id);
-            if (livro != null) {
-                em.remove(em.contains(livro) ? livro : em.merge(livro));
+            long[] marcador = new long[1];
+            em.unwrap(Session.class).doWork(conexao -> {
+                try (Statement st = conexao.createStatement()) {
+                    st.execute("SET TRANSACTION ISOLATION LEVEL REPEATABLE READ");
+                    marcador[0] = lerMarcador(st);
+                }
+            });
+            try (Stream<LivroResumo> resumos = criarConsulta(em, SELECT_RESUMO + " ORDER BY l.id", LivroResumo.class)
+                    .getResultStream()) {
+                resumos.forEach(consumidor);
             }
             em.getTransaction().commit();
+            return marcador[0];
         } catch (Exception e) {
             if (em.getTransaction().isActive()) {
                 em.getTransaction().rollback();
             }
-            throw new RuntimeException("Erro ao excluir livro", e);
+            throw new RuntimeException("Erro ao listar livros", e);
         } finally {
             em.close();
         }
     }
 
-    public List<Livro> listarTodos() {
-        EntityManager em = emf.createEntityManager();
+    /**
+     * Valor atual do catalogo_marcador no primário, incrementado a cada comando que altera livros
+     * (migração V009). Se for igual ao de um catálogo salvo, o catálogo continua válido.
+     */
+    public long lerMarcadorCatalogo() {
+        EntityManager em = FabricaEntityManager.escrita();
         try {
-            return em.createQuery("SELECT l FROM Livro l", Livro.class)
-                    .getResultList();
+            long[] marcador = new long[1];
+            em.unwrap(Session.class).doWork(conexao -> {
+                try (Statement st = conexao.createStatement()) {
+                    marcador[0] = lerMarcador(st);
+                }
+            });
+            return marcador[0];
+        } finally {
+            em.close();
+        }
+    }
+
+    private static long lerMarcador(Statement st) throws SQLException {
+        try (ResultSet rs = st.executeQuery("SELECT versao FROM catalogo_marcador WHERE id = 1")) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    /**
+     * Busca as linhas de tabela dos livros indicados, em uma única consulta. Lê do primário porque
+     * é usada logo após uma notificação de alteração, que as réplicas talvez ainda não tenham recebido.
+     */
+    public List<LivroResumo> buscarResumosPorIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return consultarSomenteLeitura(FabricaEntityManager.escrita(), em ->
+                criarConsulta(em, SELECT_RESUMO + " WHERE l.id IN :ids ORDER BY l.id", LivroResumo.class)
+                        .setParameter("ids", ids)
+                        .getResultList());
+    }
+
+    /**
+     * Como buscarResumosPorIds(ids), com o ISBN de cada livro (ex.: o da notificação, V014), para a
+     * consulta ir só às partições deles (CONDICAO_CHAVES). Os que não vierem (ISBN trocado desde
+     * então) são buscados de novo só pelo id.
+     *
+     * @param isbnsPorId ISBN de cada id (null: livro sem ISBN)
+     */
+    public List<LivroResumo> buscarResumosPorIds(Map<Long, Long> isbnsPorId) {
+        if (isbnsPorId.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Set<Long> isbns = new HashSet<>(isbnsPorId.values());
+        boolean comNulos = isbns.remove(null);
+        List<String> porIsbn = new ArrayList<>();
+        if (!isbns.isEmpty()) {
+            porIsbn.add("l.isbn IN :isbns");
+        }
+        if (comNulos) {
+            porIsbn.add("l.isbn IS NULL");
+        }
+
+        List<LivroResumo> livros = new ArrayList<>(consultarSomenteLeitura(FabricaEntityManager.escrita(), em -> {
+            TypedQuery<LivroResumo> query = criarConsulta(em, SELECT_RESUMO + " WHERE l.id IN :ids AND ("
+                    + String.join(" OR ", porIsbn) + ") ORDER BY l.id", LivroResumo.class)
+                    .setParameter("ids", isbnsPorId.keySet());
+            if (!isbns.isEmpty()) {
+                query.setParameter("isbns", isbns);
+            }
+            return query.getResultList();
+        }));
+
+        if (livros.size() < isbnsPorId.size()) {
+            Set<Long> restantes = new HashSet<>(isbnsPorId.keySet());
+            for (LivroResumo livro : livros) {
+                restantes.remove(livro.getId());
+            }
+            livros.addAll(buscarResumosPorIds(restantes));
+            livros.sort(Comparator.comparing(LivroResumo::getId));
+        }
+        return livros;
+    }
+
+    /**
+     * Publica os registros de alteração já definitivos (publicar_alteracoes_livros, migração V011)
+     * e entrega, em ordem, os de seq maior que o informado, direto do cursor. O custo depende de
+     * quantas alterações houve desde então, não do tamanho do catálogo.
+     *
+     * Roda no primário: a publicação grava o seq dos registros.
+     *
+     * @return o maior seq entregue, ou desdeSeq se não houve alterações
+     */
+    public long percorrerAlteracoes(long desdeSeq, Consumer<RegistroAlteracaoLivro> consumidor) {
+        EntityManager em = FabricaEntityManager.escrita();
+        try {
+            long[] ultimo = {desdeSeq};
+
+            // Publicação em transação própria, para liberar o lock antes de a leitura começar
+            em.getTransaction().begin();
+            em.unwrap(Session.class).doWork(conexao -> {
+                try (Statement st = conexao.createStatement()) {
+                    st.execute("SELECT publicar_alteracoes_livros()");
+                }
+            });
+            em.getTransaction().commit();
+
+            em.getTransaction().begin();
+            em.unwrap(Session.class).doWork(conexao -> {
+                try (PreparedStatement ps = conexao.prepareStatement(
+                        "SELECT seq, operacao, livro_id, alterado_em, dados::text FROM livros_alteracoes " +
+                                "WHERE seq > ? ORDER BY seq")) {
+                    ps.setLong(1, desdeSeq);
+                    ps.setFetchSize(TAMANHO_FETCH);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            RegistroAlteracaoLivro registro = new RegistroAlteracaoLivro(
+                                    rs.getLong(1),
+                                    RegistroAlteracaoLivro.tipoDoCodigo(rs.getString(2)),
+                                    rs.getLong(3),
+                                    rs.getObject(4, OffsetDateTime.class),
+                                    rs.getString(5));
+                            consumidor.accept(registro);
+                            ultimo[0] = registro.getSeq();
+                        }
+                    }
+                }
+            });
+            em.getTransaction().commit();
+            return ultimo[0];
         } catch (Exception e) {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            throw new RuntimeException("Erro ao ler o registro de alterações", e);
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Contagens de uma dimensão lidas de estatisticas_catalogo (migração V010), mantida pelos
+     * triggers de livros e livros_autores: o custo depende do limite, não do tamanho do catálogo.
+     * Editoras e autores vêm dos mais frequentes (índice por quantidade); anos e faixas de edições,
+     * em ordem de chave (chave primária).
+     */
+    public List<EstatisticaCatalogo> listarEstatisticas(EstatisticaCatalogo.Dimensao dimensao, int limite) {
+        String sql;
+        switch (dimensao) {
+            case AUTOR:
+                sql = "SELECT a.nome, e.quantidade FROM estatisticas_catalogo e " +
+                        "JOIN autores a ON a.id = e.chave::bigint " +
+                        "WHERE e.dimensao = ? AND e.quantidade > 0 ORDER BY e.quantidade DESC LIMIT ?";
+                break;
+            case EDITORA:
+                sql = "SELECT chave, quantidade FROM estatisticas_catalogo " +
+                        "WHERE dimensao = ? AND quantidade > 0 ORDER BY quantidade DESC LIMIT ?";
+                break;
+            default:
+                sql = "SELECT chave, quantidade FROM estatisticas_catalogo " +
+                        "WHERE dimensao = ? AND quantidade > 0 ORDER BY chave LIMIT ?";
+        }
+
+        return consultarSomenteLeitura(em -> {
+            List<EstatisticaCatalogo> estatisticas = new ArrayList<>();
+            em.unwrap(Session.class).doWork(conexao -> {
+                try (PreparedStatement ps = conexao.prepareStatement(sql)) {
+                    ps.setString(1, dimensao.getColuna());
+                    ps.setInt(2, limite);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            estatisticas.add(new EstatisticaCatalogo(
+                                    EstatisticaCatalogo.rotular(dimensao, rs.getString(1)), rs.getLong(2)));
+                        }
+                    }
+                }
+            });
+            return estatisticas;
+        });
+    }
+
+    /**
+     * Total de livros mantido em estatisticas_catalogo, sem COUNT(*) sobre livros.
+     */
+    public long contarLivros() {
+        List<Long> total = consultarSomenteLeitura(em -> {
+            List<Long> resultado = new ArrayList<>();
+            em.unwrap(Session.class).doWork(conexao -> {
+                try (Statement st = conexao.createStatement();
+                     ResultSet rs = st.executeQuery("SELECT quantidade FROM estatisticas_catalogo " +
+                             "WHERE dimensao = 'total' AND chave = ''")) {
+                    if (rs.next()) {
+                        resultado.add(rs.getLong(1));
+                    }
+                }
+            });
+            return resultado;
+        });
+        return total.isEmpty() ? 0 : total.get(0);
+    }
+
+    private <T> TypedQuery<T> criarConsulta(EntityManager em, String jpql, Class<T> tipo) {
+        TypedQuery<T> query = em.createQuery(jpql, tipo);
+        if (tipo != Livro.class) {
+            query.setHint(QueryHints.HINT_READONLY, true);
+            query.setHint(QueryHints.HINT_FETCH_SIZE, TAMANHO_FETCH);
+        }
+        return query;
+    }
+
+    /**
+     * Executa consultas de listagem dentro de uma transação somente leitura. O driver do PostgreSQL
+     * só usa o fetch size (cursor) com autocommit desligado, então a transação é necessária para
+     * que resultados grandes venham em blocos em vez de todos de uma vez.
+     */
+    private <T> List<T> consultarSomenteLeitura(Function<EntityManager, List<T>> consulta) {
+        return consultarSomenteLeitura(FabricaEntityManager.leitura(), consulta);
+    }
+
+    private <T> List<T> consultarSomenteLeitura(EntityManager em, Function<EntityManager, List<T>> consulta) {
+        try {
+            em.unwrap(Session.class).setDefaultReadOnly(true);
+            em.getTransaction().begin();
+            List<T> resultado = consulta.apply(em);
+            em.getTransaction().commit();
+            return resultado;
+        } catch (Exception e) {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
             e.printStackTrace();
             return Collections.emptyList();
         } finally {
@@ -252,8 +1156,6 @@ public class LivroRepository {
     }
 
     public static void closeEntityManagerFactory() {
-        if (emf != null && emf.isOpen()) {
-            emf.close();
-        }
+        FabricaEntityManager.fechar();
     }
 }
\ No newline at end of file
@@ -0,0 +1,128 @@
+package biblioteca.repository;
+
+import org.hibernate.Session;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Aplica os scripts SQL de src/main/resources/db/migracao que o hbm2ddl não consegue expressar
+ * (ajustes de sequence, índices funcionais, triggers, migração de dados).
+ *
+ * Cada script roda uma única vez, registrado na tabela esquema_migracoes. O hbm2ddl continua
+ * criando/atualizando as tabelas; as migrações rodam logo depois, na criação do EntityManagerFactory.
+ *
+ * Opcional: com -Dbiblioteca.db.particoesLivros=N (N > 0), depois das demais roda P001, que recria
+ * livros particionada por hash do ISBN em N partições. Só é aplicada uma vez; mudar N depois não
+ * reparticiona. Scripts novos que mexem em livros precisam funcionar nos dois esquemas.
+ */
+public class MigracaoEsquema {
+    private static final String PASTA = "/db/migracao/";
+
+    // Ordem de aplicação. Novos scripts devem ser adicionados ao final.
+    private static final String[] SCRIPTS = {
+            "V001__sequencia_livros.sql",
+            "V002__autores.sql",
+            "V003__restricoes_unicas_livros.sql",
+            "V004__notificacao_alteracoes.sql",
+            "V005__versao_livros.sql",
+            "V006__exclusao_em_cascata_autores.sql",
+            "V007__isbn_numerico.sql",
+            "V008__isbn_na_notificacao.sql",
+            "V009__marcador_catalogo.sql",
+            "V010__estatisticas_catalogo.sql",
+            "V011__registro_alteracoes.sql",
+            "V012__ordenacao_livros.sql",
+            "V013__busca_trigrama.sql",
+            "V014__isbn_atual_na_notificacao.sql"
+    };
+
+    private static final String SCRIPT_PARTICIONAMENTO = "P001__livros_particionada.sql";
+    private static final int PARTICOES_LIVROS = Integer.getInteger("biblioteca.db.particoesLivros", 0);
+
+    // Chave arbitrária para o advisory lock que serializa migrações entre clientes iniciando juntos
+    private static final long CHAVE_LOCK = 7_310_021L;
+
+    public static void aplicar(EntityManagerFactory emf) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.unwrap(Session.class).doWork(MigracaoEsquema::aplicar);
+        } finally {
+            em.close();
+        }
+    }
+
+    private static void aplicar(Connection conexao) throws SQLException {
+        boolean autoCommitOriginal = conexao.getAutoCommit();
+        conexao.setAutoCommit(false);
+        try (Statement st = conexao.createStatement()) {
+            st.execute("SELECT pg_advisory_xact_lock(" + CHAVE_LOCK + ")");
+            st.execute("CREATE TABLE IF NOT EXISTS esquema_migracoes (" +
+                    "versao VARCHAR(100) PRIMARY KEY, " +
+                    "aplicada_em TIMESTAMP NOT NULL DEFAULT now())");
+
+            for (String script : SCRIPTS) {
+                if (jaAplicada(conexao, script)) {
+                    continue;
+                }
+
+                System.out.println("Aplicando migração " + script);
+                executar(conexao, st, script);
+            }
+
+            if (PARTICOES_LIVROS > 0 && !jaAplicada(conexao, SCRIPT_PARTICIONAMENTO)) {
+                System.out.println("Aplicando migração " + SCRIPT_PARTICIONAMENTO + " (" + PARTICOES_LIVROS + " partições)");
+                // Lido pelo script com current_setting; vale só até o fim desta transação
+                st.execute("SET LOCAL biblioteca.particoes_livros = " + PARTICOES_LIVROS);
+                executar(conexao, st, SCRIPT_PARTICIONAMENTO);
+            }
+
+            conexao.commit();
+        } catch (SQLException | RuntimeException e) {
+            conexao.rollback();
+            throw e;
+        } finally {
+            conexao.setAutoCommit(autoCommitOriginal);
+        }
+    }
+
+    private static void executar(Connection conexao, Statement st, String script) throws SQLException {
+        // O driver do PostgreSQL aceita vários comandos em um único execute
+        st.execute(lerScript(script));
+
+        try (PreparedStatement ps = conexao.prepareStatement(
+                "INSERT INTO esquema_migracoes (versao) VALUES (?)")) {
+            ps.setString(1, script);
+            ps.executeUpdate();
+        }
+    }
+
+    private static boolean jaAplicada(Connection conexao, String script) throws SQLException {
+        try (PreparedStatement ps = conexao.prepareStatement(
+                "SELECT 1 FROM esquema_migracoes WHERE versao = ?")) {
+            ps.setString(1, script);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    private static String lerScript(String script) {
+        try (InputStream in = MigracaoEsquema.class.getResourceAsStream(PASTA + script)) {
+            if (in == null) {
+                throw new IllegalStateException("Script de migração não encontrado: " + script);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalStateException("Erro ao ler script de migração " + script, e);
+        }
+    }
+}
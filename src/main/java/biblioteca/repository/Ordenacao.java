@@ -0,0 +1,186 @@
+package biblioteca.repository;
+
+import biblioteca.model.LivroResumo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Ordem da listagem de livros, aplicada no banco: uma ou mais colunas, cada uma crescente ou
+ * decrescente, sempre desempatadas pelo id para a paginação ser estável. Imutável; as operações
+ * devolvem uma nova ordenação.
+ *
+ * Os índices (coluna, id) da migração V012 atendem à primeira coluna; as seguintes só desempatam.
+ * Página a página, a listagem continua da última linha lida (continuacoes), sem OFFSET.
+ */
+public final class Ordenacao {
+    public enum Campo {
+        TITULO("l.titulo", LivroResumo::getTitulo),
+        AUTORES("l.autores", LivroResumo::getAutores),
+        EDITORA("l.editora", LivroResumo::getEditora),
+        DATA_PUBLICACAO("l.dataPublicacao", LivroResumo::getDataPublicacao),
+        EDICOES("l.livrosSemelhantes", LivroResumo::getLivrosSemelhantes);
+
+        private final String expressao;
+        private final Function<LivroResumo, Object> valor;
+
+        Campo(String expressao, Function<LivroResumo, Object> valor) {
+            this.expressao = expressao;
+            this.valor = valor;
+        }
+    }
+
+    /**
+     * Uma consulta da continuação: condição JPQL sobre o alias l e seus parâmetros.
+     */
+    static final class Trecho {
+        final String condicao;
+        final Map<String, Object> parametros;
+
+        Trecho(String condicao, Map<String, Object> parametros) {
+            this.condicao = condicao;
+            this.parametros = parametros;
+        }
+    }
+
+    public static final class Criterio {
+        private final Campo campo;
+        private final boolean crescente;
+
+        Criterio(Campo campo, boolean crescente) {
+            this.campo = campo;
+            this.crescente = crescente;
+        }
+
+        public Campo getCampo() {
+            return campo;
+        }
+
+        public boolean isCrescente() {
+            return crescente;
+        }
+    }
+
+    public static final Ordenacao POR_ID = new Ordenacao(Collections.emptyList());
+
+    private final List<Criterio> criterios;
+
+    private Ordenacao(List<Criterio> criterios) {
+        this.criterios = Collections.unmodifiableList(criterios);
+    }
+
+    public List<Criterio> getCriterios() {
+        return criterios;
+    }
+
+    public boolean isPorId() {
+        return criterios.isEmpty();
+    }
+
+    /**
+     * Clique no cabeçalho da coluna. Sozinho, o campo passa a ser a única ordem, e cliques seguidos
+     * alternam crescente, decrescente e de volta à ordem por id. Com acrescentar (shift), o campo
+     * entra no fim da ordem atual ou, se já estiver nela, alterna do mesmo jeito só a sua direção.
+     */
+    public Ordenacao alternar(Campo campo, boolean acrescentar) {
+        Criterio atual = null;
+        for (Criterio criterio : criterios) {
+            if (criterio.campo == campo) {
+                atual = criterio;
+            }
+        }
+        if (!acrescentar && (criterios.size() != 1 || atual == null)) {
+            return new Ordenacao(Collections.singletonList(new Criterio(campo, true)));
+        }
+
+        List<Criterio> novos = new ArrayList<>(criterios);
+        if (atual == null) {
+            novos.add(new Criterio(campo, true));
+        } else if (atual.crescente) {
+            novos.set(novos.indexOf(atual), new Criterio(campo, false));
+        } else {
+            novos.remove(atual);
+        }
+        return new Ordenacao(novos);
+    }
+
+    /**
+     * Cláusula ORDER BY em JPQL sobre o alias l. O id segue a direção da primeira coluna, para o
+     * banco poder ler o índice (coluna, id) inteiro num só sentido.
+     */
+    String clausula() {
+        StringBuilder clausula = new StringBuilder(" ORDER BY ");
+        for (Criterio criterio : criterios) {
+            clausula.append(criterio.campo.expressao).append(criterio.crescente ? " ASC, " : " DESC, ");
+        }
+        boolean idCrescente = criterios.isEmpty() || criterios.get(0).crescente;
+        return clausula.append(idCrescente ? "l.id ASC" : "l.id DESC").toString();
+    }
+
+    /**
+     * Linhas que vêm depois de ultimo nesta ordem (paginação pela chave), como consultas a rodar
+     * em sequência, cada uma com esta cláusula ORDER BY, até completar a página.
+     *
+     * A primeira começa com um limite na primeira coluna (ex.: l.titulo >= :ultimo0), que o banco
+     * resolve posicionando no índice (coluna, id), sem percorrer as linhas anteriores. Como os nulos
+     * ficam no fim da ordem crescente e no início da decrescente, fora dessa faixa, a segunda
+     * consulta, quando há, traz o grupo seguinte desde o começo (os nulos, ou os não nulos).
+     */
+    List<Trecho> continuacoes(LivroResumo ultimo) {
+        Map<String, Object> parametros = new HashMap<>();
+        parametros.put("ultimoId", ultimo.getId());
+        if (criterios.isEmpty()) {
+            return Collections.singletonList(new Trecho(depois(0, ultimo, parametros), parametros));
+        }
+
+        Criterio primeiro = criterios.get(0);
+        String expressao = primeiro.campo.expressao;
+        Object valor = primeiro.campo.valor.apply(ultimo);
+        String resto = depois(1, ultimo, parametros);
+        if (valor == null) {
+            Trecho nulos = new Trecho(expressao + " IS NULL AND (" + resto + ")", parametros);
+            return primeiro.crescente ? Collections.singletonList(nulos)
+                    : Arrays.asList(nulos, new Trecho(expressao + " IS NOT NULL", Collections.emptyMap()));
+        }
+
+        parametros.put("ultimo0", valor);
+        String faixa = primeiro.crescente
+                ? expressao + " >= :ultimo0 AND (" + expressao + " > :ultimo0"
+                : expressao + " <= :ultimo0 AND (" + expressao + " < :ultimo0";
+        Trecho naFaixa = new Trecho(faixa + " OR (" + expressao + " = :ultimo0 AND (" + resto + ")))", parametros);
+        return primeiro.crescente
+                ? Arrays.asList(naFaixa, new Trecho(expressao + " IS NULL", Collections.emptyMap()))
+                : Collections.singletonList(naFaixa);
+    }
+
+    /**
+     * Condição "depois de ultimo" a partir do critério de índice inicio, terminando no id.
+     */
+    private String depois(int inicio, LivroResumo ultimo, Map<String, Object> parametros) {
+        if (inicio == criterios.size()) {
+            boolean idCrescente = criterios.isEmpty() || criterios.get(0).crescente;
+            return idCrescente ? "l.id > :ultimoId" : "l.id < :ultimoId";
+        }
+
+        Criterio criterio = criterios.get(inicio);
+        String expressao = criterio.campo.expressao;
+        Object valor = criterio.campo.valor.apply(ultimo);
+        String resto = depois(inicio + 1, ultimo, parametros);
+        if (valor == null) {
+            String entreNulos = expressao + " IS NULL AND (" + resto + ")";
+            return criterio.crescente ? entreNulos : "(" + expressao + " IS NOT NULL OR (" + entreNulos + "))";
+        }
+
+        String parametro = "ultimo" + inicio;
+        parametros.put(parametro, valor);
+        String posterior = criterio.crescente
+                ? "(" + expressao + " > :" + parametro + " OR " + expressao + " IS NULL)"
+                : expressao + " < :" + parametro;
+        return "(" + posterior + " OR (" + expressao + " = :" + parametro + " AND (" + resto + ")))";
+    }
+}
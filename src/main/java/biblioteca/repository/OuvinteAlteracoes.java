@@ -0,0 +1,138 @@
+package biblioteca.repository;
+
+import biblioteca.model.AlteracaoLivro;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Escuta o canal livros_alterados do PostgreSQL em uma thread própria, com uma conexão JDBC
+ * dedicada (fora do pool do Hibernate), e repassa as alterações aos assinantes.
+ *
+ * A cada conexão, inclusive a primeira, avisa os assinantes de que eventos anteriores ao LISTEN
+ * podem não ter chegado; se a conexão cair, reconecta.
+ */
+public class OuvinteAlteracoes {
+    public static final String CANAL = "livros_alterados";
+
+    private static final int ESPERA_NOTIFICACAO_MS = 1000;
+    private static final int ESPERA_RECONEXAO_MS = 5000;
+
+    public interface Assinante {
+        /**
+         * Alterações recebidas em uma mesma leitura do canal, na ordem de commit.
+         * Chamado na thread do ouvinte, não na thread do Swing.
+         */
+        void aoAlterar(List<AlteracaoLivro> alteracoes);
+
+        /**
+         * O canal passou a ser escutado (primeira conexão ou reconexão): alterações feitas antes
+         * disso não chegam por aoAlterar. Conferir o que foi lido antes (ex.: pelo catalogo_marcador)
+         * e recarregar se necessário. Chamado na thread do ouvinte.
+         */
+        void aoPerderEventos();
+    }
+
+    private final Assinante assinante;
+    private volatile boolean ativo = false;
+    private volatile boolean conectado = false;
+    private Thread thread;
+
+    public OuvinteAlteracoes(Assinante assinante) {
+        this.assinante = assinante;
+    }
+
+    public synchronized void iniciar() {
+        if (ativo) {
+            return;
+        }
+        ativo = true;
+        thread = new Thread(this::executar, "ouvinte-alteracoes-livros");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public synchronized void parar() {
+        ativo = false;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * Indica se o canal está sendo escutado; sem ele, quem depende do feed deve recarregar por conta própria.
+     */
+    public boolean isConectado() {
+        return conectado;
+    }
+
+    private void executar() {
+        while (ativo) {
+            try (Connection conexao = abrirConexao()) {
+                try (Statement st = conexao.createStatement()) {
+                    st.execute("LISTEN " + CANAL);
+                }
+                conectado = true;
+
+                assinante.aoPerderEventos();
+
+                PGConnection pg = conexao.unwrap(PGConnection.class);
+                while (ativo) {
+                    PGNotification[] notificacoes = pg.getNotifications(ESPERA_NOTIFICACAO_MS);
+                    if (notificacoes == null || notificacoes.length == 0) {
+                        continue;
+                    }
+
+                    List<AlteracaoLivro> alteracoes = new ArrayList<>(notificacoes.length);
+                    for (PGNotification notificacao : notificacoes) {
+                        AlteracaoLivro alteracao = AlteracaoLivro.doPayload(notificacao.getParameter());
+                        if (alteracao != null) {
+                            alteracoes.add(alteracao);
+                        }
+                    }
+
+                    if (!alteracoes.isEmpty()) {
+                        assinante.aoAlterar(alteracoes);
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                conectado = false;
+                if (!ativo) {
+                    break;
+                }
+                System.err.println("Ouvinte de alterações desconectado: " + e.getMessage());
+                try {
+                    Thread.sleep(ESPERA_RECONEXAO_MS);
+                } catch (InterruptedException ie) {
+                    break;
+                }
+            }
+        }
+
+        conectado = false;
+    }
+
+    private Connection abrirConexao() throws SQLException {
+        Map<String, Object> propriedades = FabricaEntityManager.propriedadesPrimario();
+
+        Properties info = new Properties();
+        Object usuario = propriedades.get("javax.persistence.jdbc.user");
+        Object senha = propriedades.get("javax.persistence.jdbc.password");
+        if (usuario != null) {
+            info.setProperty("user", usuario.toString());
+        }
+        if (senha != null) {
+            info.setProperty("password", senha.toString());
+        }
+
+        return DriverManager.getConnection(String.valueOf(propriedades.get("javax.persistence.jdbc.url")), info);
+    }
+}
@@ -0,0 +1,360 @@
+package biblioteca.service;
+
+import biblioteca.model.Livro;
+import biblioteca.model.LivroResumo;
+import biblioteca.repository.IndiceIsbn;
+import biblioteca.repository.LivroRepository;
+import biblioteca.util.Isbn;
+import com.google.gson.JsonObject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cadastro de uma lista de ISBNs (ex.: a planilha de aquisições) pela OpenLibrary.
+ *
+ * O trabalho é uma linha de montagem: os ISBNs já cadastrados saem antes de qualquer ida à API
+ * (IndiceIsbn, confirmado por uma única consulta ao banco); os demais são consultados por
+ * CONCORRENCIA workers ao mesmo tempo, e cada livro encontrado entra numa fila de onde a thread
+ * de quem chama grava em lotes de até TAMANHO_LOTE. A gravação corre enquanto as consultas
+ * continuam, então o tempo total é o das consultas à API.
+ *
+ * Cada mudança de situação de um item é avisada ao Ouvinte, de qualquer thread.
+ */
+public class CadastroLoteService {
+    // Consultas simultâneas à API; mais que isso a OpenLibrary passa a recusar pedidos
+    private static final int CONCORRENCIA = Integer.getInteger("biblioteca.lote.concorrencia", 4);
+    private static final int TAMANHO_LOTE = 50;
+    // Sem livro novo nesse intervalo, grava o lote incompleto para a tela não ficar parada
+    private static final long ESPERA_LOTE_MS = 500;
+    // Nova tentativa após falha da API (ex.: limite de pedidos), com espera crescente
+    private static final int TENTATIVAS = 3;
+    private static final long ESPERA_TENTATIVA_MS = 1000;
+
+    public enum Situacao {
+        PENDENTE("Na fila"),
+        INVALIDO("ISBN inválido"),
+        REPETIDO("Repetido na lista"),
+        JA_CADASTRADO("Já cadastrado"),
+        BUSCANDO("Buscando..."),
+        GRAVANDO("Gravando..."),
+        CADASTRADO("Cadastrado"),
+        NAO_ENCONTRADO("Não encontrado"),
+        ERRO("Erro"),
+        CANCELADO("Cancelado");
+
+        private final String descricao;
+
+        Situacao(String descricao) {
+            this.descricao = descricao;
+        }
+
+        public String getDescricao() {
+            return descricao;
+        }
+
+        public boolean isConcluida() {
+            return this != PENDENTE && this != BUSCANDO && this != GRAVANDO;
+        }
+    }
+
+    /**
+     * Um ISBN da lista, na ordem em que foi informado.
+     */
+    public static class Item {
+        private final int indice;
+        private final String informado;
+        // ISBN sem separadores; null se inválido
+        private final String isbn;
+        private volatile Situacao situacao;
+        private volatile String detalhe;
+        private volatile LivroResumo cadastrado;
+        private Livro livro;
+
+        Item(int indice, String informado, String isbn, Situacao situacao) {
+            this.indice = indice;
+            this.informado = informado;
+            this.isbn = isbn;
+            this.situacao = situacao;
+        }
+
+        public int getIndice() {
+            return indice;
+        }
+
+        public String getInformado() {
+            return informado;
+        }
+
+        public Situacao getSituacao() {
+            return situacao;
+        }
+
+        /**
+         * Título do livro cadastrado ou motivo do erro; pode ser null.
+         */
+        public String getDetalhe() {
+            return detalhe;
+        }
+
+        /**
+         * Linha de tabela do livro, depois de CADASTRADO.
+         */
+        public LivroResumo getCadastrado() {
+            return cadastrado;
+        }
+    }
+
+    public interface Ouvinte {
+        void situacaoAlterada(Item item);
+
+        /**
+         * Chamado depois de cada lote gravado, com as linhas dos livros novos.
+         */
+        void livrosGravados(List<LivroResumo> livros);
+    }
+
+    private final LivroRepository repository;
+    private final LivroService livroService;
+    private volatile boolean cancelado;
+
+    public CadastroLoteService() {
+        this.repository = new LivroRepository();
+        this.livroService = new LivroService();
+    }
+
+    /**
+     * Separa a lista (ISBNs separados por espaço, quebra de linha, vírgula ou ponto e vírgula) e
+     * marca os inválidos e os repetidos, inclusive os que só diferem no formato (ISBN-10 e ISBN-13).
+     */
+    public static List<Item> lerLista(String texto) {
+        List<Item> itens = new ArrayList<>();
+        Map<Long, Item> primeiros = new HashMap<>();
+        for (String informado : texto.split("[\\s,;]+")) {
+            if (informado.isEmpty()) {
+                continue;
+            }
+            int indice = itens.size();
+            if (!Isbn.valido(informado)) {
+                itens.add(new Item(indice, informado, null, Situacao.INVALIDO));
+                continue;
+            }
+
+            Item item = new Item(indice, informado, Isbn.limpar(informado), Situacao.PENDENTE);
+            Item primeiro = primeiros.putIfAbsent(Isbn.canonizar(informado), item);
+            if (primeiro != null) {
+                item.situacao = Situacao.REPETIDO;
+                item.detalhe = "Igual ao item " + (primeiro.indice + 1);
+            }
+            itens.add(item);
+        }
+        return itens;
+    }
+
+    /**
+     * Interrompe o cadastro: consultas em andamento terminam, mas não são gravadas, e os itens
+     * ainda na fila ficam CANCELADO. Pode ser chamado de qualquer thread.
+     */
+    public void cancelar() {
+        cancelado = true;
+    }
+
+    /**
+     * Processa os itens PENDENTE da lista até o fim ou o cancelamento. Bloqueia a thread de quem
+     * chama, que é a que grava no banco.
+     */
+    public void cadastrar(List<Item> itens, Ouvinte ouvinte) {
+        List<Item> pendentes = descartarCadastrados(itens, ouvinte);
+
+        BlockingQueue<Item> paraGravar = new LinkedBlockingQueue<>();
+        AtomicInteger emConsulta = new AtomicInteger(pendentes.size());
+        AtomicInteger contadorThreads = new AtomicInteger();
+        ExecutorService consultas = Executors.newFixedThreadPool(CONCORRENCIA, tarefa -> {
+            Thread thread = new Thread(tarefa, "cadastro-lote-" + contadorThreads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            for (Item item : pendentes) {
+                consultas.execute(() -> {
+                    try {
+                        consultar(item, ouvinte);
+                        if (item.situacao == Situacao.GRAVANDO) {
+                            paraGravar.add(item);
+                        }
+                    } finally {
+                        emConsulta.decrementAndGet();
+                    }
+                });
+            }
+
+            List<Item> lote = new ArrayList<>(TAMANHO_LOTE);
+            while (emConsulta.get() > 0 || !paraGravar.isEmpty()) {
+                Item item = paraGravar.poll(ESPERA_LOTE_MS, TimeUnit.MILLISECONDS);
+                if (item != null) {
+                    lote.add(item);
+                    paraGravar.drainTo(lote, TAMANHO_LOTE - lote.size());
+                }
+                if (lote.size() >= TAMANHO_LOTE || (item == null && !lote.isEmpty())) {
+                    gravar(lote, ouvinte);
+                    lote.clear();
+                }
+            }
+            gravar(lote, ouvinte);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancelado = true;
+        } finally {
+            consultas.shutdownNow();
+        }
+    }
+
+    /**
+     * Marca JA_CADASTRADO os itens que o IndiceIsbn aponta e o banco confirma.
+     *
+     * @return os itens que ainda precisam ser consultados
+     */
+    private List<Item> descartarCadastrados(List<Item> itens, Ouvinte ouvinte) {
+        try {
+            IndiceIsbn.carregarSeNecessario();
+        } catch (RuntimeException e) {
+            // Sem o índice, talvezCadastrado responde sempre true e todos os ISBNs vão ao banco
+            System.err.println("Índice de ISBNs indisponível: " + e.getMessage());
+        }
+
+        List<Item> pendentes = new ArrayList<>();
+        Map<Long, Item> duvidosos = new HashMap<>();
+        for (Item item : itens) {
+            if (item.situacao != Situacao.PENDENTE) {
+                continue;
+            }
+            long canonico = Isbn.canonizar(item.isbn);
+            if (IndiceIsbn.talvezCadastrado(canonico)) {
+                duvidosos.put(canonico, item);
+            } else {
+                pendentes.add(item);
+            }
+        }
+
+        Set<Long> cadastrados = repository.filtrarIsbnsCadastrados(duvidosos.keySet());
+        for (Map.Entry<Long, Item> duvidoso : duvidosos.entrySet()) {
+            if (cadastrados.contains(duvidoso.getKey())) {
+                alterar(duvidoso.getValue(), Situacao.JA_CADASTRADO, null, ouvinte);
+            } else {
+                pendentes.add(duvidoso.getValue());
+            }
+        }
+        pendentes.sort((a, b) -> Integer.compare(a.indice, b.indice));
+        return pendentes;
+    }
+
+    /**
+     * Roda num worker: consulta a API e deixa o item GRAVANDO, com o livro pronto, ou concluído.
+     */
+    private void consultar(Item item, Ouvinte ouvinte) {
+        if (cancelado) {
+            alterar(item, Situacao.CANCELADO, null, ouvinte);
+            return;
+        }
+        alterar(item, Situacao.BUSCANDO, null, ouvinte);
+
+        for (int tentativa = 1; ; tentativa++) {
+            try {
+                JsonObject dados = OpenLibraryService.buscarInformacoesPorIsbn(item.isbn);
+                Livro livro = OpenLibraryService.converterSemEdicoes(dados, item.isbn);
+                livro.setLivrosSemelhantes(OpenLibraryService.contarEdicoes(item.isbn));
+                item.livro = livro;
+                alterar(item, cancelado ? Situacao.CANCELADO : Situacao.GRAVANDO, livro.getTitulo(), ouvinte);
+                return;
+            } catch (RuntimeException e) {
+                Throwable causa = e.getCause() != null ? e.getCause() : e;
+                String mensagem = causa.getMessage();
+                if (mensagem != null && mensagem.startsWith("Nenhum livro encontrado")) {
+                    alterar(item, Situacao.NAO_ENCONTRADO, null, ouvinte);
+                    return;
+                }
+                if (tentativa == TENTATIVAS || cancelado) {
+                    alterar(item, cancelado ? Situacao.CANCELADO : Situacao.ERRO, mensagem, ouvinte);
+                    return;
+                }
+            }
+
+            try {
+                Thread.sleep(ESPERA_TENTATIVA_MS * tentativa);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                alterar(item, Situacao.CANCELADO, null, ouvinte);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Grava o lote numa transação. Se o lote falhar (ex.: um ISBN cadastrado por outro usuário
+     * nesse meio tempo), refaz livro a livro para marcar só o item com problema.
+     */
+    private void gravar(List<Item> lote, Ouvinte ouvinte) {
+        if (lote.isEmpty()) {
+            return;
+        }
+        if (cancelado) {
+            for (Item item : lote) {
+                alterar(item, Situacao.CANCELADO, null, ouvinte);
+            }
+            return;
+        }
+
+        List<Livro> livros = new ArrayList<>(lote.size());
+        for (Item item : lote) {
+            livros.add(item.livro);
+        }
+
+        List<LivroResumo> gravados = new ArrayList<>(lote.size());
+        try {
+            livroService.salvarLivros(livros);
+            for (Item item : lote) {
+                gravados.add(registrarCadastrado(item, LivroResumo.de(item.livro), ouvinte));
+            }
+        } catch (Exception e) {
+            for (Item item : lote) {
+                try {
+                    gravados.add(registrarCadastrado(item, livroService.salvarLivro(item.livro), ouvinte));
+                } catch (Exception ex) {
+                    if (ex.getMessage() != null && ex.getMessage().contains("ISBN já existe")) {
+                        alterar(item, Situacao.JA_CADASTRADO, null, ouvinte);
+                    } else {
+                        alterar(item, Situacao.ERRO, ex.getMessage(), ouvinte);
+                    }
+                }
+            }
+        }
+
+        if (!gravados.isEmpty()) {
+            ouvinte.livrosGravados(gravados);
+        }
+    }
+
+    private LivroResumo registrarCadastrado(Item item, LivroResumo resumo, Ouvinte ouvinte) {
+        item.cadastrado = resumo;
+        // O livro já está no banco; não precisa mais ficar em memória
+        item.livro = null;
+        alterar(item, Situacao.CADASTRADO, resumo.getTitulo(), ouvinte);
+        return resumo;
+    }
+
+    private static void alterar(Item item, Situacao situacao, String detalhe, Ouvinte ouvinte) {
+        item.detalhe = detalhe;
+        item.situacao = situacao;
+        ouvinte.situacaoAlterada(item);
+    }
+}
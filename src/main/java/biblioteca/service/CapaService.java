@@ -0,0 +1,147 @@
+package biblioteca.service;
+
+import biblioteca.util.Isbn;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.core.Response;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Capas dos livros (covers.openlibrary.org), guardadas em disco para cada uma ser baixada uma vez.
+ *
+ * O armazenamento é endereçado pelo conteúdo: a imagem fica em objetos/ab/abcd... (SHA-256 dos
+ * bytes) e, para cada ISBN, o arquivo isbn/[ISBN-13] guarda o hash da sua capa. Imagens iguais
+ * ocupam o disco uma vez só, e como tudo é gravado num temporário e movido de uma vez, um arquivo
+ * pela metade nunca é lido. ISBN sem capa fica registrado com o arquivo vazio e só volta a ser
+ * consultado depois de VALIDADE_SEM_CAPA.
+ *
+ * Local: -Dbiblioteca.capas.diretorio (padrão ~/.biblioteca/capas). Endereço das capas:
+ * -Dbiblioteca.capas.url (padrão https://covers.openlibrary.org/b/isbn/, ex.: um servidor local
+ * nos testes); vazio desliga as capas. As duas são lidas a cada uso.
+ */
+public class CapaService {
+    static final Duration VALIDADE_SEM_CAPA = Duration.ofDays(7);
+    private static final Client CLIENT = ClientBuilder.newBuilder()
+            .connectTimeout(5, TimeUnit.SECONDS)
+            .readTimeout(15, TimeUnit.SECONDS)
+            .build();
+
+    private CapaService() {}
+
+    private static String urlBase() {
+        return System.getProperty("biblioteca.capas.url", "https://covers.openlibrary.org/b/isbn/");
+    }
+
+    private static Path diretorio() {
+        String configurado = System.getProperty("biblioteca.capas.diretorio");
+        if (configurado == null || configurado.isEmpty()) {
+            return Paths.get(System.getProperty("user.home"), ".biblioteca", "capas");
+        }
+        return Paths.get(configurado);
+    }
+
+    public static boolean isAtivo() {
+        return !urlBase().isEmpty();
+    }
+
+    /**
+     * Bytes da capa (JPEG) do ISBN-13 canônico, do disco ou, se ainda não baixada, da rede.
+     * Bloqueia durante o download; não chamar na thread do Swing.
+     *
+     * @return null se o livro não tem capa
+     */
+    public static byte[] obterImagem(long isbn) throws IOException {
+        Path referencia = diretorio().resolve("isbn").resolve(Isbn.formatar(isbn));
+        if (Files.exists(referencia)) {
+            String hash = new String(Files.readAllBytes(referencia), StandardCharsets.US_ASCII).trim();
+            if (hash.isEmpty()) {
+                Instant gravado = Files.getLastModifiedTime(referencia).toInstant();
+                if (gravado.plus(VALIDADE_SEM_CAPA).isAfter(Instant.now())) {
+                    return null;
+                }
+            } else {
+                Path objeto = caminhoObjeto(hash);
+                // O objeto pode ter sido apagado à mão; nesse caso baixa de novo
+                if (Files.exists(objeto)) {
+                    return Files.readAllBytes(objeto);
+                }
+            }
+        }
+
+        byte[] imagem = baixar(isbn);
+        String hash = "";
+        if (imagem != null) {
+            hash = calcularHash(imagem);
+            Path objeto = caminhoObjeto(hash);
+            if (!Files.exists(objeto)) {
+                gravar(objeto, imagem);
+            }
+        }
+        gravar(referencia, hash.getBytes(StandardCharsets.US_ASCII));
+        return imagem;
+    }
+
+    /**
+     * Tamanho M (cerca de 180 px de altura). Com default=false, ISBN sem capa responde 404 em vez
+     * de uma imagem em branco.
+     */
+    private static byte[] baixar(long isbn) throws IOException {
+        Response response = CLIENT.target(urlBase() + Isbn.formatar(isbn) + "-M.jpg")
+                .queryParam("default", "false")
+                .request()
+                .get();
+        try {
+            if (response.getStatus() == 404) {
+                return null;
+            }
+            if (response.getStatus() != 200) {
+                throw new IOException("Resposta não esperada: " + response.getStatus());
+            }
+            return response.readEntity(byte[].class);
+        } finally {
+            response.close();
+        }
+    }
+
+    private static Path caminhoObjeto(String hash) {
+        return diretorio().resolve("objetos").resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    private static String calcularHash(byte[] conteudo) {
+        try {
+            StringBuilder hash = new StringBuilder(64);
+            for (byte b : MessageDigest.getInstance("SHA-256").digest(conteudo)) {
+                hash.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hash.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+
+    /**
+     * Grava num temporário da mesma pasta e troca pelo destino de uma vez; duas threads gravando a
+     * mesma capa escrevem o mesmo conteúdo, então a última troca vale.
+     */
+    private static void gravar(Path destino, byte[] conteudo) throws IOException {
+        Files.createDirectories(destino.getParent());
+        Path temporario = Files.createTempFile(destino.getParent(), "capa", ".tmp");
+        try {
+            Files.write(temporario, conteudo);
+            Files.move(temporario, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporario);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package biblioteca.service;
+
+import biblioteca.model.RegistroAlteracaoLivro;
+import biblioteca.repository.LivroRepository;
+import biblioteca.util.Isbn;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.opencsv.CSVWriter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * Exportação incremental do catálogo: entrega só as alterações (inclusões, alterações e exclusões)
+ * com seq maior que o informado, lidas do registro livros_alteracoes (migração V011).
+ *
+ * Quem sincroniza guarda o seq devolvido e o informa na próxima execução; cada exportação custa
+ * proporcionalmente ao que mudou, não ao tamanho do catálogo. Para a carga inicial, use desde 0.
+ *
+ * Uso em linha de comando:
+ *   java -cp ... biblioteca.service.ExportacaoAlteracoesService &lt;desdeSeq&gt; &lt;csv|ndjson&gt; [arquivo]
+ * Sem arquivo, escreve na saída padrão. O último seq exportado sai na saída de erro.
+ */
+public class ExportacaoAlteracoesService {
+    public enum Formato {
+        CSV, NDJSON
+    }
+
+    private static final String[] CABECALHO_CSV = {
+            "seq", "operacao", "id", "alterado_em",
+            "titulo", "autores", "isbn", "editora", "data_publicacao", "livros_semelhantes", "versao"
+    };
+
+    private final LivroRepository repository;
+    private final Gson gson = new GsonBuilder().serializeNulls().create();
+
+    public ExportacaoAlteracoesService() {
+        this.repository = new LivroRepository();
+    }
+
+    /**
+     * Escreve as alterações posteriores a desdeSeq, uma por linha, à medida que chegam do banco.
+     *
+     * @return o seq a informar na próxima exportação
+     */
+    public long exportar(long desdeSeq, Formato formato, Writer saida) throws IOException {
+        try {
+            if (formato == Formato.CSV) {
+                CSVWriter csv = new CSVWriter(saida);
+                csv.writeNext(CABECALHO_CSV, false);
+                long ultimo = repository.percorrerAlteracoes(desdeSeq, registro -> csv.writeNext(linhaCsv(registro), false));
+                csv.flush();
+                return ultimo;
+            }
+
+            long ultimo = repository.percorrerAlteracoes(desdeSeq, registro -> {
+                try {
+                    saida.write(gson.toJson(objetoJson(registro)));
+                    saida.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            saida.flush();
+            return ultimo;
+        } catch (RuntimeException e) {
+            // Erros de escrita atravessam o repositório embrulhados; devolvidos como IOException
+            for (Throwable causa = e; causa != null; causa = causa.getCause()) {
+                if (causa instanceof UncheckedIOException) {
+                    throw ((UncheckedIOException) causa).getCause();
+                }
+            }
+            throw e;
+        }
+    }
+
+    private JsonObject objetoJson(RegistroAlteracaoLivro registro) {
+        JsonObject objeto = new JsonObject();
+        objeto.addProperty("seq", registro.getSeq());
+        objeto.addProperty("operacao", nomeOperacao(registro));
+        objeto.addProperty("id", registro.getLivroId());
+        objeto.addProperty("alterado_em", registro.getAlteradoEm().toString());
+        objeto.add("livro", registro.getDadosJson() != null ? JsonParser.parseString(registro.getDadosJson()) : null);
+        return objeto;
+    }
+
+    private String[] linhaCsv(RegistroAlteracaoLivro registro) {
+        JsonObject dados = registro.getDadosJson() != null
+                ? JsonParser.parseString(registro.getDadosJson()).getAsJsonObject() : new JsonObject();
+
+        JsonElement isbn = dados.get("isbn");
+        return new String[]{
+                String.valueOf(registro.getSeq()),
+                nomeOperacao(registro),
+                String.valueOf(registro.getLivroId()),
+                registro.getAlteradoEm().toString(),
+                texto(dados, "titulo"),
+                texto(dados, "autores"),
+                isbn != null && !isbn.isJsonNull() ? Isbn.formatar(isbn.getAsLong()) : "",
+                texto(dados, "editora"),
+                texto(dados, "data_publicacao"),
+                texto(dados, "livros_semelhantes"),
+                texto(dados, "versao")
+        };
+    }
+
+    private static String nomeOperacao(RegistroAlteracaoLivro registro) {
+        switch (registro.getTipo()) {
+            case INSERCAO:
+                return "INSERT";
+            case ATUALIZACAO:
+                return "UPDATE";
+            default:
+                return "DELETE";
+        }
+    }
+
+    private static String texto(JsonObject dados, String campo) {
+        JsonElement valor = dados.get(campo);
+        return valor == null || valor.isJsonNull() ? "" : valor.getAsString();
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Uso: ExportacaoAlteracoesService <desdeSeq> <csv|ndjson> [arquivo]");
+            System.exit(2);
+        }
+
+        int codigoSaida = 0;
+        try {
+            long desdeSeq = Long.parseLong(args[0]);
+            Formato formato = Formato.valueOf(args[1].toUpperCase());
+
+            long ultimo;
+            try (Writer saida = args.length > 2
+                    ? Files.newBufferedWriter(Paths.get(args[2]), StandardCharsets.UTF_8)
+                    : new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))) {
+                ultimo = new ExportacaoAlteracoesService().exportar(desdeSeq, formato, saida);
+            }
+            System.err.println("Último seq exportado: " + ultimo);
+        } catch (Exception e) {
+            System.err.println("Erro na exportação: " + e.getMessage());
+            codigoSaida = 1;
+        } finally {
+            LivroRepository.closeEntityManagerFactory();
+        }
+        System.exit(codigoSaida);
+    }
+}
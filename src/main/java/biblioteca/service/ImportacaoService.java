@@ -2,8 +2,10 @@ package biblioteca.service;
 
 
 import biblioteca.model.Livro;
+import biblioteca.repository.IndiceIsbn;
 import biblioteca.repository.LivroRepository;
 import biblioteca.util.FormatacaoDatas;
+import biblioteca.util.Isbn;
 import com.opencsv.CSVReader;
 import com.opencsv.CSVReaderBuilder;
 import com.opencsv.exceptions.CsvValidationException;
@@ -17,6 +19,9 @@ import java.util.*;
  * Serviço responsável pela importação de dados de livros através de arquivo de texto CSV.
  */
 public class ImportacaoService {
+    // Quantidade de livros novos acumulados antes de cada gravação em lote
+    private static final int TAMANHO_LOTE_INSERCAO = 500;
+
     private final LivroRepository repository;
     private final LivroService livroService;
 
@@ -146,16 +151,19 @@ public class ImportacaoService {
                                  Map<String, List<Integer>> isbnLinhasMap, List<Integer> linhasSemIsbn,
                                  ImportacaoResultado resultado) {
         if (idxIsbn >= 0 && idxIsbn < linha.length && !linha[idxIsbn].trim().isEmpty()) {
-            String isbn = linha[idxIsbn].trim();
+            String isbnInformado = linha[idxIsbn].trim();
 
-            // Validação do formato do ISBN
-            if (!isbnValido(isbn)) {
+            // Validação do formato e do dígito verificador do ISBN
+            if (!Isbn.valido(isbnInformado)) {
                 resultado.registrarErro("Linha " + numeroLinha +
-                        ": ISBN '" + isbn + "' inválido. ISBN deve ter 10 ou 13 dígitos.");
+                        ": ISBN '" + isbnInformado + "' inválido. ISBN deve ter 10 ou 13 dígitos e dígito verificador correto.");
                 linhasSemIsbn.add(numeroLinha);
                 return null;
             }
 
+            // Forma canônica (ISBN-13): o mesmo livro em formatos diferentes vira a mesma chave
+            String isbn = Isbn.formatar(Isbn.canonizar(isbnInformado));
+
             isbnLinhasMap.computeIfAbsent(isbn, k -> new ArrayList<>()).add(numeroLinha);
             return isbn;
         } else {
@@ -234,14 +242,24 @@ public class ImportacaoService {
     }
 
     /**
-     * Busca livros existentes no banco de dados.
+     * Busca livros existentes no banco de dados. Só consulta o banco para os ISBNs que o
+     * IndiceIsbn não descarta; num arquivo só de livros novos, nenhuma consulta é feita.
+     * Os encontrados podem ser atualizados, então vêm do primário (buscarPorIsbnParaEdicao).
      */
     private Map<String, Livro> buscarLivrosExistentes(List<LivroImportacao> livrosParaProcessar) {
+        try {
+            IndiceIsbn.carregarSeNecessario();
+        } catch (RuntimeException e) {
+            // Sem o índice, talvezCadastrado responde sempre true e todos os ISBNs são consultados
+            System.err.println("Índice de ISBNs indisponível: " + e.getMessage());
+        }
+
         Map<String, Livro> livrosExistentes = new HashMap<>();
         for (LivroImportacao livroImportacao : livrosParaProcessar) {
             String isbn = livroImportacao.livro.getIsbn();
-            if (isbn != null && !isbn.isEmpty() && !livrosExistentes.containsKey(isbn)) {
-                Livro existente = repository.buscarPorIsbn(isbn);
+            if (isbn != null && !isbn.isEmpty() && !livrosExistentes.containsKey(isbn)
+                    && IndiceIsbn.talvezCadastrado(livroImportacao.livro.getIsbnNumerico())) {
+                Livro existente = repository.buscarPorIsbnParaEdicao(livroImportacao.livro.getIsbnNumerico());
                 if (existente != null) {
                     livrosExistentes.put(isbn, existente);
                 }
@@ -257,12 +275,14 @@ public class ImportacaoService {
                                  Map<String, Livro> livrosExistentes, ImportacaoResultado resultado) {
         Set<String> isbnsProcessados = new HashSet<>();
         Set<String> tituloAutorProcessados = new HashSet<>();
+        List<LivroImportacao> insercoesPendentes = new ArrayList<>();
 
         for (LivroImportacao livroImportacao : livrosParaProcessar) {
             Livro livro = livroImportacao.livro;
             String isbn = livro.getIsbn();
             int numeroLinha = livroImportacao.numeroLinha;
-            String tituloAutorChave = livro.getTitulo() + "|" + livro.getAutores();
+            // Sem diferenciar maiúsculas, como ux_livros_titulo_autores
+            String tituloAutorChave = (livro.getTitulo() + "|" + livro.getAutores()).toLowerCase(Locale.ROOT);
 
             try {
                 // Caso 1: Verificação de título e autor duplicados
@@ -274,25 +294,14 @@ public class ImportacaoService {
                     continue;
                 }
 
-                // Caso 2: Verificar se já existe um livro com mesmo título e autor
-                Livro livroExistenteTituloAutor = verificarLivroPorTituloAutor(livro);
-                if (livroExistenteTituloAutor != null) {
-                    resultado.registrarIgnorado();
-                    resultado.registrarAviso("Linha " + numeroLinha +
-                            ": Já existe um livro com mesmo título e autor no banco de dados: '" +
-                            livro.getTitulo() + "' por '" + livro.getAutores() + "'. Registro ignorado.");
-                    continue;
-                }
-
-                // Caso 3: Livro sem ISBN
+                // Caso 2: Livro sem ISBN
                 if (isbn == null || isbn.isEmpty()) {
-                    livroService.salvarLivro(livro);
-                    resultado.registrarInserido();
+                    adicionarInsercao(livroImportacao, insercoesPendentes, resultado);
                     tituloAutorProcessados.add(tituloAutorChave);
                     continue;
                 }
 
-                // Caso 4: ISBN já processado nesta importação - pula para evitar duplicação
+                // Caso 3: ISBN já processado nesta importação - pula para evitar duplicação
                 if (isbnsProcessados.contains(isbn)) {
                     resultado.registrarIgnorado();
                     resultado.registrarAviso("Linha " + numeroLinha +
@@ -304,49 +313,77 @@ public class ImportacaoService {
                 isbnsProcessados.add(isbn);
                 tituloAutorProcessados.add(tituloAutorChave);
 
-                // Caso 5: ISBN existe no banco de dados - potencial atualização
+                // Caso 4: ISBN existe no banco de dados - potencial atualização
                 if (livrosExistentes.containsKey(isbn)) {
                     processarLivroExistente(livro, livrosExistentes.get(isbn), numeroLinha, resultado);
                 }
-                // Caso 6: ISBN novo - inserção
+                // Caso 5: ISBN novo - inserção
                 else {
-                    livroService.salvarLivro(livro);
-                    resultado.registrarInserido();
+                    adicionarInsercao(livroImportacao, insercoesPendentes, resultado);
                 }
             } catch (Exception e) {
                 resultado.registrarErro("Linha " + numeroLinha + ": " + e.getMessage());
             }
         }
+
+        salvarInsercoesPendentes(insercoesPendentes, resultado);
+    }
+
+    private void adicionarInsercao(LivroImportacao livroImportacao, List<LivroImportacao> insercoesPendentes,
+                                   ImportacaoResultado resultado) {
+        insercoesPendentes.add(livroImportacao);
+        if (insercoesPendentes.size() >= TAMANHO_LOTE_INSERCAO) {
+            salvarInsercoesPendentes(insercoesPendentes, resultado);
+        }
     }
 
     /**
-     * Verifica se já existe um livro com o mesmo título e autor no banco de dados.
+     * Grava os livros novos acumulados em um único lote. Título e autor já cadastrados não são
+     * consultados antes: quem barra é o ux_livros_titulo_autores, sem diferenciar maiúsculas. Se
+     * o lote falhar, refaz livro a livro para registrar o problema na linha correta do CSV.
      */
-    private Livro verificarLivroPorTituloAutor(Livro livro) {
-        List<Livro> candidatos = repository.buscarPorCampo("titulo", livro.getTitulo());
-
-        for (Livro candidato : candidatos) {
-            if (tituloAutorIguais(candidato, livro)) {
-                return candidato;
-            }
+    private void salvarInsercoesPendentes(List<LivroImportacao> insercoesPendentes, ImportacaoResultado resultado) {
+        if (insercoesPendentes.isEmpty()) {
+            return;
         }
 
-        return null;
-    }
-
-    private boolean tituloAutorIguais(Livro livro1, Livro livro2) {
-        return Objects.equals(livro1.getTitulo(), livro2.getTitulo()) &&
-                Objects.equals(livro1.getAutores(), livro2.getAutores());
-    }
+        List<Livro> livros = new ArrayList<>(insercoesPendentes.size());
+        for (LivroImportacao livroImportacao : insercoesPendentes) {
+            livros.add(livroImportacao.livro);
+        }
 
-    private boolean isbnValido(String isbn) {
-        if (isbn == null || isbn.trim().isEmpty()) {
-            return false;
+        try {
+            livroService.salvarLivros(livros);
+            for (Livro livro : livros) {
+                resultado.registrarInserido(livro.getId());
+            }
+        } catch (Exception e) {
+            for (LivroImportacao livroImportacao : insercoesPendentes) {
+                try {
+                    livroService.salvarLivro(livroImportacao.livro);
+                    resultado.registrarInserido(livroImportacao.livro.getId());
+                } catch (Exception ex) {
+                    if (isTituloAutorDuplicado(ex)) {
+                        Livro livro = livroImportacao.livro;
+                        resultado.registrarIgnorado();
+                        resultado.registrarAviso("Linha " + livroImportacao.numeroLinha +
+                                ": Já existe um livro com mesmo título e autor no banco de dados: '" +
+                                livro.getTitulo() + "' por '" + livro.getAutores() + "'. Registro ignorado.");
+                    } else {
+                        resultado.registrarErro("Linha " + livroImportacao.numeroLinha + ": " + ex.getMessage());
+                    }
+                }
+            }
         }
 
-        String isbnLimpo = isbn.replaceAll("[-\\s]", "");
+        insercoesPendentes.clear();
+    }
 
-        return isbnLimpo.length() == 10 || isbnLimpo.length() == 13;
+    /**
+     * Violação do ux_livros_titulo_autores, já traduzida pelo LivroRepository.
+     */
+    private static boolean isTituloAutorDuplicado(Exception e) {
+        return e.getMessage() != null && e.getMessage().contains("mesmo título e autor");
     }
 
     private boolean contemApenasSímbolos(String texto) {
@@ -405,18 +442,6 @@ public class ImportacaoService {
         boolean autoresDiferentes = !livroExistente.getAutores().equals(livroNovo.getAutores());
 
         if (titulosDiferentes || autoresDiferentes) {
-            // Verifica se a combinação título/autor já existe em outro livro
-            Livro existenteComMesmoTituloAutor = verificarLivroPorTituloAutor(livroNovo);
-            if (existenteComMesmoTituloAutor != null &&
-                    !Objects.equals(existenteComMesmoTituloAutor.getIsbn(), livroNovo.getIsbn())) {
-                resultado.registrarIgnorado();
-                resultado.registrarAviso("Linha " + numeroLinha +
-                        ": A atualização causaria duplicação de título e autor com livro existente. " +
-                        "Título: '" + livroNovo.getTitulo() + "', Autor: '" + livroNovo.getAutores() + "'. " +
-                        "Registro ignorado.");
-                return;
-            }
-
             resultado.registrarAviso("Linha " + numeroLinha +
                     ": O livro com ISBN '" + livroNovo.getIsbn() + "' tem título/autor diferente do existente no banco. " +
                     "Existente: '" + livroExistente.getTitulo() + "' por '" + livroExistente.getAutores() + "'. " +
@@ -425,8 +450,21 @@ public class ImportacaoService {
         }
 
         atualizarLivroExistente(livroExistente, livroNovo);
-        livroService.salvarLivro(livroExistente);
-        resultado.registrarAtualizado();
+        try {
+            livroService.salvarLivro(livroExistente);
+        } catch (RuntimeException e) {
+            // O título/autor novo já pertence a outro livro (ux_livros_titulo_autores)
+            if (!isTituloAutorDuplicado(e)) {
+                throw e;
+            }
+            resultado.registrarIgnorado();
+            resultado.registrarAviso("Linha " + numeroLinha +
+                    ": A atualização causaria duplicação de título e autor com livro existente. " +
+                    "Título: '" + livroNovo.getTitulo() + "', Autor: '" + livroNovo.getAutores() + "'. " +
+                    "Registro ignorado.");
+            return;
+        }
+        resultado.registrarAtualizado(livroExistente.getId());
     }
 
     private void atualizarLivroExistente(Livro existente, Livro novo) {
@@ -493,13 +531,17 @@ public class ImportacaoService {
         public int avisos = 0;
         private final List<String> mensagensErro = new ArrayList<>();
         private final List<String> mensagensAviso = new ArrayList<>();
+        // Livros inseridos ou atualizados, para a tela principal atualizar só essas linhas
+        private final List<Long> idsGravados = new ArrayList<>();
 
-        public void registrarInserido() {
+        public void registrarInserido(Long id) {
             inseridos++;
+            idsGravados.add(id);
         }
 
-        public void registrarAtualizado() {
+        public void registrarAtualizado(Long id) {
             atualizados++;
+            idsGravados.add(id);
         }
 
         public void registrarIgnorado() {
@@ -524,6 +566,10 @@ public class ImportacaoService {
             return mensagensAviso;
         }
 
+        public List<Long> getIdsGravados() {
+            return idsGravados;
+        }
+
         @Override
         public String toString() {
             StringBuilder sb = new StringBuilder();
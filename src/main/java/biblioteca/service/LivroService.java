@@ -1,10 +1,14 @@
 package biblioteca.service;
 
 
+import biblioteca.model.EstatisticaCatalogo;
 import biblioteca.model.Livro;
+import biblioteca.model.LivroResumo;
 import biblioteca.repository.LivroRepository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public class LivroService {
     private LivroRepository repository;
@@ -13,8 +17,16 @@ public class LivroService {
         this.repository = new LivroRepository();
     }
 
-    public void salvarLivro(Livro livro) throws RuntimeException {
+    /**
+     * @return a linha de tabela do livro gravado, para a tela atualizar só ela
+     */
+    public LivroResumo salvarLivro(Livro livro) throws RuntimeException {
         repository.salvar(livro);
+        return LivroResumo.de(livro);
+    }
+
+    public void salvarLivros(List<Livro> livros) throws RuntimeException {
+        repository.salvarTodos(livros);
     }
 
     public Livro buscarPorId(Long id) {
@@ -29,11 +41,52 @@ public class LivroService {
         return repository.buscarPorCampo(campo, valor);
     }
 
+    public List<LivroResumo> buscarResumosPorCampo(String campo, String valor) {
+        return repository.buscarResumosPorCampo(campo, valor);
+    }
+
+    public List<LivroResumo> buscarPorAutor(String nomeAutor) {
+        return repository.buscarResumosPorAutor(nomeAutor);
+    }
+
+    public List<String> sugerirAutores(String prefixo, int limite) {
+        return repository.sugerirAutores(prefixo, limite);
+    }
+
     public List<Livro> listarTodos() {
         return repository.listarTodos();
     }
 
+    public List<LivroResumo> listarResumos() {
+        return repository.listarResumos();
+    }
+
+    public List<LivroResumo> buscarResumosPorIds(Collection<Long> ids) {
+        return repository.buscarResumosPorIds(ids);
+    }
+
+    public List<EstatisticaCatalogo> listarEstatisticas(EstatisticaCatalogo.Dimensao dimensao, int limite) {
+        return repository.listarEstatisticas(dimensao, limite);
+    }
+
+    public long contarLivros() {
+        return repository.contarLivros();
+    }
+
     public void excluir(Long id) {
         repository.excluir(id);
     }
+
+    public int excluirTodos(Collection<Long> ids) {
+        return repository.excluirTodos(ids);
+    }
+
+    /**
+     * @param isbnsPorId livros a alterar, com o ISBN de cada um (null: sem ISBN)
+     * @return as linhas de tabela dos livros alterados, relidas do banco
+     */
+    public List<LivroResumo> atualizarEditora(Map<Long, Long> isbnsPorId, String editora) {
+        repository.atualizarCampoEmLote(isbnsPorId, "editora", editora);
+        return repository.buscarResumosPorIds(isbnsPorId);
+    }
 }
\ No newline at end of file
@@ -16,7 +16,10 @@ import java.time.LocalDate;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 
 
 /**
@@ -24,7 +27,11 @@ import java.util.concurrent.TimeUnit;
  */
 public class OpenLibraryService {
     private static final String BASE_URL = "https://openlibrary.org/api/books?bibkeys=ISBN:";
-    private static final Client CLIENT = ClientBuilder.newClient();
+    // Com prazo: uma requisição presa ocuparia uma thread do EXECUTOR indefinidamente
+    private static final Client CLIENT = ClientBuilder.newBuilder()
+            .connectTimeout(5, TimeUnit.SECONDS)
+            .readTimeout(15, TimeUnit.SECONDS)
+            .build();
     // Executor para processamento assíncrono
     private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(4);
 
@@ -52,7 +59,83 @@ public class OpenLibraryService {
         }
     }
 
+    /**
+     * Consulta no executor do serviço que pode ser cancelada de verdade: se ainda estiver na fila,
+     * não chega a rodar; se estiver rodando, a thread é interrompida. Cancelar o resultado
+     * (CompletableFuture) só descartaria o valor, com a requisição seguindo no executor.
+     */
+    public static final class ConsultaCancelavel<T> {
+        private final CompletableFuture<T> resultado = new CompletableFuture<>();
+        // Concluída quando a tarefa sai do executor (terminou ou foi cancelada antes de começar)
+        private final CompletableFuture<Void> encerrada = new CompletableFuture<>();
+        private final AtomicBoolean iniciada = new AtomicBoolean();
+        private final Future<?> execucao;
+
+        private ConsultaCancelavel(Supplier<T> consulta) {
+            execucao = EXECUTOR.submit(() -> {
+                if (!iniciada.compareAndSet(false, true)) {
+                    return;
+                }
+                try {
+                    resultado.complete(consulta.get());
+                } catch (Throwable e) {
+                    resultado.completeExceptionally(e);
+                } finally {
+                    encerrada.complete(null);
+                }
+            });
+        }
+
+        public CompletableFuture<T> getResultado() {
+            return resultado;
+        }
+
+        public CompletableFuture<Void> getEncerrada() {
+            return encerrada;
+        }
+
+        public void cancelar() {
+            resultado.cancel(false);
+            if (iniciada.compareAndSet(false, true)) {
+                encerrada.complete(null);
+            }
+            execucao.cancel(true);
+        }
+    }
+
+    /**
+     * Mesma consulta de buscarInformacoesPorIsbn, no executor do serviço.
+     */
+    public static CompletableFuture<JsonObject> buscarInformacoesAsync(String isbn) {
+        return consultarInformacoes(isbn).getResultado();
+    }
+
+    public static ConsultaCancelavel<JsonObject> consultarInformacoes(String isbn) {
+        return new ConsultaCancelavel<>(() -> buscarInformacoesPorIsbn(isbn));
+    }
+
+    /**
+     * Converte os dados e espera até 3 s pelo número de edições (0 se não vier a tempo).
+     */
     public static Livro converterParaLivro(JsonObject dadosLivro, String isbn) {
+        Livro livro = converterSemEdicoes(dadosLivro, isbn);
+
+        try {
+            int edicoes = buscarEdicoesAsync(isbn).get(3, TimeUnit.SECONDS);
+            livro.setLivrosSemelhantes(edicoes);
+        } catch (Exception e) {
+            System.err.println("Tempo esgotado ao buscar edições: " + e.getMessage());
+            livro.setLivrosSemelhantes(0);
+        }
+
+        return livro;
+    }
+
+    /**
+     * Só os campos da resposta de buscarInformacoesPorIsbn, sem esperar pelo número de edições
+     * (ver buscarEdicoesAsync).
+     */
+    public static Livro converterSemEdicoes(JsonObject dadosLivro, String isbn) {
         Livro livro = new Livro();
         livro.setIsbn(isbn);
 
@@ -94,56 +177,62 @@ public class OpenLibraryService {
             }
         }
 
-        /**
-         * Busca do número de edições para um livro a partir do ISBN.
-         *
-         * O processo segue a seguinte lógica:
-         * 1. Realiza uma consulta à API OpenLibrary com o ISBN do livro para obter os dados básicos (feito anteriormente)
-         * 2. Extrai o work_id(works/key) (identificador do livro) da resposta JSON inicial(resposta do endpoint de ISBN)
-         * 3. Utiliza o work_id para fazer uma segunda consulta à API de edições:
-         *    https://openlibrary.org/works/[work_id]/editions.json
-         * 4. Obtém e retorna o número de edições associadas a esta obra("size": [nº de edições])
-         */
-        CompletableFuture<Integer> edicoesFuture = CompletableFuture.supplyAsync(() -> {
-            try {
-                // Consulta para obter work_id(works/key)
-                Response response = CLIENT.target("https://openlibrary.org/isbn/" + isbn + ".json")
-                        .request(MediaType.APPLICATION_JSON)
-                        .get();
+        return livro;
+    }
 
-                if (response.getStatus() != 200) {
-                    return 0;
-                }
+    /**
+     * Busca do número de edições para um livro a partir do ISBN.
+     *
+     * O processo segue a seguinte lógica:
+     * 1. Realiza uma consulta à API OpenLibrary com o ISBN do livro para obter o work_id(works/key)
+     *    (identificador da obra)
+     * 2. Utiliza o work_id para fazer uma segunda consulta à API de edições:
+     *    https://openlibrary.org/works/[work_id]/editions.json
+     * 3. Obtém e retorna o número de edições associadas a esta obra("size": [nº de edições])
+     *
+     * Independe da consulta de dados do ISBN, então pode correr em paralelo com ela. Erros resultam em 0.
+     */
+    public static CompletableFuture<Integer> buscarEdicoesAsync(String isbn) {
+        return consultarEdicoes(isbn).getResultado();
+    }
 
-                String jsonData = response.readEntity(String.class);
-                JsonObject isbnData = JsonParser.parseString(jsonData).getAsJsonObject();
+    public static ConsultaCancelavel<Integer> consultarEdicoes(String isbn) {
+        return new ConsultaCancelavel<>(() -> contarEdicoes(isbn));
+    }
 
-                if (!isbnData.has("works") || isbnData.getAsJsonArray("works").size() == 0) {
-                    return 0;
-                }
+    /**
+     * Mesma consulta de buscarEdicoesAsync, na thread de quem chama (ex.: os workers do
+     * cadastro em lote, que já limitam a própria concorrência).
+     */
+    public static int contarEdicoes(String isbn) {
+        try {
+            // Consulta para obter work_id(works/key)
+            Response response = CLIENT.target("https://openlibrary.org/isbn/" + isbn + ".json")
+                    .request(MediaType.APPLICATION_JSON)
+                    .get();
 
-                JsonObject work = isbnData.getAsJsonArray("works").get(0).getAsJsonObject();
-                if (!work.has("key")) {
-                    return 0;
-                }
+            if (response.getStatus() != 200) {
+                return 0;
+            }
 
-                String workId = work.get("key").getAsString().replace("/works/", "");
-                return buscarNumeroEdicoes(workId);
-            } catch (Exception e) {
-                System.err.println("Erro ao buscar work_id: " + e.getMessage());
+            String jsonData = response.readEntity(String.class);
+            JsonObject isbnData = JsonParser.parseString(jsonData).getAsJsonObject();
+
+            if (!isbnData.has("works") || isbnData.getAsJsonArray("works").size() == 0) {
                 return 0;
             }
-        }, EXECUTOR);
 
-        try {
-            int edicoes = edicoesFuture.get(3, TimeUnit.SECONDS);
-            livro.setLivrosSemelhantes(edicoes);
+            JsonObject work = isbnData.getAsJsonArray("works").get(0).getAsJsonObject();
+            if (!work.has("key")) {
+                return 0;
+            }
+
+            String workId = work.get("key").getAsString().replace("/works/", "");
+            return buscarNumeroEdicoes(workId);
         } catch (Exception e) {
-            System.err.println("Tempo esgotado ao buscar edições: " + e.getMessage());
-            livro.setLivrosSemelhantes(0);
+            System.err.println("Erro ao buscar work_id: " + e.getMessage());
+            return 0;
         }
-
-        return livro;
     }
 
     private static int buscarNumeroEdicoes(String workId) {
@@ -1,17 +1,47 @@
 package biblioteca.ui;
 
+import biblioteca.model.AlteracaoLivro;
+import biblioteca.model.CatalogoColunar;
 import biblioteca.model.Livro;
+import biblioteca.model.LivroResumo;
+import biblioteca.repository.ArquivoCatalogo;
+import biblioteca.repository.CriteriosBusca;
+import biblioteca.repository.IndiceIsbn;
 import biblioteca.repository.LivroRepository;
+import biblioteca.repository.Ordenacao;
+import biblioteca.repository.OuvinteAlteracoes;
+import biblioteca.service.CapaService;
 import biblioteca.service.LivroService;
 import biblioteca.service.OpenLibraryService;
-import biblioteca.util.FormatacaoDatas;
+import biblioteca.util.Isbn;
 import com.google.gson.JsonObject;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.table.DefaultTableCellRenderer;
+import javax.swing.table.JTableHeader;
+import javax.swing.table.TableCellRenderer;
+import javax.swing.table.TableColumn;
+import javax.swing.table.TableModel;
 import java.awt.*;
-import java.util.Comparator;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 
 /**
  * Interface gráfica principal
@@ -21,25 +51,93 @@ public class BibliotecaApp extends JFrame {
     private JTable tabelaLivros;
     private JTextField campoIsbn, campoPesquisa;
     private JComboBox<String> campoBusca;
-    private DefaultTableModel modeloTabela;
+    private ModeloTabelaLivros modeloTabela;
+    // Usado no lugar de modeloTabela quando o catálogo passa de LIMITE_CATALOGO_MEMORIA livros;
+    // aí modeloTabela só exibe resultados de busca
+    private ModeloTabelaPaginada modeloPaginado;
+    private boolean modoPaginado = false;
     private JDialog dialogoProgresso;
     private JProgressBar barraProgresso;
+    private Timer timerDialogoProgresso;
+
+    // Visível enquanto houver trabalho de banco em andamento (ver noBanco)
+    private JProgressBar indicadorCarregamento;
+    private int tarefasAtivas = 0;
+    // Busca e abertura para edição em andamento; uma nova cancela a anterior
+    private BuscaNoBanco tarefaBusca;
+
+    // Busca enquanto se digita: dispara depois de uma pausa na digitação
+    private static final int ATRASO_BUSCA_MS = 300;
+    // Linhas trazidas do banco por busca no modo paginado
+    private static final int LIMITE_BUSCA = 500;
+    private Timer timerBusca;
+    private JLabel labelResultado;
+    private TarefaBanco<?> tarefaEdicao;
 
     // Variável para controlar se há uma janela de cadastro aberta
     private LivroCadastro cadastroAtivo = null;
 
+    // Alterações feitas por qualquer cliente chegam pelo LISTEN/NOTIFY do banco
+    private OuvinteAlteracoes ouvinteAlteracoes;
+
+    // Desenha a capa pelo ISBN da linha. O renderer só é chamado para as linhas visíveis, então só
+    // as capas delas são pedidas; quando uma chega, a tabela repinta a área visível
+    private final DefaultTableCellRenderer rendererCapa = new DefaultTableCellRenderer() {
+        private final Runnable repintar = () -> tabelaLivros.repaint();
+
+        @Override
+        public Component getTableCellRendererComponent(JTable tabela, Object valor, boolean selecionada,
+                                                       boolean foco, int linha, int coluna) {
+            super.getTableCellRendererComponent(tabela, null, selecionada, foco, linha, coluna);
+            setHorizontalAlignment(CENTER);
+            setIcon(valor instanceof Long
+                    ? CacheCapas.getInstancia().obter((Long) valor, ALTURA_MINIATURA, repintar) : null);
+            return this;
+        }
+    };
+
+    // Cargas do catálogo rodam uma de cada vez, fora da thread do Swing
+    private final ExecutorService executorCatalogo = Executors.newSingleThreadExecutor(tarefa -> {
+        Thread thread = new Thread(tarefa, "carga-catalogo");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Marcador (V009) do catálogo em memória exibido; null no modo paginado ou se a carga falhou.
+    // Só a thread de carga usa
+    private Long marcadorExibido;
+    // Cargas do catálogo agendadas e ainda não terminadas; enquanto houver alguma, alterações
+    // recebidas do ouvinte esperam em alteracoesDuranteCarga para não se perderem na troca do
+    // catálogo. Só a thread do Swing usa os dois
+    private int cargasCatalogo = 0;
+    private final List<Runnable> alteracoesDuranteCarga = new ArrayList<>();
+
+    // Acima disso, recarregar a tabela sai mais barato do que aplicar linha a linha
+    private static final int LIMITE_ALTERACOES_INCREMENTAIS = 1000;
+
+    // Acima disso o catálogo não é trazido para a memória e a tabela lê páginas do banco
+    private static final long LIMITE_CATALOGO_MEMORIA = Long.getLong("biblioteca.tabela.limiteMemoria", 500_000);
+    // Campo de ordenação de cada coluna da tabela (ModeloTabelaLivros.COLUNAS); null não ordena
+    private static final Ordenacao.Campo[] CAMPOS_ORDENACAO = {
+            null, Ordenacao.Campo.TITULO, Ordenacao.Campo.AUTORES, null,
+            Ordenacao.Campo.EDITORA, Ordenacao.Campo.DATA_PUBLICACAO, Ordenacao.Campo.EDICOES, null
+    };
+    // Altura das miniaturas de capa na tabela; as linhas ganham uma pequena margem
+    private static final int ALTURA_MINIATURA = 40;
+
     public BibliotecaApp() {
         repository = new LivroRepository();
         initComponents();
         inicializarDialogoProgresso();
-        carregarLivros();
+        exibirCatalogoSalvo();
+        iniciarOuvinteAlteracoes();
+        IndiceIsbn.carregarEmSegundoPlano();
 
         setLocationRelativeTo(null);
     }
 
     private void initComponents() {
         setTitle("Catálogo de Livros");
-        setSize(800, 600);
+        setSize(1100, 600);
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setLayout(new BorderLayout());
 
@@ -47,21 +145,62 @@ public class BibliotecaApp extends JFrame {
         campoBusca = new JComboBox<>(new String[]{"Título", "Autor", "ISBN", "Editora", "Data Publicação"});
         campoPesquisa = new JTextField(20);
         JButton botaoBuscar = new JButton("Buscar");
-        botaoBuscar.addActionListener(e -> buscarLivros());
+        botaoBuscar.addActionListener(e -> buscarAgora());
         JButton botaoMostrarTodos = new JButton("Mostrar Todos");
-        botaoMostrarTodos.addActionListener(e -> carregarLivros());
+        botaoMostrarTodos.addActionListener(e -> {
+            campoPesquisa.setText("");
+            // setText dispara o listener do documento
+            timerBusca.stop();
+            mostrarTodos();
+        });
+
+        timerBusca = new Timer(ATRASO_BUSCA_MS, e -> buscarLivros());
+        timerBusca.setRepeats(false);
+        campoPesquisa.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                timerBusca.restart();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                timerBusca.restart();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                timerBusca.restart();
+            }
+        });
+        campoPesquisa.addActionListener(e -> buscarAgora());
+        campoBusca.addActionListener(e -> timerBusca.restart());
+        labelResultado = new JLabel();
 
         painelBusca.add(new JLabel("Buscar por:"));
         painelBusca.add(campoBusca);
         painelBusca.add(campoPesquisa);
         painelBusca.add(botaoBuscar);
         painelBusca.add(botaoMostrarTodos);
+        JButton botaoBuscaAvancada = new JButton("Busca Avançada");
+        botaoBuscaAvancada.addActionListener(e -> abrirBuscaAvancada());
+        painelBusca.add(botaoBuscaAvancada);
+        painelBusca.add(labelResultado);
+
+        indicadorCarregamento = new JProgressBar();
+        indicadorCarregamento.setIndeterminate(true);
+        indicadorCarregamento.setString("Carregando...");
+        indicadorCarregamento.setStringPainted(true);
+        indicadorCarregamento.setVisible(false);
+        painelBusca.add(indicadorCarregamento);
 
         JPanel painelCadastro = new JPanel();
         campoIsbn = new JTextField(15);
         JButton botaoCadastrarIsbn = new JButton("Cadastrar por ISBN");
         botaoCadastrarIsbn.addActionListener(e -> cadastrarPorIsbn());
 
+        JButton botaoCadastroLote = new JButton("Cadastro em Lote");
+        botaoCadastroLote.addActionListener(e -> abrirCadastroLote());
+
         JButton botaoIncluir = new JButton("Incluir Livro");
         botaoIncluir.addActionListener(e -> abrirCadastroLivro(null));
 
@@ -71,26 +210,58 @@ public class BibliotecaApp extends JFrame {
         JButton botaoExcluir = new JButton("Excluir");
         botaoExcluir.addActionListener(e -> excluirLivroSelecionado());
 
+        JButton botaoAlterarEditora = new JButton("Alterar Editora");
+        botaoAlterarEditora.addActionListener(e -> alterarEditoraSelecionados());
+
         JButton botaoImportar = new JButton("Importar CSV");
         botaoImportar.addActionListener(e -> abrirTelaImportacao());
 
+        JButton botaoEstatisticas = new JButton("Estatísticas");
+        botaoEstatisticas.addActionListener(e -> abrirTelaEstatisticas());
+
         painelCadastro.add(new JLabel("ISBN:"));
         painelCadastro.add(campoIsbn);
         painelCadastro.add(botaoCadastrarIsbn);
+        painelCadastro.add(botaoCadastroLote);
         painelCadastro.add(botaoIncluir);
         painelCadastro.add(botaoEditar);
         painelCadastro.add(botaoExcluir);
+        painelCadastro.add(botaoAlterarEditora);
         painelCadastro.add(botaoImportar);
+        painelCadastro.add(botaoEstatisticas);
 
-        // Tabela de Livros
-        String[] colunas = {"ID", "Título", "Autor", "ISBN", "Editora", "Data Publicação", "Livros Semelhantes(edições)"};
-        modeloTabela = new DefaultTableModel(colunas, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
+        // Tabela de Livros, lida direto do catálogo em colunas
+        modeloTabela = new ModeloTabelaLivros();
+        modeloPaginado = new ModeloTabelaPaginada(repository);
+        // Quantidade da busca avançada, conhecida quando a recarga do modelo termina
+        modeloPaginado.addTableModelListener(e -> {
+            if (e.getLastRow() == Integer.MAX_VALUE && modeloPaginado.getCriterios() != null
+                    && tabelaLivros.getModel() == modeloPaginado) {
+                labelResultado.setText(textoResultado(modeloPaginado.getRowCount(), false));
             }
-        };
+        });
         tabelaLivros = new JTable(modeloTabela);
+        // Excluir e Alterar Editora atuam sobre todas as linhas selecionadas
+        tabelaLivros.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
+
+        // Ordenação pelo banco ao clicar no cabeçalho (shift acrescenta colunas), com a seta da ordem
+        JTableHeader cabecalho = tabelaLivros.getTableHeader();
+        cabecalho.setReorderingAllowed(false);
+        cabecalho.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int coluna = cabecalho.columnAtPoint(e.getPoint());
+                if (coluna >= 0) {
+                    ordenarPorColuna(tabelaLivros.convertColumnIndexToModel(coluna), e.isShiftDown());
+                }
+            }
+        });
+        TableCellRenderer rendererCabecalho = cabecalho.getDefaultRenderer();
+        cabecalho.setDefaultRenderer((tabela, valor, selecionada, foco, linha, coluna) ->
+                rendererCabecalho.getTableCellRendererComponent(tabela,
+                        valor + indicadorOrdem(tabela.convertColumnIndexToModel(coluna)),
+                        selecionada, foco, linha, coluna));
+        configurarColunaCapa();
         JScrollPane scrollPane = new JScrollPane(tabelaLivros);
 
         add(painelBusca, BorderLayout.NORTH);
@@ -119,51 +290,368 @@ public class BibliotecaApp extends JFrame {
     }
 
     private void mostrarDialogoProgresso() {
-        Timer timer = new Timer(200, e -> {
+        timerDialogoProgresso = new Timer(200, e -> {
             if (!dialogoProgresso.isVisible()) {
                 dialogoProgresso.setVisible(true);
             }
         });
-        timer.setRepeats(false);
-        timer.start();
+        timerDialogoProgresso.setRepeats(false);
+        timerDialogoProgresso.start();
     }
 
     private void esconderDialogoProgresso() {
+        // Respostas rápidas chegam antes do timer: sem isso o diálogo (modal) abriria depois e ficaria aberto
+        if (timerDialogoProgresso != null) {
+            timerDialogoProgresso.stop();
+        }
         dialogoProgresso.setVisible(false);
     }
 
+    /**
+     * Agenda trabalho de banco fora da thread do Swing; os retornos são chamados nela.
+     * O indicador de carregamento fica visível enquanto houver tarefas.
+     */
+    private <T> TarefaBanco<T> noBanco(Callable<T> trabalho, Consumer<T> aoConcluir, Consumer<Exception> aoFalhar) {
+        TarefaBanco<T> tarefa = new TarefaBanco<>(trabalho, aoConcluir, aoFalhar);
+        acompanhar(tarefa);
+        tarefa.agendar();
+        return tarefa;
+    }
+
+    /**
+     * Mantém o indicador de carregamento visível até a tarefa terminar ou ser cancelada.
+     */
+    private void acompanhar(SwingWorker<?, ?> tarefa) {
+        iniciarCarregamento();
+        // O estado DONE chega também para tarefas canceladas
+        tarefa.addPropertyChangeListener(evento -> {
+            if ("state".equals(evento.getPropertyName()) && evento.getNewValue() == SwingWorker.StateValue.DONE) {
+                terminarCarregamento();
+            }
+        });
+    }
+
+    private <T> TarefaBanco<T> noBanco(Callable<T> trabalho, Consumer<T> aoConcluir, String mensagemErro) {
+        return noBanco(trabalho, aoConcluir, e -> JOptionPane.showMessageDialog(this,
+                mensagemErro + ": " + e.getMessage(),
+                "Erro",
+                JOptionPane.ERROR_MESSAGE));
+    }
+
+    private void iniciarCarregamento() {
+        tarefasAtivas++;
+        indicadorCarregamento.setVisible(true);
+    }
+
+    private void terminarCarregamento() {
+        if (--tarefasAtivas == 0) {
+            indicadorCarregamento.setVisible(false);
+        }
+    }
+
+    private void abrirCadastroLote() {
+        CadastroLote telaCadastroLote = new CadastroLote(this);
+        telaCadastroLote.setLocationRelativeTo(this);
+        telaCadastroLote.setVisible(true);
+    }
+
     private void abrirTelaImportacao() {
         Importacao telaImportacao = new Importacao(this);
         telaImportacao.setLocationRelativeTo(this);
         telaImportacao.setVisible(true);
     }
 
+    /**
+     * Abre com o catálogo do arquivo local, se houver, sem tocar no banco. Depois confere o marcador
+     * de alterações do banco e só relê o catálogo se ele tiver mudado. Tudo na thread de carga.
+     */
+    private void exibirCatalogoSalvo() {
+        executarCarga(() -> {
+            ArquivoCatalogo.CatalogoSalvo salvo = ArquivoCatalogo.ler();
+            if (salvo == null) {
+                recarregarCatalogo();
+                return;
+            }
+
+            SwingUtilities.invokeLater(() -> modeloTabela.exibir(salvo.catalogo));
+            if (salvo.isAtual(repository.lerMarcadorCatalogo())) {
+                marcadorExibido = salvo.marcador;
+            } else {
+                recarregarCatalogo();
+            }
+        });
+    }
+
+    /**
+     * Chamado a cada conexão do ouvinte, inclusive a primeira: alterações feitas antes do LISTEN
+     * (entre a leitura do catálogo exibido e a conexão, ou com o ouvinte fora do ar) não chegam
+     * pelo canal. Se o marcador do banco não for o do catálogo exibido, relê catálogo e índice de
+     * ISBNs. Roda depois das cargas já agendadas.
+     */
+    private void conferirCatalogo() {
+        executarCarga(() -> {
+            if (marcadorExibido == null || marcadorExibido != repository.lerMarcadorCatalogo()) {
+                IndiceIsbn.carregarEmSegundoPlano();
+                recarregarCatalogo();
+            }
+        });
+    }
+
+    private void abrirTelaEstatisticas() {
+        Estatisticas telaEstatisticas = new Estatisticas();
+        telaEstatisticas.setLocationRelativeTo(this);
+        telaEstatisticas.setVisible(true);
+    }
+
     private void carregarLivros() {
-        modeloTabela.setRowCount(0);
-        List<Livro> livros = repository.listarTodos();
+        executarCarga(this::recarregarCatalogo);
+    }
 
-        livros.sort(Comparator.comparing(Livro::getId));
+    /**
+     * Agenda uma carga do catálogo na thread de carga. Chamado na thread do Swing.
+     */
+    private void executarCarga(Runnable carga) {
+        iniciarCarregamento();
+        cargasCatalogo++;
+        executorCatalogo.execute(() -> {
+            try {
+                carga.run();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            } finally {
+                SwingUtilities.invokeLater(this::terminarCargaCatalogo);
+            }
+        });
+    }
+
+    /**
+     * Roda depois de a carga ter entregado o catálogo à tela (os invokeLater dela vêm antes) e,
+     * terminadas todas as cargas, reaplica por cima do catálogo novo as alterações recebidas
+     * enquanto ele era lido. As já contidas nele são reaplicadas sem efeito.
+     */
+    private void terminarCargaCatalogo() {
+        terminarCarregamento();
+        if (--cargasCatalogo > 0) {
+            return;
+        }
+        List<Runnable> pendentes = new ArrayList<>(alteracoesDuranteCarga);
+        alteracoesDuranteCarga.clear();
+        for (Runnable alteracao : pendentes) {
+            alteracao.run();
+        }
+    }
+
+    /**
+     * Lê o catálogo do banco para um novo CatalogoColunar, direto do cursor, sem lista intermediária,
+     * e grava o arquivo local antes de entregá-lo à tela (depois disso só a thread do Swing o usa).
+     * Catálogos acima de LIMITE_CATALOGO_MEMORIA vão para a tabela paginada.
+     */
+    private void recarregarCatalogo() {
+        CatalogoColunar catalogo = new CatalogoColunar();
+        long marcador;
+        marcadorExibido = null;
+        try {
+            if (repository.contarLivros() > LIMITE_CATALOGO_MEMORIA) {
+                SwingUtilities.invokeLater(this::exibirPaginado);
+                return;
+            }
+            // Já vem ordenado por id do banco
+            marcador = repository.percorrerResumos(catalogo::adicionar);
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            return;
+        }
+
+        marcadorExibido = marcador;
+        ArquivoCatalogo.salvar(catalogo, marcador);
+        SwingUtilities.invokeLater(() -> {
+            modoPaginado = false;
+            modeloTabela.exibir(catalogo);
+            exibirListagem();
+        });
+    }
+
+    private void exibirPaginado() {
+        modoPaginado = true;
+        // O catálogo em memória deixa de ser usado; fica só para resultados de busca
+        modeloTabela.exibir(new CatalogoColunar());
+        exibirModelo(modeloPaginado);
+        modeloPaginado.recarregar();
+    }
+
+    private void exibirModelo(TableModel modelo) {
+        if (tabelaLivros.getModel() != modelo) {
+            tabelaLivros.setModel(modelo);
+            // setModel recria as colunas
+            configurarColunaCapa();
+        }
+    }
+
+    /**
+     * Coluna das capas como a primeira da tabela, com as miniaturas do CacheCapas; sem capas
+     * configuradas (CapaService.isAtivo), a coluna não é exibida.
+     */
+    private void configurarColunaCapa() {
+        TableColumn colunaCapa = tabelaLivros.getColumnModel()
+                .getColumn(tabelaLivros.convertColumnIndexToView(ModeloTabelaLivros.COLUNA_CAPA));
+        if (!CapaService.isAtivo()) {
+            tabelaLivros.removeColumn(colunaCapa);
+            return;
+        }
+        colunaCapa.setCellRenderer(rendererCapa);
+        colunaCapa.setPreferredWidth(ALTURA_MINIATURA);
+        tabelaLivros.moveColumn(tabelaLivros.convertColumnIndexToView(ModeloTabelaLivros.COLUNA_CAPA), 0);
+        tabelaLivros.setRowHeight(ALTURA_MINIATURA + 4);
+    }
+
+    /**
+     * A listagem vem do banco no modo paginado, sempre que há ordenação por coluna e na busca
+     * avançada: ordem e critérios são aplicados pelo banco, não sobre o catálogo em memória.
+     */
+    private boolean listagemNoBanco() {
+        return modoPaginado || !modeloPaginado.isLinhasEstaveis();
+    }
+
+    /**
+     * Exibe o catálogo completo, sem filtro de busca, na ordem atual.
+     */
+    private void exibirListagem() {
+        if (listagemNoBanco()) {
+            exibirModelo(modeloPaginado);
+            modeloPaginado.recarregar();
+        } else {
+            modeloTabela.removerFiltro();
+            exibirModelo(modeloTabela);
+        }
+    }
+
+    /**
+     * Chamado pela tela de busca avançada: os critérios vão ao banco numa só consulta, exibida na
+     * tabela paginada na ordem atual. A busca simples é limpa.
+     */
+    public void buscarAvancado(CriteriosBusca criterios) {
+        cancelarBusca();
+        if (!campoPesquisa.getText().isEmpty()) {
+            campoPesquisa.setText("");
+            // setText dispara o listener do documento
+            timerBusca.stop();
+        }
+        if (criterios.isVazio()) {
+            mostrarTodos();
+            return;
+        }
+
+        labelResultado.setText("Buscando...");
+        tabelaLivros.clearSelection();
+        tabelaLivros.scrollRectToVisible(new Rectangle(0, 0, 1, 1));
+        modeloPaginado.filtrar(criterios);
+        exibirModelo(modeloPaginado);
+    }
+
+    private void abrirBuscaAvancada() {
+        BuscaAvancada telaBusca = new BuscaAvancada(this);
+        telaBusca.setLocationRelativeTo(this);
+        telaBusca.setVisible(true);
+    }
+
+    /**
+     * Clique no cabeçalho: ordena a listagem pela coluna (com shift, acrescenta a coluna à ordem
+     * atual). A coluna ID volta à ordem por id; ISBN não ordena. Uma busca simples ativa é limpa,
+     * já que a ordem vale para a listagem; a busca avançada continua, na nova ordem.
+     */
+    private void ordenarPorColuna(int coluna, boolean acrescentar) {
+        Ordenacao nova;
+        if (coluna == 0) {
+            nova = Ordenacao.POR_ID;
+        } else {
+            Ordenacao.Campo campo = CAMPOS_ORDENACAO[coluna];
+            if (campo == null) {
+                return;
+            }
+            nova = modeloPaginado.getOrdenacao().alternar(campo, acrescentar);
+        }
+
+        cancelarBusca();
+        if (!campoPesquisa.getText().isEmpty()) {
+            campoPesquisa.setText("");
+            // setText dispara o listener do documento
+            timerBusca.stop();
+        }
+        if (modeloPaginado.getCriterios() == null) {
+            labelResultado.setText("");
+        }
+        tabelaLivros.clearSelection();
+        tabelaLivros.scrollRectToVisible(new Rectangle(0, 0, 1, 1));
+
+        modeloPaginado.setOrdenacao(nova);
+        if (listagemNoBanco()) {
+            exibirModelo(modeloPaginado);
+        } else {
+            exibirListagem();
+        }
+        tabelaLivros.getTableHeader().repaint();
+    }
+
+    /**
+     * Seta e posição da coluna na ordem atual, para o cabeçalho da listagem ordenada.
+     */
+    private String indicadorOrdem(int coluna) {
+        if (tabelaLivros.getModel() != modeloPaginado || coluna >= CAMPOS_ORDENACAO.length) {
+            return "";
+        }
+        List<Ordenacao.Criterio> criterios = modeloPaginado.getOrdenacao().getCriterios();
+        for (int i = 0; i < criterios.size(); i++) {
+            if (criterios.get(i).getCampo() == CAMPOS_ORDENACAO[coluna]) {
+                String seta = criterios.get(i).isCrescente() ? " ▲" : " ▼";
+                return criterios.size() > 1 ? seta + (i + 1) : seta;
+            }
+        }
+        return "";
+    }
+
+    /**
+     * Com o ouvinte conectado o catálogo em memória está em dia e basta tirar o filtro da busca;
+     * a listagem pelo banco é sempre relida.
+     */
+    private void mostrarTodos() {
+        cancelarBusca();
+        modeloPaginado.removerFiltro();
+        labelResultado.setText("");
+        if (listagemNoBanco() || (ouvinteAlteracoes != null && ouvinteAlteracoes.isConectado())) {
+            exibirListagem();
+        } else {
+            carregarLivros();
+        }
+    }
 
-        for (Livro livro : livros) {
-            modeloTabela.addRow(new Object[]{
-                    livro.getId(),
-                    livro.getTitulo(),
-                    livro.getAutores(),
-                    livro.getIsbn(),
-                    livro.getEditora(),
-                    livro.getDataPublicacao() != null ?
-                            FormatacaoDatas.formatarParaExibicao(livro.getDataPublicacao()) : "",
-                    livro.getLivrosSemelhantes()
-            });
+    private void cancelarBusca() {
+        if (tarefaBusca != null) {
+            tarefaBusca.cancelar();
+            tarefaBusca = null;
         }
     }
 
+    private void buscarAgora() {
+        timerBusca.stop();
+        buscarLivros();
+    }
+
+    /**
+     * Chamado pelo timerBusca a cada pausa na digitação (ou pelo botão Buscar). Sem diálogos: a
+     * quantidade encontrada aparece ao lado dos botões e o campo vazio volta ao catálogo completo.
+     */
     private void buscarLivros() {
+        cancelarBusca();
         String campo = campoBusca.getSelectedItem().toString();
         String valor = campoPesquisa.getText().trim();
 
         if (valor.isEmpty()) {
-            carregarLivros();
+            labelResultado.setText("");
+            if (listagemNoBanco()) {
+                exibirModelo(modeloPaginado);
+            } else {
+                exibirListagem();
+            }
             return;
         }
 
@@ -189,118 +677,166 @@ public class BibliotecaApp extends JFrame {
                 break;
         }
 
-        List<Livro> livros = repository.buscarPorCampo(campoRepositorio, valor);
+        // A busca simples substitui a avançada
+        modeloPaginado.removerFiltro();
+        if (modoPaginado) {
+            buscarNoBanco(campoRepositorio, valor);
+            return;
+        }
 
-        modeloTabela.setRowCount(0);
+        // Resultados em memória ficam em ordem de id, mesmo com a listagem ordenada
+        long[] encontrados = filtrarCatalogo(modeloTabela.getCatalogo(), campoRepositorio, valor);
+        modeloTabela.filtrar(encontrados);
+        exibirModelo(modeloTabela);
+        labelResultado.setText(textoResultado(encontrados.length, false));
+    }
 
-        if (livros.isEmpty()) {
-            JOptionPane.showMessageDialog(this,
-                    "Nenhum livro encontrado para: " + valor,
-                    "Busca",
-                    JOptionPane.INFORMATION_MESSAGE);
-            carregarLivros();
-            return;
+    /**
+     * Sem o catálogo em memória, a busca vai ao banco: até LIMITE_BUSCA livros, exibidos como um
+     * catálogo próprio em modeloTabela à medida que chegam. A busca anterior é cancelada no banco.
+     */
+    private void buscarNoBanco(String campo, String valor) {
+        CatalogoColunar resultado = new CatalogoColunar();
+        modeloTabela.exibir(resultado);
+        exibirModelo(modeloTabela);
+        labelResultado.setText("Buscando...");
+
+        BuscaNoBanco busca = new BuscaNoBanco(repository, campo, valor, LIMITE_BUSCA,
+                livros -> livros.forEach(modeloTabela::atualizarOuInserir),
+                total -> {
+                    tarefaBusca = null;
+                    labelResultado.setText(textoResultado(total, total >= LIMITE_BUSCA));
+                },
+                e -> {
+                    tarefaBusca = null;
+                    labelResultado.setText("Erro na busca");
+                    System.err.println("Erro na busca: " + e.getMessage());
+                });
+        acompanhar(busca);
+        tarefaBusca = busca;
+        busca.agendar();
+    }
+
+    private static String textoResultado(int quantidade, boolean limitado) {
+        if (quantidade == 0) {
+            return "Nenhum livro encontrado";
+        }
+        if (limitado) {
+            return "Primeiros " + quantidade + " livros; refine a busca";
+        }
+        return quantidade == 1 ? "1 livro encontrado" : quantidade + " livros encontrados";
+    }
+
+    /**
+     * Busca no catálogo em memória, com a mesma interpretação do valor que as consultas do LivroRepository.
+     */
+    private static long[] filtrarCatalogo(CatalogoColunar catalogo, String campo, String valor) {
+        switch (campo) {
+            case "autores":
+                return catalogo.filtrarPorAutores(valor);
+            case "isbn":
+                return Isbn.valido(valor) ? catalogo.filtrarPorIsbn(Isbn.canonizar(valor)) : new long[0];
+            case "editora":
+                return catalogo.filtrarPorEditora(valor);
+            case "dataPublicacao":
+                return filtrarPorData(catalogo, valor);
+            default:
+                return catalogo.filtrarPorTitulo(valor);
         }
+    }
 
-        for (Livro livro : livros) {
-            modeloTabela.addRow(new Object[]{
-                    livro.getId(),
-                    livro.getTitulo(),
-                    livro.getAutores(),
-                    livro.getIsbn(),
-                    livro.getEditora(),
-                    livro.getDataPublicacao() != null ?
-                            FormatacaoDatas.formatarParaExibicao(livro.getDataPublicacao()) : "",
-                    livro.getLivrosSemelhantes()
-            });
+    private static long[] filtrarPorData(CatalogoColunar catalogo, String valor) {
+        try {
+            LocalDate data = LocalDate.parse(valor, DateTimeFormatter.ofPattern("dd/MM/yyyy"));
+            return catalogo.filtrarPorDatas(data, data);
+        } catch (DateTimeParseException e) {
+            try {
+                LocalDate data = LocalDate.parse(valor);
+                return catalogo.filtrarPorDatas(data, data);
+            } catch (DateTimeParseException ex) {
+                try {
+                    int ano = Integer.parseInt(valor);
+                    return catalogo.filtrarPorDatas(LocalDate.of(ano, 1, 1), LocalDate.of(ano, 12, 31));
+                } catch (NumberFormatException | DateTimeException nex) {
+                    return catalogo.filtrarPorTextoData(valor);
+                }
+            }
         }
     }
 
     /**
-     * Nesta funcionalidade foi utilizado Thread por estar puxando dados de uma API externa,
-     * sendo assim, essa requisição pode demorar em alguns momentos, por instabilidade do servidor.
-     * Utilizando o Thread, o usuário pode continuar mexendo na aplicação, pois o Swing por padrão roda em
-     * um único thread.
+     * A consulta à API externa pode demorar, por instabilidade do servidor; por isso a verificação
+     * de duplicidade, a busca e a gravação rodam numa TarefaBanco e o usuário pode continuar
+     * mexendo na aplicação enquanto isso.
      */
     private void cadastrarPorIsbn() {
-        String isbn = campoIsbn.getText().trim();
-        if (isbn.isEmpty()) {
+        String isbnDigitado = campoIsbn.getText().trim();
+        if (isbnDigitado.isEmpty()) {
             JOptionPane.showMessageDialog(this, "Por favor, digite um ISBN.");
             return;
         }
 
-        LivroService livroService = new LivroService();
-        if (livroService.buscarPorIsbn(isbn) != null) {
+        if (!Isbn.valido(isbnDigitado)) {
             JOptionPane.showMessageDialog(this,
-                    "Este ISBN já está cadastrado no sistema.",
-                    "ISBN Duplicado",
-                    JOptionPane.WARNING_MESSAGE);
+                    "ISBN inválido. Deve ter 10 ou 13 dígitos no formato correto e dígito verificador válido.",
+                    "Erro de Validação",
+                    JOptionPane.ERROR_MESSAGE);
             return;
         }
+        String isbn = Isbn.limpar(isbnDigitado);
+        long isbnCanonico = Isbn.canonizar(isbn);
+
+        // ISBN repetido é barrado pela restrição única do banco no salvarLivro
+        LivroService livroService = new LivroService();
 
         mostrarDialogoProgresso();
 
-        new Thread(() -> {
-            try {
-                JsonObject dadosLivro = OpenLibraryService.buscarInformacoesPorIsbn(isbn);
-                Livro livro = OpenLibraryService.converterParaLivro(dadosLivro, isbn);
-
-                if (livroService.buscarPorIsbn(isbn) != null) {
-                    SwingUtilities.invokeLater(() -> {
-                        esconderDialogoProgresso();
-                        JOptionPane.showMessageDialog(BibliotecaApp.this,
-                                "Este ISBN já foi cadastrado por outro usuário.",
-                                "ISBN Duplicado",
-                                JOptionPane.WARNING_MESSAGE);
-                    });
-                    return;
-                }
+        noBanco(() -> {
+            // O índice em memória dispensa a consulta quando o ISBN com certeza é novo;
+            // se ele indicar que existe, confirma no banco antes de ir à API
+            if (IndiceIsbn.talvezCadastrado(isbnCanonico) && repository.buscarPorIsbn(isbnCanonico) != null) {
+                return null;
+            }
 
-                try {
-                    livroService.salvarLivro(livro);
-
-                    SwingUtilities.invokeLater(() -> {
-                        esconderDialogoProgresso();
-                        carregarLivros();
-                        JOptionPane.showMessageDialog(BibliotecaApp.this, "Livro cadastrado com sucesso!");
-                        campoIsbn.setText("");
-                    });
-                } catch (RuntimeException e) {
-                    SwingUtilities.invokeLater(() -> {
-                        esconderDialogoProgresso();
-                        if (e.getMessage() != null && e.getMessage().contains("ISBN já existe")) {
-                            JOptionPane.showMessageDialog(BibliotecaApp.this,
-                                    "Este ISBN já está cadastrado no sistema.",
-                                    "ISBN Duplicado",
-                                    JOptionPane.WARNING_MESSAGE);
-                        } else {
-                            JOptionPane.showMessageDialog(BibliotecaApp.this,
-                                    "Erro ao salvar o livro: " + e.getMessage(),
-                                    "Erro",
-                                    JOptionPane.ERROR_MESSAGE);
-                        }
-                    });
-                }
-            } catch (Exception e) {
-                SwingUtilities.invokeLater(() -> {
-                    esconderDialogoProgresso();
-
-                    String mensagem;
-                    if (e.getMessage() == null || e.getMessage().isEmpty()) {
-                        mensagem = "Erro desconhecido ao buscar informações do livro.";
-                    } else if (e.getMessage().contains("not found") || e.getMessage().contains("não encontrado")) {
-                        mensagem = "Não foi possível encontrar um livro com este ISBN.";
-                    } else {
-                        mensagem = "Erro ao buscar informações do livro: " + e.getMessage();
-                    }
-
-                    JOptionPane.showMessageDialog(BibliotecaApp.this,
-                            mensagem,
-                            "Erro",
-                            JOptionPane.ERROR_MESSAGE);
-                });
+            JsonObject dadosLivro = OpenLibraryService.buscarInformacoesPorIsbn(isbn);
+            Livro livro = OpenLibraryService.converterParaLivro(dadosLivro, isbn);
+            return livroService.salvarLivro(livro);
+        }, cadastrado -> {
+            esconderDialogoProgresso();
+            if (cadastrado == null) {
+                avisarIsbnDuplicado();
+                return;
             }
-        }).start();
+            livroGravado(cadastrado);
+            JOptionPane.showMessageDialog(BibliotecaApp.this, "Livro cadastrado com sucesso!");
+            campoIsbn.setText("");
+        }, e -> {
+            esconderDialogoProgresso();
+
+            String mensagem;
+            if (e.getMessage() == null || e.getMessage().isEmpty()) {
+                mensagem = "Erro desconhecido ao buscar informações do livro.";
+            } else if (e.getMessage().contains("ISBN já existe")) {
+                avisarIsbnDuplicado();
+                return;
+            } else if (e.getMessage().contains("not found") || e.getMessage().contains("não encontrado")) {
+                mensagem = "Não foi possível encontrar um livro com este ISBN.";
+            } else {
+                mensagem = "Erro ao cadastrar o livro: " + e.getMessage();
+            }
+
+            JOptionPane.showMessageDialog(BibliotecaApp.this,
+                    mensagem,
+                    "Erro",
+                    JOptionPane.ERROR_MESSAGE);
+        });
+    }
+
+    private void avisarIsbnDuplicado() {
+        JOptionPane.showMessageDialog(this,
+                "Este ISBN já está cadastrado no sistema.",
+                "ISBN Duplicado",
+                JOptionPane.WARNING_MESSAGE);
     }
 
     private void abrirCadastroLivro(Livro livro) {
@@ -336,34 +872,246 @@ public class BibliotecaApp extends JFrame {
             return;
         }
 
-        Long id = (Long) modeloTabela.getValueAt(linhaSelecionada, 0);
-        Livro livro = repository.buscarPorId(id);
-        abrirCadastroLivro(livro);
+        Long id = idDaLinha(linhaSelecionada);
+        if (id == null) {
+            return;
+        }
+        if (tarefaEdicao != null) {
+            tarefaEdicao.cancelar();
+        }
+        Long isbn = isbnDaLinha(linhaSelecionada);
+        tarefaEdicao = noBanco(() -> repository.buscarPorId(id, isbn), livro -> {
+            tarefaEdicao = null;
+            if (livro == null) {
+                JOptionPane.showMessageDialog(this, "Este livro foi excluído por outro usuário.");
+                return;
+            }
+            abrirCadastroLivro(livro);
+        }, "Erro ao abrir o livro");
     }
 
     private void excluirLivroSelecionado() {
-        int linhaSelecionada = tabelaLivros.getSelectedRow();
-        if (linhaSelecionada == -1) {
+        Map<Long, Long> selecionados = selecionados();
+        if (selecionados.isEmpty()) {
             JOptionPane.showMessageDialog(this, "Selecione um livro para excluir.");
             return;
         }
 
         int confirmacao = JOptionPane.showConfirmDialog(
                 this,
-                "Tem certeza que deseja excluir este livro?",
+                selecionados.size() == 1 ? "Tem certeza que deseja excluir este livro?"
+                        : "Tem certeza que deseja excluir os " + selecionados.size() + " livros selecionados?",
                 "Confirmação",
                 JOptionPane.YES_NO_OPTION
         );
 
         if (confirmacao == JOptionPane.YES_OPTION) {
-            Long id = (Long) modeloTabela.getValueAt(linhaSelecionada, 0);
-            repository.excluir(id);
+            noBanco(() -> repository.excluirTodos(selecionados), excluidos -> exibirExcluidos(selecionados.keySet()),
+                    "Erro ao excluir");
+        }
+    }
+
+    private void alterarEditoraSelecionados() {
+        Map<Long, Long> selecionados = selecionados();
+        if (selecionados.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "Selecione os livros que terão a editora alterada.");
+            return;
+        }
+
+        String editora = JOptionPane.showInputDialog(this,
+                "Nova editora para " + selecionados.size() + " livro(s):",
+                "Alterar Editora",
+                JOptionPane.QUESTION_MESSAGE);
+        if (editora == null) {
+            return;
+        }
+
+        String novaEditora = editora.trim().isEmpty() ? null : editora.trim();
+        noBanco(() -> new LivroService().atualizarEditora(selecionados, novaEditora),
+                this::exibirGravados,
+                "Erro ao alterar editora");
+    }
+
+    /**
+     * Ids das linhas selecionadas, na ordem da tabela, com o ISBN de cada uma: com a tabela
+     * particionada (P001) o repositório vai só às partições desses ISBNs.
+     */
+    private Map<Long, Long> selecionados() {
+        Map<Long, Long> isbnsPorId = new LinkedHashMap<>();
+        for (int linha : tabelaLivros.getSelectedRows()) {
+            Long id = idDaLinha(linha);
+            if (id != null) {
+                isbnsPorId.put(id, isbnDaLinha(linha));
+            }
+        }
+        return isbnsPorId;
+    }
+
+    /**
+     * Id do livro na linha exibida; null se for uma linha da tabela paginada ainda não carregada.
+     */
+    private Long idDaLinha(int linha) {
+        return tabelaLivros.getModel() == modeloPaginado ? modeloPaginado.getId(linha) : modeloTabela.getId(linha);
+    }
+
+    private Long isbnDaLinha(int linha) {
+        return tabelaLivros.getModel() == modeloPaginado ? modeloPaginado.getIsbn(linha) : modeloTabela.getIsbn(linha);
+    }
+
+    /**
+     * Chamado por outras janelas depois de gravar um livro: só a linha dele muda, sem recarregar
+     * a tabela nem perder a seleção e a rolagem. A notificação do banco que chega depois reaplica
+     * a mesma linha, sem efeito.
+     */
+    public void livroGravado(LivroResumo livro) {
+        exibirGravados(Collections.singletonList(livro));
+    }
+
+    /**
+     * Como livroGravado, para vários livros já lidos (ex.: um lote do cadastro em lote): a
+     * tabela paginada é relida no máximo uma vez por chamada.
+     */
+    public void resumosGravados(List<LivroResumo> livros) {
+        exibirGravados(livros);
+    }
+
+    /**
+     * Chamado depois de uma importação com os ids gravados. As linhas são relidas em segundo
+     * plano; acima de LIMITE_ALTERACOES_INCREMENTAIS a tabela é recarregada inteira.
+     */
+    public void livrosGravados(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        if (ids.size() > LIMITE_ALTERACOES_INCREMENTAIS) {
             carregarLivros();
+            return;
+        }
+        noBanco(() -> repository.buscarResumosPorIds(ids), this::exibirGravados, "Erro ao atualizar a tabela");
+    }
+
+    /**
+     * Aplica linhas inseridas ou alteradas. Na listagem pelo banco, um livro fora das páginas
+     * carregadas pode ser novo e deslocar as linhas, e fora da ordem por id qualquer alteração pode
+     * mudar a posição da linha; nesses casos total e página exibida são relidos.
+     */
+    private void exibirGravados(List<LivroResumo> livros) {
+        boolean deslocou = false;
+        for (LivroResumo livro : livros) {
+            if (!modoPaginado || modeloTabela.getCatalogo().indiceDe(livro.getId()) >= 0) {
+                modeloTabela.atualizarOuInserir(livro);
+            }
+            if (listagemNoBanco()) {
+                deslocou |= !modeloPaginado.atualizar(livro) || !modeloPaginado.isLinhasEstaveis();
+            }
+        }
+        if (deslocou) {
+            modeloPaginado.recarregar();
+        }
+    }
+
+    private void exibirExcluidos(Collection<Long> ids) {
+        for (Long id : ids) {
+            modeloTabela.remover(id);
+        }
+        if (listagemNoBanco()) {
+            modeloPaginado.recarregar();
+        }
+    }
+
+    private void iniciarOuvinteAlteracoes() {
+        ouvinteAlteracoes = new OuvinteAlteracoes(new OuvinteAlteracoes.Assinante() {
+            @Override
+            public void aoAlterar(List<AlteracaoLivro> alteracoes) {
+                aplicarAlteracoes(alteracoes);
+            }
+
+            @Override
+            public void aoPerderEventos() {
+                SwingUtilities.invokeLater(() -> conferirCatalogo());
+            }
+        });
+        ouvinteAlteracoes.iniciar();
+    }
+
+    public void pararOuvinteAlteracoes() {
+        if (ouvinteAlteracoes != null) {
+            ouvinteAlteracoes.parar();
         }
     }
 
-    public void notificarMudanca() {
-        carregarLivros();
+    /**
+     * Roda na thread do ouvinte: busca de uma vez só as linhas inseridas/alteradas e aplica
+     * o resultado na tabela pela thread do Swing.
+     */
+    private void aplicarAlteracoes(List<AlteracaoLivro> alteracoes) {
+        if (alteracoes.size() > LIMITE_ALTERACOES_INCREMENTAIS) {
+            IndiceIsbn.carregarEmSegundoPlano();
+            SwingUtilities.invokeLater(() -> carregarLivros());
+            return;
+        }
+
+        // Id e ISBN atual (V014) de cada livro a reler, para a busca ir só às partições deles
+        Map<Long, Long> paraBuscar = new HashMap<>();
+        List<Long> isbnsRemovidos = new ArrayList<>();
+        for (AlteracaoLivro alteracao : alteracoes) {
+            if (alteracao.getTipo() != AlteracaoLivro.Tipo.EXCLUSAO) {
+                paraBuscar.put(alteracao.getId(), alteracao.getIsbn());
+            }
+            if (alteracao.getIsbnAnterior() != null) {
+                isbnsRemovidos.add(alteracao.getIsbnAnterior());
+            }
+        }
+
+        Map<Long, LivroResumo> linhas = new HashMap<>();
+        List<Long> isbnsAtuais = new ArrayList<>();
+        for (LivroResumo livro : repository.buscarResumosPorIds(paraBuscar)) {
+            linhas.put(livro.getId(), livro);
+            if (livro.getIsbnNumerico() != null) {
+                isbnsAtuais.add(livro.getIsbnNumerico());
+            }
+        }
+        IndiceIsbn.aplicarAlteracoes(isbnsRemovidos, isbnsAtuais);
+
+        SwingUtilities.invokeLater(() -> aplicarNaTabela(alteracoes, linhas));
+    }
+
+    /**
+     * Aplica alterações já lidas do banco. No catálogo em memória a linha muda no lugar; na
+     * listagem pelo banco (paginada ou ordenada), livros alterados são trocados nas páginas
+     * carregadas e inclusões, exclusões e mudanças fora da ordem por id releem total e página
+     * exibida (também na busca avançada, em que o livro pode deixar de atender aos critérios).
+     * No modo paginado, resultados de busca em modeloTabela só recebem alterações dos
+     * próprios livros. Durante uma carga do catálogo ficam para depois (terminarCargaCatalogo):
+     * aplicadas ao catálogo antigo, seriam perdidas quando o novo, lido antes delas, o substituísse.
+     */
+    private void aplicarNaTabela(List<AlteracaoLivro> alteracoes, Map<Long, LivroResumo> linhas) {
+        if (cargasCatalogo > 0) {
+            alteracoesDuranteCarga.add(() -> aplicarNaTabela(alteracoes, linhas));
+            return;
+        }
+
+        boolean deslocou = false;
+        for (AlteracaoLivro alteracao : alteracoes) {
+            LivroResumo livro = linhas.get(alteracao.getId());
+            boolean excluido = alteracao.getTipo() == AlteracaoLivro.Tipo.EXCLUSAO || livro == null;
+            if (excluido) {
+                modeloTabela.remover(alteracao.getId());
+            } else if (!modoPaginado || modeloTabela.getCatalogo().indiceDe(livro.getId()) >= 0) {
+                modeloTabela.atualizarOuInserir(livro);
+            }
+
+            if (listagemNoBanco()) {
+                if (!excluido) {
+                    modeloPaginado.atualizar(livro);
+                }
+                deslocou |= excluido || alteracao.getTipo() == AlteracaoLivro.Tipo.INSERCAO
+                        || !modeloPaginado.isLinhasEstaveis();
+            }
+        }
+        if (deslocou) {
+            modeloPaginado.recarregar();
+        }
     }
 
     public static void main(String[] args) {
@@ -373,6 +1121,7 @@ public class BibliotecaApp extends JFrame {
 
             Runtime.getRuntime().addShutdownHook(new Thread(() -> {
                 try {
+                    app.pararOuvinteAlteracoes();
                     LivroRepository.closeEntityManagerFactory();
                     OpenLibraryService.encerrarRecursos();
                 } catch (Exception e) {
@@ -0,0 +1,145 @@
+package biblioteca.ui;
+
+import biblioteca.repository.CriteriosBusca;
+import biblioteca.util.Isbn;
+
+import javax.swing.*;
+import java.awt.*;
+import java.time.LocalDate;
+
+/**
+ * Tela de busca avançada: vários campos ao mesmo tempo (ex.: autor, editora e período), filtrados
+ * pelo banco numa só consulta (CriteriosBusca). Campos em branco não restringem. A tela continua
+ * aberta para refinar a busca; o resultado aparece na tabela principal.
+ */
+public class BuscaAvancada extends JFrame {
+    private final BibliotecaApp framePai;
+
+    private JTextField campoTitulo;
+    private JTextField campoAutor;
+    private JTextField campoEditora;
+    private JTextField campoIsbn;
+    private JTextField campoAnoInicial;
+    private JTextField campoAnoFinal;
+    private JTextField campoEdicoesMinimas;
+
+    public BuscaAvancada(BibliotecaApp framePai) {
+        this.framePai = framePai;
+        initComponents();
+    }
+
+    private void initComponents() {
+        setTitle("Busca Avançada");
+        setSize(420, 360);
+        setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        setLayout(new BorderLayout(10, 10));
+
+        JPanel painelCampos = new JPanel(new GridLayout(7, 2, 10, 10));
+        painelCampos.setBorder(BorderFactory.createEmptyBorder(10, 10, 0, 10));
+
+        campoTitulo = adicionarCampo(painelCampos, "Título contém:");
+        campoAutor = adicionarCampo(painelCampos, "Autor contém:");
+        campoEditora = adicionarCampo(painelCampos, "Editora contém:");
+        campoIsbn = adicionarCampo(painelCampos, "ISBN:");
+        campoAnoInicial = adicionarCampo(painelCampos, "Publicado a partir de (ano):");
+        campoAnoFinal = adicionarCampo(painelCampos, "Publicado até (ano):");
+        campoEdicoesMinimas = adicionarCampo(painelCampos, "Mínimo de edições:");
+
+        JButton botaoBuscar = new JButton("Buscar");
+        botaoBuscar.addActionListener(e -> buscar());
+        getRootPane().setDefaultButton(botaoBuscar);
+
+        JButton botaoLimpar = new JButton("Limpar");
+        botaoLimpar.addActionListener(e -> limpar());
+
+        JButton botaoFechar = new JButton("Fechar");
+        botaoFechar.addActionListener(e -> dispose());
+
+        JPanel painelBotoes = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        painelBotoes.setBorder(BorderFactory.createEmptyBorder(0, 10, 10, 10));
+        painelBotoes.add(botaoBuscar);
+        painelBotoes.add(botaoLimpar);
+        painelBotoes.add(botaoFechar);
+
+        add(painelCampos, BorderLayout.CENTER);
+        add(painelBotoes, BorderLayout.SOUTH);
+    }
+
+    private static JTextField adicionarCampo(JPanel painel, String rotulo) {
+        JTextField campo = new JTextField();
+        painel.add(new JLabel(rotulo));
+        painel.add(campo);
+        return campo;
+    }
+
+    private void buscar() {
+        CriteriosBusca criterios = new CriteriosBusca()
+                .titulo(campoTitulo.getText())
+                .autor(campoAutor.getText())
+                .editora(campoEditora.getText());
+
+        String isbn = campoIsbn.getText().trim();
+        if (!isbn.isEmpty()) {
+            if (!Isbn.valido(isbn)) {
+                erroValidacao(campoIsbn,
+                        "ISBN inválido. Deve ter 10 ou 13 dígitos no formato correto e dígito verificador válido.");
+                return;
+            }
+            criterios.isbn(Isbn.canonizar(isbn));
+        }
+
+        Integer anoInicial;
+        Integer anoFinal;
+        Integer edicoesMinimas;
+        JTextField campoLido = campoAnoInicial;
+        try {
+            anoInicial = lerNumero(campoLido);
+            campoLido = campoAnoFinal;
+            anoFinal = lerNumero(campoLido);
+            campoLido = campoEdicoesMinimas;
+            edicoesMinimas = lerNumero(campoLido);
+        } catch (NumberFormatException e) {
+            erroValidacao(campoLido, "Use um número inteiro entre 0 e 9999 nos campos de ano e edições");
+            return;
+        }
+        if (anoInicial != null && anoFinal != null && anoInicial > anoFinal) {
+            erroValidacao(campoAnoFinal, "O ano final deve ser igual ou posterior ao inicial");
+            return;
+        }
+
+        criterios.periodo(anoInicial != null ? LocalDate.of(anoInicial, 1, 1) : null,
+                        anoFinal != null ? LocalDate.of(anoFinal, 12, 31) : null)
+                .edicoesMinimas(edicoesMinimas);
+        framePai.buscarAvancado(criterios);
+    }
+
+    /**
+     * Número do campo, entre 0 e 9999; null se vazio.
+     *
+     * @throws NumberFormatException se não for um número nessa faixa
+     */
+    private static Integer lerNumero(JTextField campo) {
+        String texto = campo.getText().trim();
+        if (texto.isEmpty()) {
+            return null;
+        }
+        int numero = Integer.parseInt(texto);
+        if (numero < 0 || numero > 9999) {
+            throw new NumberFormatException(texto);
+        }
+        return numero;
+    }
+
+    private void erroValidacao(JTextField campo, String mensagem) {
+        JOptionPane.showMessageDialog(this, mensagem, "Erro de Validação", JOptionPane.ERROR_MESSAGE);
+        campo.requestFocus();
+    }
+
+    private void limpar() {
+        for (JTextField campo : new JTextField[]{campoTitulo, campoAutor, campoEditora, campoIsbn,
+                campoAnoInicial, campoAnoFinal, campoEdicoesMinimas}) {
+            campo.setText("");
+        }
+        framePai.buscarAvancado(new CriteriosBusca());
+    }
+}
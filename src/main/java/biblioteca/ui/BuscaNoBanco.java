@@ -0,0 +1,82 @@
+package biblioteca.ui;
+
+import biblioteca.model.LivroResumo;
+import biblioteca.repository.Cancelamento;
+import biblioteca.repository.LivroRepository;
+
+import javax.swing.*;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * Busca por campo no banco para a busca enquanto se digita: os livros são entregues à tela em
+ * blocos, conforme chegam do cursor, até o limite. Uma busca desatualizada é cancelada no próprio
+ * banco (Cancelamento), não só ignorada.
+ */
+public class BuscaNoBanco extends SwingWorker<Integer, LivroResumo> {
+    private final LivroRepository repository;
+    private final String campo;
+    private final String valor;
+    private final int limite;
+    private final Consumer<List<LivroResumo>> aoReceber;
+    private final Consumer<Integer> aoConcluir;
+    private final Consumer<Exception> aoFalhar;
+    private final Cancelamento cancelamento = new Cancelamento();
+
+    public BuscaNoBanco(LivroRepository repository, String campo, String valor, int limite,
+                        Consumer<List<LivroResumo>> aoReceber, Consumer<Integer> aoConcluir,
+                        Consumer<Exception> aoFalhar) {
+        this.repository = repository;
+        this.campo = campo;
+        this.valor = valor;
+        this.limite = limite;
+        this.aoReceber = aoReceber;
+        this.aoConcluir = aoConcluir;
+        this.aoFalhar = aoFalhar;
+    }
+
+    public void agendar() {
+        TarefaBanco.agendarNoExecutor(this);
+    }
+
+    /**
+     * Interrompe a consulta no banco; os retornos não são mais chamados.
+     */
+    public void cancelar() {
+        cancelamento.cancelar();
+        cancel(false);
+    }
+
+    @Override
+    protected Integer doInBackground() {
+        return repository.percorrerResumosPorCampo(campo, valor, limite, cancelamento, this::publish);
+    }
+
+    @Override
+    protected void process(List<LivroResumo> livros) {
+        if (!isCancelled()) {
+            aoReceber.accept(livros);
+        }
+    }
+
+    @Override
+    protected void done() {
+        if (isCancelled()) {
+            return;
+        }
+        Integer total;
+        try {
+            total = get();
+        } catch (CancellationException | InterruptedException e) {
+            return;
+        } catch (ExecutionException e) {
+            if (!(e.getCause() instanceof CancellationException)) {
+                aoFalhar.accept(e.getCause() instanceof Exception ? (Exception) e.getCause() : e);
+            }
+            return;
+        }
+        aoConcluir.accept(total);
+    }
+}
@@ -0,0 +1,216 @@
+package biblioteca.ui;
+
+import biblioteca.service.CapaService;
+
+import javax.imageio.ImageIO;
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+
+/**
+ * Miniaturas das capas para a tela: imagens já decodificadas e reduzidas à altura pedida, num LRU
+ * limitado pelos bytes das imagens (-Dbiblioteca.capas.memoriaMb, padrão 32). O que não está em
+ * memória é lido pelo CapaService (disco ou rede) em CONCORRENCIA threads.
+ *
+ * Só é pedido o que alguém vai desenhar (ex.: o renderer da tabela, chamado só para as linhas
+ * visíveis). Os pedidos são atendidos do mais recente para o mais antigo, e passados MAX_PEDIDOS
+ * os mais antigos são descartados: numa rolagem rápida, as linhas que já saíram da tela não
+ * atrasam as que estão nela. Quem pediu é avisado na thread do Swing e pede de novo.
+ *
+ * Só a falta de capa (404) fica guardada. Um erro de rede ou de disco não é guardado: a capa volta
+ * a ser pedida no próximo desenho depois de ESPERA_APOS_FALHA.
+ *
+ * Métodos públicos devem ser chamados na thread do Swing.
+ */
+public class CacheCapas {
+    private static final int CONCORRENCIA = Integer.getInteger("biblioteca.capas.concorrencia", 4);
+    private static final long LIMITE_BYTES = Long.getLong("biblioteca.capas.memoriaMb", 32) * 1024 * 1024;
+    private static final int MAX_PEDIDOS = 100;
+    // Ocupa uma entrada no LRU para não pedir de novo a capa de quem não tem
+    private static final ImageIcon SEM_CAPA = new ImageIcon();
+    private static final long BYTES_SEM_CAPA = 64;
+    private static final long ESPERA_APOS_FALHA_MS = 30_000;
+
+    private static final CacheCapas INSTANCIA = new CacheCapas(CONCORRENCIA, LIMITE_BYTES);
+
+    static final class Chave {
+        final long isbn;
+        final int altura;
+
+        Chave(long isbn, int altura) {
+            this.isbn = isbn;
+            this.altura = altura;
+        }
+
+        @Override
+        public boolean equals(Object outro) {
+            return outro instanceof Chave && ((Chave) outro).isbn == isbn && ((Chave) outro).altura == altura;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(isbn, altura);
+        }
+    }
+
+    // Ordem de acesso: a miniatura menos usada sai primeiro
+    private final LinkedHashMap<Chave, ImageIcon> miniaturas = new LinkedHashMap<>(256, 0.75f, true);
+    private final long limiteBytes;
+    private long bytesEmUso;
+    // Pedidos ainda não atendidos e quem avisar quando chegarem
+    private final Map<Chave, List<Runnable>> pendentes = new HashMap<>();
+    private final BlockingDeque<Chave> pedidos = new LinkedBlockingDeque<>();
+    // Capas cuja leitura falhou e o instante (ms) a partir do qual podem ser pedidas de novo
+    private final Map<Chave, Long> falhas = new HashMap<>();
+
+    CacheCapas(int concorrencia, long limiteBytes) {
+        this.limiteBytes = limiteBytes;
+        if (!CapaService.isAtivo()) {
+            return;
+        }
+        for (int i = 1; i <= concorrencia; i++) {
+            Thread thread = new Thread(this::atenderPedidos, "capas-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    public static CacheCapas getInstancia() {
+        return INSTANCIA;
+    }
+
+    /**
+     * Miniatura da capa com a altura indicada, se já estiver em memória. Senão, pede a capa e
+     * devolve null; aoCarregar roda na thread do Swing quando ela chegar.
+     *
+     * @param isbn ISBN-13 canônico
+     * @return null se ainda não carregada ou se o livro não tem capa
+     */
+    public ImageIcon obter(long isbn, int altura, Runnable aoCarregar) {
+        Chave chave = new Chave(isbn, altura);
+        ImageIcon miniatura = miniaturas.get(chave);
+        if (miniatura != null) {
+            return miniatura == SEM_CAPA ? null : miniatura;
+        }
+        if (!CapaService.isAtivo()) {
+            return null;
+        }
+        Long novaTentativa = falhas.get(chave);
+        if (novaTentativa != null) {
+            if (System.currentTimeMillis() < novaTentativa) {
+                return null;
+            }
+            falhas.remove(chave);
+        }
+
+        List<Runnable> avisos = pendentes.get(chave);
+        if (avisos != null) {
+            if (!avisos.contains(aoCarregar)) {
+                avisos.add(aoCarregar);
+            }
+            return null;
+        }
+
+        avisos = new ArrayList<>();
+        avisos.add(aoCarregar);
+        pendentes.put(chave, avisos);
+        pedidos.offerFirst(chave);
+        while (pedidos.size() > MAX_PEDIDOS) {
+            Chave descartada = pedidos.pollLast();
+            if (descartada != null) {
+                pendentes.remove(descartada);
+            }
+        }
+        return null;
+    }
+
+    private void atenderPedidos() {
+        while (true) {
+            Chave chave;
+            try {
+                chave = pedidos.takeFirst();
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            ImageIcon miniatura;
+            try {
+                byte[] imagem = CapaService.obterImagem(chave.isbn);
+                BufferedImage original = imagem != null ? ImageIO.read(new ByteArrayInputStream(imagem)) : null;
+                miniatura = original != null ? new ImageIcon(reduzir(original, chave.altura)) : SEM_CAPA;
+            } catch (IOException | RuntimeException e) {
+                // Provavelmente passageiro (rede fora, timeout, 5xx): não vai para o LRU
+                System.err.println("Erro ao carregar capa " + chave.isbn + ": " + e.getMessage());
+                SwingUtilities.invokeLater(() -> falhou(chave));
+                continue;
+            }
+
+            ImageIcon carregada = miniatura;
+            SwingUtilities.invokeLater(() -> receber(chave, carregada));
+        }
+    }
+
+    void receber(Chave chave, ImageIcon miniatura) {
+        ImageIcon anterior = miniaturas.put(chave, miniatura);
+        if (anterior != null) {
+            bytesEmUso -= bytes(anterior);
+        }
+        bytesEmUso += bytes(miniatura);
+        Iterator<ImageIcon> maisAntigas = miniaturas.values().iterator();
+        while (bytesEmUso > limiteBytes && maisAntigas.hasNext()) {
+            bytesEmUso -= bytes(maisAntigas.next());
+            maisAntigas.remove();
+        }
+
+        List<Runnable> avisos = pendentes.remove(chave);
+        if (avisos != null) {
+            avisos.forEach(Runnable::run);
+        }
+    }
+
+    /**
+     * Descarta o pedido sem avisar quem pediu: avisar faria a tabela pedir de novo na hora. A capa é
+     * pedida outra vez no primeiro desenho depois da espera.
+     */
+    private void falhou(Chave chave) {
+        long agora = System.currentTimeMillis();
+        falhas.values().removeIf(instante -> instante <= agora);
+        falhas.put(chave, agora + ESPERA_APOS_FALHA_MS);
+        pendentes.remove(chave);
+    }
+
+    private static long bytes(ImageIcon miniatura) {
+        return miniatura == SEM_CAPA ? BYTES_SEM_CAPA : 4L * miniatura.getIconWidth() * miniatura.getIconHeight();
+    }
+
+    /**
+     * Reduz à altura pedida, mantendo a proporção. Reduções grandes são feitas pela metade a cada
+     * passo: a interpolação bilinear direta de 180 para 40 px serrilha o desenho.
+     */
+    private static BufferedImage reduzir(BufferedImage original, int altura) {
+        BufferedImage atual = original;
+        int alturaAtual = original.getHeight();
+        do {
+            alturaAtual = Math.max(altura, alturaAtual / 2);
+            int largura = Math.max(1, (int) ((long) original.getWidth() * alturaAtual / original.getHeight()));
+            BufferedImage reduzida = new BufferedImage(largura, alturaAtual, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = reduzida.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.drawImage(atual, 0, 0, largura, alturaAtual, null);
+            g.dispose();
+            atual = reduzida;
+        } while (alturaAtual > altura);
+        return atual;
+    }
+}
@@ -0,0 +1,312 @@
+package biblioteca.ui;
+
+import biblioteca.model.LivroResumo;
+import biblioteca.service.CadastroLoteService;
+import biblioteca.service.CadastroLoteService.Item;
+import biblioteca.service.CadastroLoteService.Situacao;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tela de cadastro em lote: o usuário cola (ou carrega de um arquivo) uma lista de ISBNs e o
+ * CadastroLoteService consulta e grava todos, enquanto a tabela mostra a situação de cada um.
+ * Os livros gravados entram na tabela principal a cada lote.
+ */
+public class CadastroLote extends JFrame {
+    private final BibliotecaApp framePai;
+
+    private JTextArea areaIsbns;
+    private JButton botaoCarregar;
+    private JButton botaoCadastrar;
+    private JButton botaoCancelar;
+    private JProgressBar barraProgresso;
+    private JLabel labelResumo;
+    private final ModeloItens modeloItens = new ModeloItens();
+
+    private CadastroLoteService cadastroEmAndamento;
+    private boolean cancelando;
+
+    public CadastroLote(BibliotecaApp framePai) {
+        this.framePai = framePai;
+        initComponents();
+    }
+
+    private void initComponents() {
+        setTitle("Cadastro em Lote por ISBN");
+        setSize(760, 560);
+        setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        setLayout(new BorderLayout(10, 10));
+
+        JPanel painelEntrada = new JPanel(new BorderLayout(5, 5));
+        painelEntrada.setBorder(BorderFactory.createEmptyBorder(10, 10, 0, 10));
+        painelEntrada.add(new JLabel("ISBNs (um por linha, ou separados por espaço, vírgula ou ponto e vírgula):"),
+                BorderLayout.NORTH);
+
+        areaIsbns = new JTextArea(6, 40);
+        painelEntrada.add(new JScrollPane(areaIsbns), BorderLayout.CENTER);
+
+        botaoCarregar = new JButton("Carregar Arquivo");
+        botaoCarregar.addActionListener(e -> carregarArquivo());
+        JPanel painelCarregar = new JPanel(new FlowLayout(FlowLayout.LEFT, 0, 0));
+        painelCarregar.add(botaoCarregar);
+        painelEntrada.add(painelCarregar, BorderLayout.SOUTH);
+
+        JTable tabelaItens = new JTable(modeloItens);
+        tabelaItens.getColumnModel().getColumn(0).setMaxWidth(60);
+        tabelaItens.getColumnModel().getColumn(1).setPreferredWidth(130);
+        tabelaItens.getColumnModel().getColumn(2).setPreferredWidth(110);
+        tabelaItens.getColumnModel().getColumn(3).setPreferredWidth(400);
+
+        barraProgresso = new JProgressBar();
+        barraProgresso.setStringPainted(true);
+        barraProgresso.setString("");
+        labelResumo = new JLabel(" ");
+
+        JPanel painelProgresso = new JPanel(new BorderLayout(5, 5));
+        painelProgresso.add(barraProgresso, BorderLayout.NORTH);
+        painelProgresso.add(labelResumo, BorderLayout.SOUTH);
+
+        JPanel painelCentral = new JPanel(new BorderLayout(5, 5));
+        painelCentral.setBorder(BorderFactory.createEmptyBorder(0, 10, 0, 10));
+        painelCentral.add(new JScrollPane(tabelaItens), BorderLayout.CENTER);
+        painelCentral.add(painelProgresso, BorderLayout.SOUTH);
+
+        botaoCadastrar = new JButton("Cadastrar");
+        botaoCadastrar.addActionListener(e -> cadastrar());
+
+        botaoCancelar = new JButton("Cancelar");
+        botaoCancelar.setEnabled(false);
+        botaoCancelar.addActionListener(e -> cancelar());
+
+        JButton botaoFechar = new JButton("Fechar");
+        botaoFechar.addActionListener(e -> dispose());
+
+        JPanel painelBotoes = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        painelBotoes.setBorder(BorderFactory.createEmptyBorder(0, 10, 10, 10));
+        painelBotoes.add(botaoCadastrar);
+        painelBotoes.add(botaoCancelar);
+        painelBotoes.add(botaoFechar);
+
+        add(painelEntrada, BorderLayout.NORTH);
+        add(painelCentral, BorderLayout.CENTER);
+        add(painelBotoes, BorderLayout.SOUTH);
+    }
+
+    private void carregarArquivo() {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Selecione a lista de ISBNs");
+        if (fileChooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+
+        File arquivo = fileChooser.getSelectedFile();
+        try {
+            areaIsbns.setText(new String(Files.readAllBytes(arquivo.toPath()), StandardCharsets.UTF_8));
+            areaIsbns.setCaretPosition(0);
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this,
+                    "Erro ao ler o arquivo: " + e.getMessage(),
+                    "Erro",
+                    JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    /**
+     * Roda o CadastroLoteService num SwingWorker. O serviço avisa cada mudança de situação da
+     * thread em que ela acontece; a tela só aplica na thread do Swing.
+     */
+    private void cadastrar() {
+        List<Item> itens = CadastroLoteService.lerLista(areaIsbns.getText());
+        if (itens.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "Por favor, informe ao menos um ISBN.");
+            return;
+        }
+
+        CadastroLoteService service = new CadastroLoteService();
+        cadastroEmAndamento = service;
+        modeloItens.exibir(itens);
+        setEmAndamento(true);
+
+        CadastroLoteService.Ouvinte ouvinte = new CadastroLoteService.Ouvinte() {
+            @Override
+            public void situacaoAlterada(Item item) {
+                SwingUtilities.invokeLater(() -> modeloItens.itemAlterado(item));
+            }
+
+            @Override
+            public void livrosGravados(List<LivroResumo> livros) {
+                SwingUtilities.invokeLater(() -> framePai.resumosGravados(livros));
+            }
+        };
+
+        new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() {
+                service.cadastrar(itens, ouvinte);
+                return null;
+            }
+
+            @Override
+            protected void done() {
+                if (cadastroEmAndamento == service) {
+                    cadastroEmAndamento = null;
+                }
+                if (!isDisplayable()) {
+                    return;
+                }
+                setEmAndamento(false);
+                atualizarProgresso();
+                try {
+                    get();
+                } catch (Exception e) {
+                    Throwable causa = e.getCause() != null ? e.getCause() : e;
+                    JOptionPane.showMessageDialog(CadastroLote.this,
+                            "O cadastro em lote falhou: " + causa.getMessage(),
+                            "Erro",
+                            JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
+    }
+
+    private void cancelar() {
+        if (cadastroEmAndamento != null) {
+            cadastroEmAndamento.cancelar();
+            cancelando = true;
+            botaoCancelar.setEnabled(false);
+            atualizarProgresso();
+        }
+    }
+
+    private void setEmAndamento(boolean emAndamento) {
+        cancelando = false;
+        areaIsbns.setEditable(!emAndamento);
+        botaoCarregar.setEnabled(!emAndamento);
+        botaoCadastrar.setEnabled(!emAndamento);
+        botaoCancelar.setEnabled(emAndamento);
+    }
+
+    private void atualizarProgresso() {
+        int total = modeloItens.getRowCount();
+        int concluidos = modeloItens.contarConcluidos();
+        barraProgresso.setMaximum(Math.max(total, 1));
+        barraProgresso.setValue(concluidos);
+        barraProgresso.setString(cancelando ? "Cancelando..." : concluidos + " de " + total + " concluídos");
+        labelResumo.setText(modeloItens.resumo());
+    }
+
+    /**
+     * Uma tela fechada no meio do cadastro o cancela; o que já foi gravado continua gravado.
+     */
+    @Override
+    public void dispose() {
+        if (cadastroEmAndamento != null) {
+            cadastroEmAndamento.cancelar();
+        }
+        super.dispose();
+    }
+
+    /**
+     * Itens do cadastro, com a contagem por situação mantida a cada alteração, sem percorrer a
+     * lista inteira a cada aviso do serviço.
+     */
+    private class ModeloItens extends AbstractTableModel {
+        private final String[] colunas = {"#", "ISBN", "Situação", "Detalhe"};
+
+        private List<Item> itens = new ArrayList<>();
+        // Situação já aplicada à tabela e às contagens, por linha
+        private Situacao[] exibidas = new Situacao[0];
+        private final Map<Situacao, Integer> contagens = new EnumMap<>(Situacao.class);
+
+        void exibir(List<Item> novos) {
+            itens = novos;
+            exibidas = new Situacao[novos.size()];
+            contagens.clear();
+            for (Item item : novos) {
+                exibidas[item.getIndice()] = item.getSituacao();
+                contagens.merge(item.getSituacao(), 1, Integer::sum);
+            }
+            fireTableDataChanged();
+            atualizarProgresso();
+        }
+
+        void itemAlterado(Item item) {
+            int linha = item.getIndice();
+            if (linha >= itens.size() || itens.get(linha) != item) {
+                return;
+            }
+            Situacao nova = item.getSituacao();
+            contagens.merge(exibidas[linha], -1, Integer::sum);
+            contagens.merge(nova, 1, Integer::sum);
+            exibidas[linha] = nova;
+            fireTableRowsUpdated(linha, linha);
+            atualizarProgresso();
+        }
+
+        int contarConcluidos() {
+            int concluidos = 0;
+            for (Map.Entry<Situacao, Integer> contagem : contagens.entrySet()) {
+                if (contagem.getKey().isConcluida()) {
+                    concluidos += contagem.getValue();
+                }
+            }
+            return concluidos;
+        }
+
+        /**
+         * Ex.: "Cadastrado: 120 · Já cadastrado: 8 · Não encontrado: 3".
+         */
+        String resumo() {
+            List<String> partes = new ArrayList<>();
+            for (Map.Entry<Situacao, Integer> contagem : contagens.entrySet()) {
+                Situacao situacao = contagem.getKey();
+                if (situacao.isConcluida() && contagem.getValue() > 0) {
+                    partes.add(situacao.getDescricao() + ": " + contagem.getValue());
+                }
+            }
+            return partes.isEmpty() ? " " : String.join(" · ", partes);
+        }
+
+        @Override
+        public int getRowCount() {
+            return itens.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return colunas.length;
+        }
+
+        @Override
+        public String getColumnName(int coluna) {
+            return colunas[coluna];
+        }
+
+        @Override
+        public Object getValueAt(int linha, int coluna) {
+            Item item = itens.get(linha);
+            switch (coluna) {
+                case 0:
+                    return linha + 1;
+                case 1:
+                    return item.getInformado();
+                case 2:
+                    return exibidas[linha].getDescricao();
+                case 3:
+                    return item.getDetalhe();
+                default:
+                    return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package biblioteca.ui;
+
+import biblioteca.model.EstatisticaCatalogo;
+import biblioteca.model.EstatisticaCatalogo.Dimensao;
+import biblioteca.service.LivroService;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tela de estatísticas do catálogo. Lê as contagens já agregadas pelo banco
+ * (estatisticas_catalogo), então abrir ou atualizar não depende do tamanho do catálogo.
+ */
+public class Estatisticas extends JFrame {
+    // Linhas exibidas por aba
+    private static final int LIMITE = 100;
+
+    private final LivroService livroService;
+    private final Map<Dimensao, DefaultTableModel> modelos = new EnumMap<>(Dimensao.class);
+    private JLabel labelTotal;
+    private JButton botaoAtualizar;
+
+    public Estatisticas() {
+        this.livroService = new LivroService();
+        initComponents();
+        atualizar();
+    }
+
+    private void initComponents() {
+        setTitle("Estatísticas do Catálogo");
+        setSize(500, 450);
+        setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        setLayout(new BorderLayout(10, 10));
+
+        labelTotal = new JLabel("Total de livros: ...");
+        labelTotal.setBorder(BorderFactory.createEmptyBorder(10, 10, 0, 10));
+
+        JTabbedPane abas = new JTabbedPane();
+        adicionarAba(abas, Dimensao.EDITORA, "Editoras", "Editora");
+        adicionarAba(abas, Dimensao.AUTOR, "Autores", "Autor");
+        adicionarAba(abas, Dimensao.ANO, "Anos", "Ano de publicação");
+        adicionarAba(abas, Dimensao.FAIXA_EDICOES, "Edições", "Livros semelhantes (edições)");
+
+        botaoAtualizar = new JButton("Atualizar");
+        botaoAtualizar.addActionListener(e -> atualizar());
+        JPanel painelBotoes = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        painelBotoes.add(botaoAtualizar);
+
+        add(labelTotal, BorderLayout.NORTH);
+        add(abas, BorderLayout.CENTER);
+        add(painelBotoes, BorderLayout.SOUTH);
+    }
+
+    private void adicionarAba(JTabbedPane abas, Dimensao dimensao, String titulo, String coluna) {
+        DefaultTableModel modelo = new DefaultTableModel(new String[]{coluna, "Livros"}, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        modelos.put(dimensao, modelo);
+        abas.addTab(titulo, new JScrollPane(new JTable(modelo)));
+    }
+
+    /**
+     * Consulta as contagens em segundo plano e preenche as abas ao terminar.
+     */
+    private void atualizar() {
+        botaoAtualizar.setEnabled(false);
+
+        new SwingWorker<Map<Dimensao, List<EstatisticaCatalogo>>, Void>() {
+            private long total;
+
+            @Override
+            protected Map<Dimensao, List<EstatisticaCatalogo>> doInBackground() {
+                total = livroService.contarLivros();
+                Map<Dimensao, List<EstatisticaCatalogo>> resultado = new EnumMap<>(Dimensao.class);
+                for (Dimensao dimensao : Dimensao.values()) {
+                    resultado.put(dimensao, livroService.listarEstatisticas(dimensao, LIMITE));
+                }
+                return resultado;
+            }
+
+            @Override
+            protected void done() {
+                botaoAtualizar.setEnabled(true);
+                try {
+                    Map<Dimensao, List<EstatisticaCatalogo>> resultado = get();
+                    labelTotal.setText("Total de livros: " + total);
+                    resultado.forEach((dimensao, estatisticas) -> {
+                        DefaultTableModel modelo = modelos.get(dimensao);
+                        modelo.setRowCount(0);
+                        for (EstatisticaCatalogo estatistica : estatisticas) {
+                            modelo.addRow(new Object[]{estatistica.getRotulo(), estatistica.getQuantidade()});
+                        }
+                    });
+                } catch (Exception e) {
+                    JOptionPane.showMessageDialog(Estatisticas.this,
+                            "Erro ao carregar estatísticas: " + e.getMessage(),
+                            "Erro",
+                            JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
+    }
+}
@@ -18,7 +18,7 @@ import java.util.Date;
 public class Importacao extends JFrame {
     private BibliotecaApp framePai;
     private ImportacaoService importacaoService;
-    private JTextArea logArea;
+    private PainelLog painelLog;
     private JButton botaoSelecionar;
     private JButton botaoImportar;
     private JTextField campoArquivo;
@@ -55,26 +55,27 @@ public class Importacao extends JFrame {
         painelCentral.setBorder(BorderFactory.createEmptyBorder(0, 10, 10, 10));
 
         // Área de Log
-        logArea = new JTextArea();
-        logArea.setEditable(false);
-        logArea.setLineWrap(true);
-        logArea.setWrapStyleWord(true);
-        logArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        painelLog = new PainelLog();
         adicionarInstrucoesLog();
 
-        JScrollPane scrollPane = new JScrollPane(logArea);
-
         JPanel painelOpcoes = new JPanel(new FlowLayout(FlowLayout.LEFT));
         checkboxLogDetalhado = new JCheckBox("Log detalhado", true);
         painelOpcoes.add(checkboxLogDetalhado);
 
+        // Filtro só da exibição; a exportação leva todas as mensagens
+        JComboBox<String> comboSeveridade = new JComboBox<>(new String[]{"Todas as mensagens", "Avisos e erros", "Só erros"});
+        comboSeveridade.addActionListener(e -> painelLog.setSeveridadeMinima(
+                PainelLog.Severidade.values()[comboSeveridade.getSelectedIndex()]));
+        painelOpcoes.add(new JLabel("Exibir:"));
+        painelOpcoes.add(comboSeveridade);
+
         barraProgresso = new JProgressBar();
         barraProgresso.setIndeterminate(true);
         barraProgresso.setVisible(false);
         barraProgresso.setStringPainted(true);
         barraProgresso.setString("Importando...");
 
-        painelCentral.add(scrollPane, BorderLayout.CENTER);
+        painelCentral.add(painelLog, BorderLayout.CENTER);
         painelCentral.add(painelOpcoes, BorderLayout.NORTH);
         painelCentral.add(barraProgresso, BorderLayout.SOUTH);
 
@@ -88,11 +89,15 @@ public class Importacao extends JFrame {
         JButton botaoLimparLog = new JButton("Limpar Log");
         botaoLimparLog.addActionListener(e -> limparLog());
 
+        JButton botaoExportarLog = new JButton("Exportar Log");
+        botaoExportarLog.addActionListener(e -> exportarLog());
+
         JButton botaoFechar = new JButton("Fechar");
         botaoFechar.addActionListener(e -> dispose());
 
         painelBotoes.add(botaoImportar);
         painelBotoes.add(botaoLimparLog);
+        painelBotoes.add(botaoExportarLog);
         painelBotoes.add(botaoFechar);
 
         add(painelSelecao, BorderLayout.NORTH);
@@ -103,18 +108,18 @@ public class Importacao extends JFrame {
     }
 
     private void adicionarInstrucoesLog() {
-        logArea.append("[" + getCurrentTime() + "] Instruções para importação de CSV:\n");
-        logArea.append("1. O arquivo CSV deve ter cabeçalho com os nomes das colunas.\n");
-        logArea.append("2. Colunas obrigatórias: 'titulo' e 'autores'.\n");
-        logArea.append("3. Colunas opcionais: 'isbn', 'editora', 'data_publicacao'.\n");
-        logArea.append("4. Se o ISBN já existir, o livro será atualizado se houver diferenças.\n");
-        logArea.append("5. Livros sem ISBN serão verificados por título e autor para evitar duplicações.\n");
-        logArea.append("6. ISBNs duplicados no arquivo: apenas o primeiro será processado.\n\n");
-        logArea.append("Exemplo de arquivo CSV:\n");
-        logArea.append("titulo,autores,isbn,editora,data_publicacao\n");
-        logArea.append("\"Vetores e Geometria Analitica\",\"Paulo Winterle\",\"9788574801711\",\"Pearson\",\"2009-03-01\"\n");
-        logArea.append("\"O Cortiço\",\"Aluísio Azevedo\",\"9788506055342\",\"Ática\",\"1890-01-01\"\n\n");
-        logArea.append("Selecione um arquivo CSV e clique em 'Importar'.\n\n");
+        painelLog.adicionar("[" + getCurrentTime() + "] Instruções para importação de CSV:");
+        painelLog.adicionar("1. O arquivo CSV deve ter cabeçalho com os nomes das colunas.");
+        painelLog.adicionar("2. Colunas obrigatórias: 'titulo' e 'autores'.");
+        painelLog.adicionar("3. Colunas opcionais: 'isbn', 'editora', 'data_publicacao'.");
+        painelLog.adicionar("4. Se o ISBN já existir, o livro será atualizado se houver diferenças.");
+        painelLog.adicionar("5. Livros sem ISBN serão verificados por título e autor para evitar duplicações.");
+        painelLog.adicionar("6. ISBNs duplicados no arquivo: apenas o primeiro será processado.\n");
+        painelLog.adicionar("Exemplo de arquivo CSV:");
+        painelLog.adicionar("titulo,autores,isbn,editora,data_publicacao");
+        painelLog.adicionar("\"Vetores e Geometria Analitica\",\"Paulo Winterle\",\"9788574801711\",\"Pearson\",\"2009-03-01\"");
+        painelLog.adicionar("\"O Cortiço\",\"Aluísio Azevedo\",\"9788506055342\",\"Ática\",\"1890-01-01\"\n");
+        painelLog.adicionar("Selecione um arquivo CSV e clique em 'Importar'.\n");
     }
 
     private String getCurrentTime() {
@@ -123,10 +128,30 @@ public class Importacao extends JFrame {
     }
 
     private void limparLog() {
-        logArea.setText("");
+        painelLog.limpar();
         adicionarInstrucoesLog();
     }
 
+    private void exportarLog() {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Exportar log da importação");
+        fileChooser.setSelectedFile(new File("importacao-log.txt"));
+        if (fileChooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+
+        File arquivo = fileChooser.getSelectedFile();
+        try {
+            painelLog.exportar(arquivo.toPath());
+            painelLog.adicionar("[" + getCurrentTime() + "] Log exportado para " + arquivo.getAbsolutePath());
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this,
+                    "Erro ao exportar o log: " + e.getMessage(),
+                    "Erro",
+                    JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
     private void selecionarArquivo() {
         JFileChooser fileChooser = new JFileChooser();
         fileChooser.setDialogTitle("Selecione o arquivo CSV");
@@ -136,7 +161,7 @@ public class Importacao extends JFrame {
         if (resultado == JFileChooser.APPROVE_OPTION) {
             File arquivo = fileChooser.getSelectedFile();
             campoArquivo.setText(arquivo.getAbsolutePath());
-            logArea.append("[" + getCurrentTime() + "] Arquivo selecionado: " + arquivo.getName() + "\n");
+            painelLog.adicionar("[" + getCurrentTime() + "] Arquivo selecionado: " + arquivo.getName());
         }
     }
 
@@ -170,30 +195,24 @@ public class Importacao extends JFrame {
         barraProgresso.setVisible(true);
 
         // Executa importação em thread separada para não travar a UI
-        SwingWorker<ImportacaoResultado, String> worker = new SwingWorker<>() {
+        // O PainelLog aceita mensagens de qualquer thread e as agrupa por quadro, então o worker
+        // escreve direto nele em vez de usar publish/process
+        SwingWorker<ImportacaoResultado, Void> worker = new SwingWorker<>() {
             @Override
             protected ImportacaoResultado doInBackground() throws Exception {
-                publish("[" + getCurrentTime() + "] Iniciando importação do arquivo: " + caminhoArquivo);
+                painelLog.adicionar("[" + getCurrentTime() + "] Iniciando importação do arquivo: " + caminhoArquivo);
 
                 try {
                     return importacaoService.importarCSV(caminhoArquivo);
                 } catch (IOException e) {
-                    publish("[" + getCurrentTime() + "] Erro ao ler arquivo: " + e.getMessage());
+                    painelLog.adicionar(PainelLog.Severidade.ERRO, "[" + getCurrentTime() + "] Erro ao ler arquivo: " + e.getMessage());
                     throw e;
                 } catch (CsvValidationException e) {
-                    publish("[" + getCurrentTime() + "] Erro no formato do CSV: " + e.getMessage());
+                    painelLog.adicionar(PainelLog.Severidade.ERRO, "[" + getCurrentTime() + "] Erro no formato do CSV: " + e.getMessage());
                     throw e;
                 }
             }
 
-            @Override
-            protected void process(java.util.List<String> chunks) {
-                for (String mensagem : chunks) {
-                    logArea.append(mensagem + "\n");
-                    logArea.setCaretPosition(logArea.getDocument().getLength());
-                }
-            }
-
             @Override
             protected void done() {
                 barraProgresso.setVisible(false);
@@ -201,28 +220,26 @@ public class Importacao extends JFrame {
 
                 try {
                     ImportacaoResultado resultado = get();
-                    logArea.append("\n[" + getCurrentTime() + "] " + resultado.toString() + "\n");
+                    painelLog.adicionar("\n[" + getCurrentTime() + "] " + resultado.toString());
 
                     if (resultado.erros > 0 && checkboxLogDetalhado.isSelected()) {
-                        logArea.append("\nDetalhes dos erros:\n");
+                        painelLog.adicionar(PainelLog.Severidade.ERRO, "\nDetalhes dos erros:");
                         int contador = 0;
                         for (String erro : resultado.getMensagensErro()) {
-                            logArea.append((++contador) + ". " + erro + "\n");
+                            painelLog.adicionar(PainelLog.Severidade.ERRO, (++contador) + ". " + erro);
                         }
                     }
 
                     if (resultado.avisos > 0 && checkboxLogDetalhado.isSelected()) {
-                        logArea.append("\nAvisos:\n");
+                        painelLog.adicionar(PainelLog.Severidade.AVISO, "\nAvisos:");
                         int contador = 0;
                         for (String aviso : resultado.getMensagensAviso()) {
-                            logArea.append((++contador) + ". " + aviso + "\n");
+                            painelLog.adicionar(PainelLog.Severidade.AVISO, (++contador) + ". " + aviso);
                         }
                     }
 
-                    logArea.setCaretPosition(logArea.getDocument().getLength());
-
                     if (framePai != null) {
-                        framePai.notificarMudanca();
+                        framePai.livrosGravados(resultado.getIdsGravados());
                     }
 
                     String mensagem = String.format("Importação concluída!\n- %d livros inseridos\n- %d livros atualizados\n- %d livros ignorados\n- %d erros\n- %d avisos",
@@ -239,7 +256,7 @@ public class Importacao extends JFrame {
                     JOptionPane.showMessageDialog(Importacao.this, mensagem, titulo, tipo);
 
                 } catch (Exception e) {
-                    logArea.append("\n[" + getCurrentTime() + "] A importação falhou: " + e.getMessage() + "\n");
+                    painelLog.adicionar(PainelLog.Severidade.ERRO, "\n[" + getCurrentTime() + "] A importação falhou: " + e.getMessage());
                     JOptionPane.showMessageDialog(Importacao.this,
                             "A importação falhou: " + e.getMessage(),
                             "Erro",
@@ -4,10 +4,16 @@ import biblioteca.model.Livro;
 import biblioteca.service.LivroService;
 import biblioteca.service.OpenLibraryService;
 import biblioteca.util.FormatacaoDatas;
+import biblioteca.util.Isbn;
+import com.google.gson.JsonObject;
 
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import java.awt.*;
 import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.regex.Pattern;
 
 /**
@@ -23,12 +29,27 @@ public class LivroCadastro extends JFrame {
     private JTextField campoIsbn;
     private JTextField campoEditora;
     private JTextField campoDataPublicacao;
+    private JButton botaoSalvar;
+    private JLabel labelStatusIsbn;
+    private JLabel labelCapa;
+    private boolean fechada;
+    // Chamado pelo CacheCapas quando uma capa pedida chega; a janela pode já ter sido fechada
+    private final Runnable repetirAtualizacaoCapa = () -> {
+        if (!fechada) {
+            atualizarCapa();
+        }
+    };
+    // Consulta à OpenLibrary do ISBN digitado; trocada quando o ISBN muda
+    private ConsultaIsbn consultaIsbn;
+    // Última consulta iniciada, cujas requisições podem ainda estar no executor
+    private ConsultaIsbn consultaEmAndamento;
+
+    // Altura da capa ao lado do formulário (tamanho M da OpenLibrary)
+    private static final int ALTURA_CAPA = 180;
 
     // Padrões para validação do lado do usuário
     private static final Pattern PATTERN_APENAS_SIMBOLOS = Pattern.compile("^[^a-zA-Z0-9]+$");
     private static final Pattern PATTERN_APENAS_NUMEROS = Pattern.compile("^[0-9]+$");
-    private static final Pattern PATTERN_ISBN_10 = Pattern.compile("^\\d{9}[\\dXx]$");
-    private static final Pattern PATTERN_ISBN_13 = Pattern.compile("^97[89]\\d{10}$");
 
     public LivroCadastro(BibliotecaApp framePai, Livro livro) {
         this.framePai = framePai;
@@ -40,41 +61,74 @@ public class LivroCadastro extends JFrame {
 
     private void initComponents() {
         setTitle(livro.getId() == null ? "Incluir Livro" : "Editar Livro");
-        setSize(400, 500);
+        setSize(560, 500);
         setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
-        setLayout(new GridLayout(6, 2, 10, 10));
+        setLayout(new BorderLayout(10, 10));
 
-        add(new JLabel("Título:"));
+        JPanel painelCampos = new JPanel(new GridLayout(7, 2, 10, 10));
+
+        painelCampos.add(new JLabel("Título:"));
         campoTitulo = new JTextField(livro.getTitulo() != null ? livro.getTitulo() : "");
-        add(campoTitulo);
+        painelCampos.add(campoTitulo);
 
-        add(new JLabel("Autores:"));
+        painelCampos.add(new JLabel("Autores:"));
         campoAutores = new JTextField(livro.getAutores() != null ? livro.getAutores() : "");
-        add(campoAutores);
+        painelCampos.add(campoAutores);
 
-        add(new JLabel("ISBN:"));
+        painelCampos.add(new JLabel("ISBN:"));
         campoIsbn = new JTextField(livro.getIsbn() != null ? livro.getIsbn() : "");
-        add(campoIsbn);
+        painelCampos.add(campoIsbn);
+        // Só depois do texto inicial, para abrir a edição de um livro não disparar consulta
+        campoIsbn.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                isbnAlterado();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                isbnAlterado();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                isbnAlterado();
+            }
+        });
 
-        add(new JLabel("Editora:"));
+        painelCampos.add(new JLabel("Editora:"));
         campoEditora = new JTextField(livro.getEditora() != null ? livro.getEditora() : "");
-        add(campoEditora);
+        painelCampos.add(campoEditora);
 
-        add(new JLabel("Data Publicação (DD/MM/AAAA ou AAAA):"));
+        painelCampos.add(new JLabel("Data Publicação (DD/MM/AAAA ou AAAA):"));
         campoDataPublicacao = new JTextField(
                 livro.getDataPublicacao() != null
                         ? FormatacaoDatas.formatarParaExibicao(livro.getDataPublicacao())
                         : ""
         );
-        add(campoDataPublicacao);
+        painelCampos.add(campoDataPublicacao);
 
         JButton botaoBuscarIsbn = new JButton("Buscar por ISBN");
         botaoBuscarIsbn.addActionListener(e -> buscarPorIsbn());
-        add(botaoBuscarIsbn);
+        painelCampos.add(botaoBuscarIsbn);
 
-        JButton botaoSalvar = new JButton("Salvar");
+        botaoSalvar = new JButton("Salvar");
         botaoSalvar.addActionListener(e -> salvarLivro());
-        add(botaoSalvar);
+        painelCampos.add(botaoSalvar);
+
+        // Andamento da consulta por ISBN, abaixo do botão de busca
+        labelStatusIsbn = new JLabel("");
+        painelCampos.add(labelStatusIsbn);
+
+        // Capa do ISBN do campo, ao lado do formulário
+        labelCapa = new JLabel("", SwingConstants.CENTER);
+        labelCapa.setVerticalAlignment(SwingConstants.TOP);
+        labelCapa.setPreferredSize(new Dimension(ALTURA_CAPA * 2 / 3 + 20, ALTURA_CAPA));
+        labelCapa.setBorder(BorderFactory.createEmptyBorder(10, 0, 0, 10));
+        atualizarCapa();
+
+        add(painelCampos, BorderLayout.CENTER);
+        add(labelCapa, BorderLayout.EAST);
     }
 
     private void buscarPorIsbn() {
@@ -84,40 +138,184 @@ public class LivroCadastro extends JFrame {
             return;
         }
 
-        isbn = isbn.replace("-", "").replace(" ", "");
-        if (!PATTERN_ISBN_10.matcher(isbn).matches() && !PATTERN_ISBN_13.matcher(isbn).matches()) {
+        isbn = Isbn.limpar(isbn);
+        if (!Isbn.valido(isbn)) {
             JOptionPane.showMessageDialog(this,
-                    "ISBN inválido. Deve ter 10 ou 13 dígitos no formato correto.",
+                    "ISBN inválido. Deve ter 10 ou 13 dígitos no formato correto e dígito verificador válido.",
                     "Erro de Validação",
                     JOptionPane.ERROR_MESSAGE);
             return;
         }
 
-        try {
-            var dadosLivro = OpenLibraryService.buscarInformacoesPorIsbn(isbn);
-            Livro livroEncontrado = OpenLibraryService.converterParaLivro(dadosLivro, isbn);
+        // Normalmente a consulta já foi iniciada enquanto o ISBN era digitado
+        ConsultaIsbn consulta = consultar(isbn);
+        if (!consulta.dados.isDone()) {
+            labelStatusIsbn.setText("Buscando...");
+        }
 
+        consulta.dados.whenComplete((dados, erro) -> SwingUtilities.invokeLater(() -> {
+            if (consulta != consultaIsbn) {
+                return;
+            }
+            if (erro != null) {
+                labelStatusIsbn.setText("");
+                Throwable causa = erro instanceof CompletionException && erro.getCause() != null ? erro.getCause() : erro;
+                JOptionPane.showMessageDialog(this,
+                        "Erro ao buscar livro: " + causa.getMessage(),
+                        "Erro", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+
+            Livro livroEncontrado = OpenLibraryService.converterSemEdicoes(dados, consulta.isbn);
             campoTitulo.setText(livroEncontrado.getTitulo());
             campoAutores.setText(livroEncontrado.getAutores());
             campoEditora.setText(livroEncontrado.getEditora());
-
             if (livroEncontrado.getDataPublicacao() != null) {
                 campoDataPublicacao.setText(
                         FormatacaoDatas.formatarParaExibicao(livroEncontrado.getDataPublicacao())
                 );
             }
+            labelStatusIsbn.setText(consulta.edicoes.isDone() ? "" : "Buscando edições...");
+        }));
+
+        // O número de edições vem de outra consulta, às vezes bem depois dos dados
+        consulta.edicoes.thenAccept(edicoes -> SwingUtilities.invokeLater(() -> {
+            // Com a gravação em andamento o livro não é mais alterado
+            if (consulta != consultaIsbn || !botaoSalvar.isEnabled()) {
+                return;
+            }
+            livro.setLivrosSemelhantes(edicoes);
+            if (consulta.dados.isDone() && !consulta.dados.isCompletedExceptionally()) {
+                labelStatusIsbn.setText("Edições: " + edicoes);
+            }
+        }));
+    }
 
-            livro.setLivrosSemelhantes(livroEncontrado.getLivrosSemelhantes());
+    /**
+     * Chamado a cada alteração do campo ISBN: descarta a consulta de um ISBN que não está mais
+     * no campo e já inicia a de um ISBN válido, antes do clique em "Buscar por ISBN".
+     */
+    private void isbnAlterado() {
+        String isbn = Isbn.limpar(campoIsbn.getText().trim());
+        if (consultaIsbn != null && !consultaIsbn.isbn.equals(isbn)) {
+            consultaIsbn.cancelar();
+            consultaIsbn = null;
+            labelStatusIsbn.setText("");
+        }
+        if (Isbn.valido(isbn)) {
+            consultar(isbn);
+        }
+        atualizarCapa();
+    }
 
-            JOptionPane.showMessageDialog(this,
-                    "Informações do livro obtidas com sucesso!\n" +
-                            "Título: " + livroEncontrado.getTitulo() + "\n",
-                    "Sucesso", JOptionPane.INFORMATION_MESSAGE);
+    /**
+     * Mostra a capa do ISBN do campo, vinda do CacheCapas. Se ela ainda não estiver em memória,
+     * é pedida e esta mesma verificação roda de novo quando chegar, contra o ISBN que estiver
+     * no campo nesse momento.
+     */
+    private void atualizarCapa() {
+        String isbn = Isbn.limpar(campoIsbn.getText().trim());
+        if (!Isbn.valido(isbn)) {
+            labelCapa.setIcon(null);
+            return;
+        }
+        labelCapa.setIcon(CacheCapas.getInstancia().obter(Isbn.canonizar(isbn), ALTURA_CAPA, repetirAtualizacaoCapa));
+    }
 
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this,
-                    "Erro ao buscar livro: " + e.getMessage(),
-                    "Erro", JOptionPane.ERROR_MESSAGE);
+    /**
+     * Consulta em andamento ou concluída do ISBN, ou uma nova. Uma consulta que falhou é refeita.
+     */
+    private ConsultaIsbn consultar(String isbn) {
+        if (consultaIsbn != null && consultaIsbn.isbn.equals(isbn) && !consultaIsbn.dados.isCompletedExceptionally()) {
+            return consultaIsbn;
+        }
+        if (consultaIsbn != null) {
+            consultaIsbn.cancelar();
+        }
+        consultaIsbn = new ConsultaIsbn(isbn);
+        iniciarQuandoLivre(consultaIsbn);
+        return consultaIsbn;
+    }
+
+    /**
+     * Uma consulta por janela ocupa o executor do serviço de cada vez: enquanto as requisições da
+     * anterior não terminam (uma interrompida pode levar até o prazo do cliente HTTP), a nova
+     * espera. Se o ISBN mudar de novo nesse meio tempo, só a última chega a sair.
+     */
+    private void iniciarQuandoLivre(ConsultaIsbn consulta) {
+        if (consultaEmAndamento == null || consultaEmAndamento.encerrada().isDone()) {
+            consultaEmAndamento = consulta;
+            consulta.iniciar();
+            return;
+        }
+        consultaEmAndamento.encerrada().thenRun(() -> SwingUtilities.invokeLater(() -> {
+            if (consulta == consultaIsbn && !consulta.isIniciada()) {
+                iniciarQuandoLivre(consulta);
+            }
+        }));
+    }
+
+    @Override
+    public void dispose() {
+        fechada = true;
+        if (consultaIsbn != null) {
+            consultaIsbn.cancelar();
+            consultaIsbn = null;
+        }
+        super.dispose();
+    }
+
+    /**
+     * Dados e número de edições de um ISBN, consultados em paralelo na OpenLibrary. Os resultados
+     * (dados, edicoes) existem desde a criação, mas as requisições só saem em iniciar(). Cancelar
+     * tira da fila do executor as que ainda não começaram e interrompe as que estão rodando.
+     */
+    private static class ConsultaIsbn {
+        final String isbn;
+        final CompletableFuture<JsonObject> dados = new CompletableFuture<>();
+        final CompletableFuture<Integer> edicoes = new CompletableFuture<>();
+        private OpenLibraryService.ConsultaCancelavel<JsonObject> requisicaoDados;
+        private OpenLibraryService.ConsultaCancelavel<Integer> requisicaoEdicoes;
+
+        ConsultaIsbn(String isbn) {
+            this.isbn = isbn;
+        }
+
+        void iniciar() {
+            requisicaoDados = OpenLibraryService.consultarInformacoes(isbn);
+            requisicaoEdicoes = OpenLibraryService.consultarEdicoes(isbn);
+            repassar(requisicaoDados.getResultado(), dados);
+            repassar(requisicaoEdicoes.getResultado(), edicoes);
+        }
+
+        boolean isIniciada() {
+            return requisicaoDados != null;
+        }
+
+        /**
+         * Concluída quando as duas requisições saíram do executor, mesmo canceladas.
+         */
+        CompletableFuture<Void> encerrada() {
+            return CompletableFuture.allOf(requisicaoDados.getEncerrada(), requisicaoEdicoes.getEncerrada());
+        }
+
+        void cancelar() {
+            dados.cancel(false);
+            edicoes.cancel(false);
+            if (isIniciada()) {
+                requisicaoDados.cancelar();
+                requisicaoEdicoes.cancelar();
+            }
+        }
+
+        private static <T> void repassar(CompletableFuture<T> origem, CompletableFuture<T> destino) {
+            origem.whenComplete((valor, erro) -> {
+                if (erro != null) {
+                    destino.completeExceptionally(erro);
+                } else {
+                    destino.complete(valor);
+                }
+            });
         }
     }
 
@@ -180,10 +378,9 @@ public class LivroCadastro extends JFrame {
 
         String isbn = campoIsbn.getText().trim();
         if (!isbn.isEmpty()) {
-            isbn = isbn.replace("-", "").replace(" ", "");
-            if (!PATTERN_ISBN_10.matcher(isbn).matches() && !PATTERN_ISBN_13.matcher(isbn).matches()) {
+            if (!Isbn.valido(isbn)) {
                 JOptionPane.showMessageDialog(this,
-                        "ISBN inválido. Deve ter 10 ou 13 dígitos no formato correto.",
+                        "ISBN inválido. Deve ter 10 ou 13 dígitos no formato correto e dígito verificador válido.",
                         "Erro de Validação",
                         JOptionPane.ERROR_MESSAGE);
                 campoIsbn.requestFocus();
@@ -248,14 +445,8 @@ public class LivroCadastro extends JFrame {
             livro.setTitulo(campoTitulo.getText().trim());
             livro.setAutores(campoAutores.getText().trim());
 
-            // Limpar/normalizar ISBN
-            String isbn = campoIsbn.getText().trim();
-            if (!isbn.isEmpty()) {
-                isbn = isbn.replace("-", "").replace(" ", "");
-            } else {
-                isbn = null;
-            }
-            livro.setIsbn(isbn);
+            // ISBN é guardado na forma canônica (ISBN-13)
+            livro.setIsbn(campoIsbn.getText().trim());
 
             livro.setEditora(campoEditora.getText().trim());
 
@@ -272,28 +463,38 @@ public class LivroCadastro extends JFrame {
                 livro.setDataPublicacao(null);
             }
 
-            try {
-                livroService.salvarLivro(livro);
-
+            // Gravação fora da thread do Swing; o botão fica desabilitado até a resposta
+            botaoSalvar.setEnabled(false);
+            setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+            TarefaBanco.executar(() -> livroService.salvarLivro(livro), salvo -> {
+                setCursor(Cursor.getDefaultCursor());
                 if (framePai != null) {
-                    framePai.notificarMudanca();
+                    framePai.livroGravado(salvo);
                 }
 
                 JOptionPane.showMessageDialog(this, "Livro salvo com sucesso!");
                 dispose();
-            } catch (RuntimeException e) {
-                if (e.getMessage().contains("mesmo título e autor")) {
+            }, e -> {
+                setCursor(Cursor.getDefaultCursor());
+                botaoSalvar.setEnabled(true);
+                String mensagem = e.getMessage() != null ? e.getMessage() : "";
+                if (mensagem.contains("mesmo título e autor")) {
                     JOptionPane.showMessageDialog(this,
                             "Não é permitido cadastrar livros com o mesmo título e autor.",
                             "Erro de Validação",
                             JOptionPane.ERROR_MESSAGE);
+                } else if (mensagem.contains("alterado ou excluído por outro usuário")) {
+                    JOptionPane.showMessageDialog(this,
+                            mensagem,
+                            "Conflito de Edição",
+                            JOptionPane.WARNING_MESSAGE);
                 } else {
                     JOptionPane.showMessageDialog(this,
-                            "Erro ao salvar: " + e.getMessage(),
+                            "Erro ao salvar: " + mensagem,
                             "Erro",
                             JOptionPane.ERROR_MESSAGE);
                 }
-            }
+            });
         } catch (Exception e) {
             JOptionPane.showMessageDialog(this, "Erro ao salvar: " + e.getMessage());
         }
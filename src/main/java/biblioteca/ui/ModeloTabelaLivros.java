@@ -0,0 +1,158 @@
+package biblioteca.ui;
+
+import biblioteca.model.CatalogoColunar;
+import biblioteca.model.LivroResumo;
+import biblioteca.util.FormatacaoDatas;
+import biblioteca.util.Isbn;
+
+import javax.swing.table.AbstractTableModel;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Modelo da tabela principal lendo direto do CatalogoColunar: nenhuma linha é copiada, os valores
+ * de cada célula visível são montados na hora a partir das colunas.
+ *
+ * Com um filtro (resultado de busca), exibe só os ids filtrados, em ordem de id.
+ */
+public class ModeloTabelaLivros extends AbstractTableModel {
+    // Também usadas pelo ModeloTabelaPaginada
+    static final String[] COLUNAS = {
+            "ID", "Título", "Autor", "ISBN", "Editora", "Data Publicação", "Livros Semelhantes(edições)", "Capa"
+    };
+    // ISBN-13 canônico (Long), desenhado pelo renderer da capa
+    static final int COLUNA_CAPA = 7;
+
+    private CatalogoColunar catalogo = new CatalogoColunar();
+    // Ids exibidos quando há busca ativa; null mostra o catálogo completo
+    private long[] filtro;
+
+    public void exibir(CatalogoColunar catalogo) {
+        this.catalogo = catalogo;
+        this.filtro = null;
+        fireTableDataChanged();
+    }
+
+    public void filtrar(long[] ids) {
+        this.filtro = ids;
+        fireTableDataChanged();
+    }
+
+    public void removerFiltro() {
+        if (filtro != null) {
+            filtro = null;
+            fireTableDataChanged();
+        }
+    }
+
+    public boolean isFiltrado() {
+        return filtro != null;
+    }
+
+    public CatalogoColunar getCatalogo() {
+        return catalogo;
+    }
+
+    public long getId(int linha) {
+        return filtro != null ? filtro[linha] : catalogo.getId(linha);
+    }
+
+    public Long getIsbn(int linha) {
+        return catalogo.getIsbn(filtro != null ? catalogo.indiceDe(filtro[linha]) : linha);
+    }
+
+    /**
+     * Atualiza a linha do livro ou, no catálogo completo, insere na posição do id.
+     * Resultados de busca não recebem livros novos: eles podem não atender ao filtro.
+     */
+    public void atualizarOuInserir(LivroResumo livro) {
+        int indice = catalogo.indiceDe(livro.getId());
+        if (indice >= 0) {
+            catalogo.atualizar(indice, livro);
+            int linha = filtro != null ? Arrays.binarySearch(filtro, livro.getId()) : indice;
+            if (linha >= 0) {
+                fireTableRowsUpdated(linha, linha);
+            }
+            return;
+        }
+
+        indice = -indice - 1;
+        catalogo.inserir(indice, livro);
+        if (filtro == null) {
+            fireTableRowsInserted(indice, indice);
+        }
+    }
+
+    public void remover(long id) {
+        int indice = catalogo.indiceDe(id);
+        if (indice < 0) {
+            return;
+        }
+        catalogo.remover(indice);
+
+        if (filtro == null) {
+            fireTableRowsDeleted(indice, indice);
+            return;
+        }
+
+        int linha = Arrays.binarySearch(filtro, id);
+        if (linha >= 0) {
+            long[] novo = new long[filtro.length - 1];
+            System.arraycopy(filtro, 0, novo, 0, linha);
+            System.arraycopy(filtro, linha + 1, novo, linha, filtro.length - linha - 1);
+            filtro = novo;
+            fireTableRowsDeleted(linha, linha);
+        }
+    }
+
+    @Override
+    public int getRowCount() {
+        return filtro != null ? filtro.length : catalogo.tamanho();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUNAS.length;
+    }
+
+    @Override
+    public String getColumnName(int coluna) {
+        return COLUNAS[coluna];
+    }
+
+    @Override
+    public boolean isCellEditable(int linha, int coluna) {
+        return false;
+    }
+
+    @Override
+    public Object getValueAt(int linha, int coluna) {
+        int indice = filtro != null ? catalogo.indiceDe(filtro[linha]) : linha;
+        if (indice < 0) {
+            return null;
+        }
+
+        switch (coluna) {
+            case 0:
+                return catalogo.getId(indice);
+            case 1:
+                return catalogo.getTitulo(indice);
+            case 2:
+                return catalogo.getAutores(indice);
+            case 3:
+                Long isbn = catalogo.getIsbn(indice);
+                return isbn != null ? Isbn.formatar(isbn) : null;
+            case 4:
+                return catalogo.getEditora(indice);
+            case 5:
+                LocalDate data = catalogo.getDataPublicacao(indice);
+                return data != null ? FormatacaoDatas.formatarParaExibicao(data) : "";
+            case 6:
+                return catalogo.getLivrosSemelhantes(indice);
+            case COLUNA_CAPA:
+                return catalogo.getIsbn(indice);
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package biblioteca.ui;
+
+import biblioteca.model.LivroResumo;
+import biblioteca.repository.CriteriosBusca;
+import biblioteca.repository.LivroRepository;
+import biblioteca.repository.Ordenacao;
+import biblioteca.util.FormatacaoDatas;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Modelo da tabela principal para catálogos grandes demais para manter em memória: sabe o total de
+ * livros (estatisticas_catalogo) e lê as linhas do banco em páginas, só quando aparecem na tela.
+ *
+ * As páginas lidas ficam num LRU de até MAX_PAGINAS. Ao exibir uma página, as vizinhas também são
+ * pedidas, para a rolagem não esbarrar em linhas vazias. As consultas rodam numa thread própria, uma
+ * de cada vez; pedidos de páginas que já saíram da tela são descartados antes de ir ao banco.
+ *
+ * A ordem das linhas (Ordenacao) é aplicada pelo banco. Uma página seguinte à última lida continua
+ * dela pela chave, em qualquer ordem; só saltos (ex.: arrastar a barra de rolagem) usam OFFSET.
+ * Com um filtro (busca avançada), total e páginas vêm só dos livros que atendem aos critérios, na
+ * mesma consulta.
+ *
+ * Métodos públicos devem ser chamados na thread do Swing.
+ */
+public class ModeloTabelaPaginada extends AbstractTableModel {
+    private static final int TAMANHO_PAGINA = 200;
+    private static final int MAX_PAGINAS = 50;
+    // Pedidos a mais de tantas páginas da última exibida não chegam a ser consultados
+    private static final int JANELA_PEDIDOS = 3;
+
+    private final LivroRepository repository;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(tarefa -> {
+        Thread thread = new Thread(tarefa, "paginas-catalogo");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Ordem de acesso: a página menos usada sai primeiro
+    private final Map<Integer, List<LivroResumo>> paginas = new LinkedHashMap<Integer, List<LivroResumo>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, List<LivroResumo>> maisAntiga) {
+            return size() > MAX_PAGINAS;
+        }
+    };
+    private final Set<Integer> pendentes = new HashSet<>();
+    private int total;
+    // Incrementada a cada recarga; páginas pedidas antes dela são descartadas
+    private int geracao;
+    // Lida pela thread de consultas para descartar pedidos antigos
+    private volatile int paginaVisivel;
+    private Ordenacao ordenacao = Ordenacao.POR_ID;
+    // Critérios da busca avançada; null exibe o catálogo inteiro
+    private CriteriosBusca criterios;
+
+    public ModeloTabelaPaginada(LivroRepository repository) {
+        this.repository = repository;
+    }
+
+    public Ordenacao getOrdenacao() {
+        return ordenacao;
+    }
+
+    public boolean isOrdenadoPorId() {
+        return ordenacao.isPorId();
+    }
+
+    public CriteriosBusca getCriterios() {
+        return criterios;
+    }
+
+    /**
+     * Exibe só os livros que atendem aos critérios, a partir da primeira página.
+     */
+    public void filtrar(CriteriosBusca criterios) {
+        this.criterios = criterios;
+        paginaVisivel = 0;
+        recarregar();
+    }
+
+    /**
+     * Volta ao catálogo inteiro na próxima recarga.
+     */
+    public void removerFiltro() {
+        if (criterios != null) {
+            criterios = null;
+            paginaVisivel = 0;
+        }
+    }
+
+    /**
+     * Se alterar um livro não pode mudar a posição nem a presença da linha: ordem por id e sem
+     * filtro. Do contrário, quem altera deve recarregar.
+     */
+    public boolean isLinhasEstaveis() {
+        return ordenacao.isPorId() && criterios == null;
+    }
+
+    /**
+     * Troca a ordem das linhas e relê a partir da primeira página.
+     */
+    public void setOrdenacao(Ordenacao ordenacao) {
+        this.ordenacao = ordenacao;
+        paginaVisivel = 0;
+        recarregar();
+    }
+
+    /**
+     * Relê o total e a página em exibição. As linhas antigas continuam na tela até a resposta chegar.
+     */
+    public void recarregar() {
+        int geracaoPedido = ++geracao;
+        int pagina = paginaVisivel;
+        Ordenacao ordem = ordenacao;
+        CriteriosBusca filtro = criterios;
+        executor.execute(() -> {
+            long contagem = repository.contarResumos(filtro);
+            List<LivroResumo> livros = repository.listarPaginaResumos(filtro, ordem, null, pagina * TAMANHO_PAGINA, TAMANHO_PAGINA);
+            SwingUtilities.invokeLater(() -> {
+                if (geracaoPedido != geracao) {
+                    return;
+                }
+                total = (int) Math.min(contagem, Integer.MAX_VALUE);
+                paginas.clear();
+                pendentes.clear();
+                paginas.put(pagina, new ArrayList<>(livros));
+                fireTableDataChanged();
+            });
+        });
+    }
+
+    /**
+     * Troca a linha do livro, se ele estiver numa página carregada. Sem isLinhasEstaveis, a linha
+     * pode ter de mudar de lugar ou sair do filtro; cabe a quem chama recarregar.
+     *
+     * @return false se o livro não está em nenhuma página carregada
+     */
+    public boolean atualizar(LivroResumo livro) {
+        for (Map.Entry<Integer, List<LivroResumo>> pagina : paginas.entrySet()) {
+            List<LivroResumo> livros = pagina.getValue();
+            for (int i = 0; i < livros.size(); i++) {
+                if (livros.get(i).getId().equals(livro.getId())) {
+                    livros.set(i, livro);
+                    int linha = pagina.getKey() * TAMANHO_PAGINA + i;
+                    fireTableRowsUpdated(linha, linha);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Id da linha se ela já estiver carregada, ou null. Linhas selecionadas estão ou estiveram na
+     * tela, então normalmente estão carregadas.
+     */
+    public Long getId(int linha) {
+        List<LivroResumo> livros = paginas.get(linha / TAMANHO_PAGINA);
+        int posicao = linha % TAMANHO_PAGINA;
+        return livros != null && posicao < livros.size() ? livros.get(posicao).getId() : null;
+    }
+
+    /**
+     * ISBN da linha já carregada (ver getId), ou null.
+     */
+    public Long getIsbn(int linha) {
+        List<LivroResumo> livros = paginas.get(linha / TAMANHO_PAGINA);
+        int posicao = linha % TAMANHO_PAGINA;
+        return livros != null && posicao < livros.size() ? livros.get(posicao).getIsbnNumerico() : null;
+    }
+
+    private LivroResumo getLivro(int linha) {
+        int pagina = linha / TAMANHO_PAGINA;
+        paginaVisivel = pagina;
+        solicitar(pagina);
+        solicitar(pagina - 1);
+        solicitar(pagina + 1);
+
+        List<LivroResumo> livros = paginas.get(pagina);
+        int posicao = linha % TAMANHO_PAGINA;
+        return livros != null && posicao < livros.size() ? livros.get(posicao) : null;
+    }
+
+    private void solicitar(int pagina) {
+        if (pagina < 0 || (long) pagina * TAMANHO_PAGINA >= total
+                || paginas.containsKey(pagina) || !pendentes.add(pagina)) {
+            return;
+        }
+
+        // Com a página anterior completa em memória, a consulta continua da última linha dela
+        List<LivroResumo> anterior = paginas.get(pagina - 1);
+        LivroResumo aposLivro = anterior != null && anterior.size() == TAMANHO_PAGINA
+                ? anterior.get(TAMANHO_PAGINA - 1) : null;
+        int geracaoPedido = geracao;
+        Ordenacao ordem = ordenacao;
+        CriteriosBusca filtro = criterios;
+
+        executor.execute(() -> {
+            if (Math.abs(pagina - paginaVisivel) > JANELA_PEDIDOS) {
+                SwingUtilities.invokeLater(() -> {
+                    if (geracaoPedido == geracao) {
+                        pendentes.remove(pagina);
+                    }
+                });
+                return;
+            }
+
+            List<LivroResumo> livros = repository.listarPaginaResumos(filtro, ordem, aposLivro, pagina * TAMANHO_PAGINA, TAMANHO_PAGINA);
+            SwingUtilities.invokeLater(() -> receber(geracaoPedido, pagina, livros));
+        });
+    }
+
+    private void receber(int geracaoPedido, int pagina, List<LivroResumo> livros) {
+        if (geracaoPedido != geracao) {
+            return;
+        }
+        pendentes.remove(pagina);
+        paginas.put(pagina, new ArrayList<>(livros));
+
+        int inicio = pagina * TAMANHO_PAGINA;
+        int fim = Math.min(total, inicio + TAMANHO_PAGINA) - 1;
+        if (fim >= inicio) {
+            fireTableRowsUpdated(inicio, fim);
+        }
+    }
+
+    @Override
+    public int getRowCount() {
+        return total;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return ModeloTabelaLivros.COLUNAS.length;
+    }
+
+    @Override
+    public String getColumnName(int coluna) {
+        return ModeloTabelaLivros.COLUNAS[coluna];
+    }
+
+    @Override
+    public boolean isCellEditable(int linha, int coluna) {
+        return false;
+    }
+
+    @Override
+    public Object getValueAt(int linha, int coluna) {
+        LivroResumo livro = getLivro(linha);
+        if (livro == null) {
+            return coluna == 1 ? "Carregando..." : null;
+        }
+
+        switch (coluna) {
+            case 0:
+                return livro.getId();
+            case 1:
+                return livro.getTitulo();
+            case 2:
+                return livro.getAutores();
+            case 3:
+                return livro.getIsbn();
+            case 4:
+                return livro.getEditora();
+            case 5:
+                return livro.getDataPublicacao() != null
+                        ? FormatacaoDatas.formatarParaExibicao(livro.getDataPublicacao()) : "";
+            case 6:
+                return livro.getLivrosSemelhantes();
+            case ModeloTabelaLivros.COLUNA_CAPA:
+                return livro.getIsbnNumerico();
+            default:
+                return null;
+        }
+    }
+}
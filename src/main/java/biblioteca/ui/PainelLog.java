@@ -0,0 +1,262 @@
+package biblioteca.ui;
+
+import javax.swing.*;
+import java.awt.*;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Log de telas com muitas mensagens (ex.: importação). No lugar de um JTextArea, que guarda todo o
+ * texto no documento e refaz o layout a cada append, as mensagens ficam num buffer circular de
+ * CAPACIDADE linhas exibido por uma JList, que só desenha as linhas visíveis.
+ *
+ * adicionar() pode ser chamado de qualquer thread: as mensagens entram numa fila e são aplicadas à
+ * lista de uma vez, no máximo a cada INTERVALO_MS. Cada bloco aplicado também vai para um arquivo
+ * temporário, de onde sai o log completo na exportação, inclusive as linhas que já deixaram o buffer.
+ */
+public class PainelLog extends JPanel {
+    public enum Severidade {
+        INFO, AVISO, ERRO
+    }
+
+    private static final int CAPACIDADE = Integer.getInteger("biblioteca.log.linhas", 10_000);
+    // Cerca de um quadro de tela
+    private static final int INTERVALO_MS = 16;
+
+    private static final class Entrada {
+        final Severidade severidade;
+        final String texto;
+
+        Entrada(Severidade severidade, String texto) {
+            this.severidade = severidade;
+            this.texto = texto;
+        }
+    }
+
+    private final ConcurrentLinkedQueue<Entrada> pendentes = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean descargaAgendada = new AtomicBoolean();
+    private final Timer timerDescarga;
+
+    // Buffer circular: a entrada mais antiga está em inicio
+    private final Entrada[] entradas = new Entrada[CAPACIDADE];
+    private int inicio;
+    private int tamanho;
+    // Posições no buffer (a partir de inicio) das entradas que passam no filtro; null sem filtro
+    private int[] filtradas;
+    private int totalFiltradas;
+    private Severidade severidadeMinima = Severidade.INFO;
+
+    private final ModeloLista modelo = new ModeloLista();
+    private final JList<Entrada> lista = new JList<>(modelo);
+    private final JScrollPane rolagem = new JScrollPane(lista);
+
+    private Path arquivoCompleto;
+    private BufferedWriter escritorCompleto;
+    // Fora da tela (removeNotify): mensagens que ainda chegarem, ex. de uma importação em
+    // andamento, são descartadas em vez de abrir outro arquivo temporário
+    private volatile boolean fechado;
+
+    public PainelLog() {
+        super(new BorderLayout());
+
+        lista.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        // Altura fixa: a JList não mede cada linha para calcular a rolagem
+        lista.setPrototypeCellValue(new Entrada(Severidade.INFO, "X"));
+        lista.setCellRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object valor, int indice,
+                                                          boolean selecionado, boolean foco) {
+                Entrada entrada = (Entrada) valor;
+                super.getListCellRendererComponent(list, entrada.texto.isEmpty() ? " " : entrada.texto,
+                        indice, selecionado, foco);
+                if (!selecionado) {
+                    setForeground(entrada.severidade == Severidade.ERRO ? new Color(180, 0, 0)
+                            : entrada.severidade == Severidade.AVISO ? new Color(160, 90, 0)
+                            : list.getForeground());
+                }
+                return this;
+            }
+        });
+        add(rolagem, BorderLayout.CENTER);
+
+        timerDescarga = new Timer(INTERVALO_MS, e -> descarregar());
+        timerDescarga.setRepeats(false);
+    }
+
+    public void adicionar(String texto) {
+        adicionar(Severidade.INFO, texto);
+    }
+
+    /**
+     * Pode ser chamado de qualquer thread. Textos com várias linhas viram várias entradas.
+     */
+    public void adicionar(Severidade severidade, String texto) {
+        if (fechado) {
+            return;
+        }
+        for (String linha : texto.split("\n", -1)) {
+            pendentes.add(new Entrada(severidade, linha));
+        }
+        if (descargaAgendada.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(timerDescarga::restart);
+        }
+    }
+
+    /**
+     * Passa a exibir só as entradas da severidade indicada para cima.
+     */
+    public void setSeveridadeMinima(Severidade severidade) {
+        severidadeMinima = severidade;
+        refazerFiltro();
+        modelo.mudouTudo();
+    }
+
+    /**
+     * Descarta o buffer e o log completo; mensagens ainda na fila entram depois da limpeza.
+     */
+    public void limpar() {
+        inicio = 0;
+        tamanho = 0;
+        Arrays.fill(entradas, null);
+        refazerFiltro();
+        fecharArquivoCompleto();
+        modelo.mudouTudo();
+    }
+
+    /**
+     * Grava o log completo desde a última limpeza, com a severidade no início de cada linha.
+     */
+    public void exportar(Path destino) throws IOException {
+        descarregar();
+        if (escritorCompleto == null) {
+            Files.write(destino, new byte[0]);
+            return;
+        }
+        escritorCompleto.flush();
+        Files.copy(arquivoCompleto, destino, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Roda na thread do Swing: aplica de uma vez tudo o que chegou desde a última descarga.
+     */
+    private void descarregar() {
+        descargaAgendada.set(false);
+        if (fechado) {
+            pendentes.clear();
+            return;
+        }
+        List<Entrada> novas = new ArrayList<>();
+        for (Entrada entrada; (entrada = pendentes.poll()) != null; ) {
+            novas.add(entrada);
+        }
+        if (novas.isEmpty()) {
+            return;
+        }
+
+        gravarNoArquivoCompleto(novas);
+
+        JScrollBar barra = rolagem.getVerticalScrollBar();
+        boolean noFim = barra.getValue() + barra.getVisibleAmount() >= barra.getMaximum();
+
+        // Só as últimas CAPACIDADE entradas do bloco chegam a ficar no buffer
+        for (int i = Math.max(0, novas.size() - CAPACIDADE); i < novas.size(); i++) {
+            if (tamanho < CAPACIDADE) {
+                entradas[(inicio + tamanho++) % CAPACIDADE] = novas.get(i);
+            } else {
+                entradas[inicio] = novas.get(i);
+                inicio = (inicio + 1) % CAPACIDADE;
+            }
+        }
+        refazerFiltro();
+        modelo.mudouTudo();
+
+        // Segue as mensagens novas só se o usuário não rolou para ler as antigas
+        if (noFim && modelo.getSize() > 0) {
+            lista.ensureIndexIsVisible(modelo.getSize() - 1);
+        }
+    }
+
+    private void refazerFiltro() {
+        if (severidadeMinima == Severidade.INFO) {
+            filtradas = null;
+            return;
+        }
+        if (filtradas == null) {
+            filtradas = new int[CAPACIDADE];
+        }
+        totalFiltradas = 0;
+        for (int i = 0; i < tamanho; i++) {
+            if (entradas[(inicio + i) % CAPACIDADE].severidade.compareTo(severidadeMinima) >= 0) {
+                filtradas[totalFiltradas++] = i;
+            }
+        }
+    }
+
+    private void gravarNoArquivoCompleto(List<Entrada> novas) {
+        try {
+            if (escritorCompleto == null) {
+                arquivoCompleto = Files.createTempFile("biblioteca-log", ".txt");
+                arquivoCompleto.toFile().deleteOnExit();
+                escritorCompleto = Files.newBufferedWriter(arquivoCompleto, StandardCharsets.UTF_8);
+            }
+            for (Entrada entrada : novas) {
+                escritorCompleto.write(entrada.severidade.name());
+                escritorCompleto.write('\t');
+                escritorCompleto.write(entrada.texto);
+                escritorCompleto.newLine();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Erro ao gravar o log completo", e);
+        }
+    }
+
+    private void fecharArquivoCompleto() {
+        if (escritorCompleto == null) {
+            return;
+        }
+        try {
+            escritorCompleto.close();
+            Files.deleteIfExists(arquivoCompleto);
+        } catch (IOException e) {
+            System.err.println("Erro ao apagar o log temporário: " + e.getMessage());
+        }
+        escritorCompleto = null;
+        arquivoCompleto = null;
+    }
+
+    @Override
+    public void removeNotify() {
+        super.removeNotify();
+        fechado = true;
+        pendentes.clear();
+        timerDescarga.stop();
+        fecharArquivoCompleto();
+    }
+
+    private class ModeloLista extends AbstractListModel<Entrada> {
+        @Override
+        public int getSize() {
+            return filtradas == null ? tamanho : totalFiltradas;
+        }
+
+        @Override
+        public Entrada getElementAt(int indice) {
+            int posicao = filtradas == null ? indice : filtradas[indice];
+            return entradas[(inicio + posicao) % CAPACIDADE];
+        }
+
+        void mudouTudo() {
+            fireContentsChanged(this, 0, Integer.MAX_VALUE);
+        }
+    }
+}
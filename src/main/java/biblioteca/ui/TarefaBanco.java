@@ -0,0 +1,89 @@
+package biblioteca.ui;
+
+import javax.swing.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Trabalho de banco (ou de rede) executado fora da thread do Swing, com o resultado entregue nela.
+ * As telas não devem chamar o repositório diretamente de um listener.
+ *
+ * As tarefas rodam num executor próprio com poucas threads, para uma tela com muitos cliques não
+ * abrir uma conexão por clique. Uma tarefa cancelada não chama mais os retornos; a thread é
+ * interrompida, mas um comando que já está no banco segue até o fim.
+ */
+public class TarefaBanco<T> extends SwingWorker<T, Void> {
+    private static final int THREADS = 4;
+
+    private static final AtomicInteger contador = new AtomicInteger();
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(THREADS, tarefa -> {
+        Thread thread = new Thread(tarefa, "tarefa-banco-" + contador.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Callable<T> trabalho;
+    private final Consumer<T> aoConcluir;
+    private final Consumer<Exception> aoFalhar;
+
+    public TarefaBanco(Callable<T> trabalho, Consumer<T> aoConcluir, Consumer<Exception> aoFalhar) {
+        this.trabalho = trabalho;
+        this.aoConcluir = aoConcluir;
+        this.aoFalhar = aoFalhar;
+    }
+
+    /**
+     * Cria e já agenda a tarefa.
+     */
+    public static <T> TarefaBanco<T> executar(Callable<T> trabalho, Consumer<T> aoConcluir, Consumer<Exception> aoFalhar) {
+        TarefaBanco<T> tarefa = new TarefaBanco<>(trabalho, aoConcluir, aoFalhar);
+        tarefa.agendar();
+        return tarefa;
+    }
+
+    /**
+     * No lugar de execute(): usa o executor de tarefas de banco, não o do SwingWorker.
+     */
+    public void agendar() {
+        EXECUTOR.execute(this);
+    }
+
+    /**
+     * Para outros SwingWorkers de banco (ex.: BuscaNoBanco) usarem as mesmas threads.
+     */
+    static void agendarNoExecutor(SwingWorker<?, ?> tarefa) {
+        EXECUTOR.execute(tarefa);
+    }
+
+    public void cancelar() {
+        cancel(true);
+    }
+
+    @Override
+    protected T doInBackground() throws Exception {
+        return trabalho.call();
+    }
+
+    @Override
+    protected void done() {
+        if (isCancelled()) {
+            return;
+        }
+        T resultado;
+        try {
+            resultado = get();
+        } catch (CancellationException | InterruptedException e) {
+            return;
+        } catch (ExecutionException e) {
+            Throwable causa = e.getCause();
+            aoFalhar.accept(causa instanceof Exception ? (Exception) causa : e);
+            return;
+        }
+        aoConcluir.accept(resultado);
+    }
+}
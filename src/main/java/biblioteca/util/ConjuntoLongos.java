@@ -0,0 +1,166 @@
+package biblioteca.util;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Conjunto de long sem boxing: endereçamento aberto com sondagem linear sobre um long[].
+ * Com fator de carga máximo de 0,5 ocupa cerca de 16 bytes por elemento, contra ~50 de um
+ * HashSet&lt;Long&gt;. O valor 0 marca posição vazia e é tratado à parte.
+ *
+ * Não é thread-safe.
+ */
+public class ConjuntoLongos {
+    private static final int CAPACIDADE_MINIMA = 16;
+
+    private long[] tabela;
+    private int tamanho;
+    private boolean contemZero;
+
+    public ConjuntoLongos() {
+        this(CAPACIDADE_MINIMA);
+    }
+
+    public ConjuntoLongos(int capacidadeEsperada) {
+        tabela = new long[capacidadePara(capacidadeEsperada)];
+    }
+
+    public boolean adicionar(long valor) {
+        if (valor == 0) {
+            if (contemZero) {
+                return false;
+            }
+            contemZero = true;
+            tamanho++;
+            return true;
+        }
+
+        int mascara = tabela.length - 1;
+        int i = espalhar(valor) & mascara;
+        while (tabela[i] != 0) {
+            if (tabela[i] == valor) {
+                return false;
+            }
+            i = (i + 1) & mascara;
+        }
+
+        tabela[i] = valor;
+        tamanho++;
+        if (tamanho * 2 > tabela.length) {
+            redimensionar(tabela.length * 2);
+        }
+        return true;
+    }
+
+    public boolean contem(long valor) {
+        if (valor == 0) {
+            return contemZero;
+        }
+
+        int mascara = tabela.length - 1;
+        int i = espalhar(valor) & mascara;
+        while (tabela[i] != 0) {
+            if (tabela[i] == valor) {
+                return true;
+            }
+            i = (i + 1) & mascara;
+        }
+        return false;
+    }
+
+    public boolean remover(long valor) {
+        if (valor == 0) {
+            if (!contemZero) {
+                return false;
+            }
+            contemZero = false;
+            tamanho--;
+            return true;
+        }
+
+        int mascara = tabela.length - 1;
+        int i = espalhar(valor) & mascara;
+        while (tabela[i] != valor) {
+            if (tabela[i] == 0) {
+                return false;
+            }
+            i = (i + 1) & mascara;
+        }
+
+        // Remoção com deslocamento para trás, para não deixar marcas de "apagado" na sondagem
+        int vazio = i;
+        int j = i;
+        while (true) {
+            j = (j + 1) & mascara;
+            if (tabela[j] == 0) {
+                break;
+            }
+            int ideal = espalhar(tabela[j]) & mascara;
+            // Move tabela[j] para o buraco se a posição ideal dele não estiver entre o buraco e j
+            if (((j - ideal) & mascara) >= ((j - vazio) & mascara)) {
+                tabela[vazio] = tabela[j];
+                vazio = j;
+            }
+        }
+        tabela[vazio] = 0;
+        tamanho--;
+        return true;
+    }
+
+    public int tamanho() {
+        return tamanho;
+    }
+
+    public void paraCada(LongConsumer acao) {
+        if (contemZero) {
+            acao.accept(0);
+        }
+        for (long valor : tabela) {
+            if (valor != 0) {
+                acao.accept(valor);
+            }
+        }
+    }
+
+    /**
+     * Memória aproximada ocupada pela tabela, em bytes.
+     */
+    public long bytesOcupados() {
+        return (long) tabela.length * Long.BYTES;
+    }
+
+    private void redimensionar(int novaCapacidade) {
+        long[] antiga = tabela;
+        tabela = new long[novaCapacidade];
+        int mascara = novaCapacidade - 1;
+        for (long valor : antiga) {
+            if (valor != 0) {
+                int i = espalhar(valor) & mascara;
+                while (tabela[i] != 0) {
+                    i = (i + 1) & mascara;
+                }
+                tabela[i] = valor;
+            }
+        }
+    }
+
+    private static int capacidadePara(int elementos) {
+        int capacidade = CAPACIDADE_MINIMA;
+        while (capacidade < elementos * 2L && capacidade < (1 << 30)) {
+            capacidade <<= 1;
+        }
+        return capacidade;
+    }
+
+    /**
+     * Mistura os bits (finalizador do MurmurHash3): ISBNs sequenciais não se agrupam na tabela.
+     */
+    static int espalhar(long valor) {
+        long h = valor;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+}
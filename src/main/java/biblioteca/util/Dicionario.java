@@ -0,0 +1,54 @@
+package biblioteca.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Codificação por dicionário: cada texto distinto recebe um código int e é guardado uma única vez.
+ * Colunas com muitos valores repetidos (editora, autores) passam a ocupar 4 bytes por linha.
+ * Códigos não são reaproveitados; null é representado por NULO.
+ *
+ * Não é thread-safe.
+ */
+public class Dicionario {
+    public static final int NULO = -1;
+
+    private final Map<String, Integer> codigos = new HashMap<>();
+    private final List<String> valores = new ArrayList<>();
+
+    public int codificar(String valor) {
+        if (valor == null) {
+            return NULO;
+        }
+        Integer codigo = codigos.get(valor);
+        if (codigo == null) {
+            codigo = valores.size();
+            valores.add(valor);
+            codigos.put(valor, codigo);
+        }
+        return codigo;
+    }
+
+    public String valor(int codigo) {
+        return codigo == NULO ? null : valores.get(codigo);
+    }
+
+    public int tamanho() {
+        return valores.size();
+    }
+
+    /**
+     * Avalia o critério uma vez por valor distinto. O resultado, indexado pelo código, permite
+     * filtrar a coluna comparando apenas ints.
+     */
+    public boolean[] marcar(Predicate<String> criterio) {
+        boolean[] marcados = new boolean[valores.size()];
+        for (int i = 0; i < marcados.length; i++) {
+            marcados[i] = criterio.test(valores.get(i));
+        }
+        return marcados;
+    }
+}
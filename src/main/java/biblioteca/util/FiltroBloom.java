@@ -0,0 +1,59 @@
+package biblioteca.util;
+
+/**
+ * Filtro de Bloom para long. Responde "com certeza não está" ou "talvez esteja", com taxa de
+ * falso positivo definida na criação. Não permite remoção.
+ *
+ * Não é thread-safe.
+ */
+public class FiltroBloom {
+    private final long[] bits;
+    private final int quantidadeBits;
+    private final int quantidadeHashes;
+
+    /**
+     * @param elementosEsperados quantidade de elementos prevista
+     * @param taxaFalsoPositivo  ex.: 0.01 para 1%
+     */
+    public FiltroBloom(int elementosEsperados, double taxaFalsoPositivo) {
+        int n = Math.max(elementosEsperados, 1);
+        long m = (long) Math.ceil(-n * Math.log(taxaFalsoPositivo) / (Math.log(2) * Math.log(2)));
+        quantidadeBits = (int) Math.max(64, Math.min(m, Integer.MAX_VALUE - 63));
+        quantidadeHashes = Math.max(1, (int) Math.round((double) quantidadeBits / n * Math.log(2)));
+        bits = new long[(quantidadeBits + 63) / 64];
+    }
+
+    public void adicionar(long valor) {
+        long h = misturar(valor);
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32);
+        for (int i = 0; i < quantidadeHashes; i++) {
+            int bit = Math.floorMod(h1 + i * h2, quantidadeBits);
+            bits[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    public boolean podeConter(long valor) {
+        long h = misturar(valor);
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32);
+        for (int i = 0; i < quantidadeHashes; i++) {
+            int bit = Math.floorMod(h1 + i * h2, quantidadeBits);
+            if ((bits[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long bytesOcupados() {
+        return (long) bits.length * Long.BYTES;
+    }
+
+    private static long misturar(long valor) {
+        long h = valor + 0x9e3779b97f4a7c15L;
+        h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+        h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+        return h ^ (h >>> 31);
+    }
+}
@@ -0,0 +1,79 @@
+package biblioteca.util;
+
+/**
+ * Validação e forma canônica de ISBNs.
+ *
+ * Todo ISBN válido (ISBN-10 ou ISBN-13, com ou sem hífens/espaços) é convertido para o ISBN-13
+ * correspondente e guardado como número (BIGINT no banco). Assim "85-359-0277-5" e
+ * "9788535902778" são a mesma chave.
+ */
+public class Isbn {
+
+    /**
+     * Remove hífens e espaços e passa o 'x' do ISBN-10 para maiúsculo.
+     */
+    public static String limpar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        return texto.replaceAll("[-\\s]", "").toUpperCase();
+    }
+
+    public static boolean valido(String texto) {
+        try {
+            canonizar(texto);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Converte um ISBN-10 ou ISBN-13 para o número do ISBN-13 canônico, conferindo o dígito verificador.
+     * Deve produzir o mesmo resultado que a função isbn_canonico da migração V007.
+     *
+     * @throws IllegalArgumentException se o formato ou o dígito verificador forem inválidos
+     */
+    public static long canonizar(String texto) {
+        String isbn = limpar(texto);
+
+        if (isbn.matches("\\d{9}[\\dX]")) {
+            int soma = 0;
+            for (int i = 0; i < 10; i++) {
+                char c = isbn.charAt(i);
+                int digito = c == 'X' ? 10 : c - '0';
+                soma += digito * (10 - i);
+            }
+            if (soma % 11 != 0) {
+                throw new IllegalArgumentException("Dígito verificador do ISBN-10 inválido: " + texto);
+            }
+
+            String base = "978" + isbn.substring(0, 9);
+            return Long.parseLong(base + digitoIsbn13(base));
+        }
+
+        if (isbn.matches("97[89]\\d{10}")) {
+            if (digitoIsbn13(isbn.substring(0, 12)) != isbn.charAt(12) - '0') {
+                throw new IllegalArgumentException("Dígito verificador do ISBN-13 inválido: " + texto);
+            }
+            return Long.parseLong(isbn);
+        }
+
+        throw new IllegalArgumentException("ISBN inválido. Deve ter 10 ou 13 dígitos no formato correto: " + texto);
+    }
+
+    /**
+     * Forma textual do ISBN-13 canônico (13 dígitos, sem hífens).
+     */
+    public static String formatar(long isbn) {
+        return String.format("%013d", isbn);
+    }
+
+    private static int digitoIsbn13(String doze) {
+        int soma = 0;
+        for (int i = 0; i < 12; i++) {
+            soma += (doze.charAt(i) - '0') * (i % 2 == 0 ? 1 : 3);
+        }
+        return (10 - soma % 10) % 10;
+    }
+}
@@ -0,0 +1,134 @@
+-- Migração opcional (MigracaoEsquema, -Dbiblioteca.db.particoesLivros=N): recria livros
+-- particionada por hash do ISBN canônico, em N partições. Requer PostgreSQL 11 ou superior.
+--
+-- O número de partições chega em biblioteca.particoes_livros (SET LOCAL feito pelo MigracaoEsquema).
+-- Os dados são copiados da tabela atual, com os mesmos ids, e ela é removida em seguida; tudo na
+-- transação da migração, com livros bloqueada para escrita até o fim.
+--
+-- Restrições que tabela particionada não comporta (elas precisariam incluir o isbn):
+-- - chave primária em id e a deduplicação por título/autor (ux_livros_titulo_autores) passam para
+--   livros_chaves, sem partição, mantida por trigger;
+-- - livros_autores passa a referenciar livros_chaves, mantendo o ON DELETE CASCADE da V006.
+-- Livros sem ISBN ficam todos na mesma partição (hash de NULL).
+--
+-- Consultas só pelo id passam pelo ix_livros_id de todas as partições. Por isso a aplicação
+-- acessa livros já exibidos pelo id e pelo ISBN (LivroRepository.CONDICAO_CHAVES), com o ISBN da
+-- linha ou da notificação (V014); só o livro cujo ISBN mudou nesse meio-tempo é buscado pelo id.
+
+DO $$
+BEGIN
+    IF current_setting('server_version_num')::int < 110000 THEN
+        RAISE EXCEPTION 'Particionamento de livros requer PostgreSQL 11 ou superior';
+    END IF;
+END
+$$;
+
+LOCK TABLE livros IN ACCESS EXCLUSIVE MODE;
+
+ALTER TABLE livros_autores DROP CONSTRAINT IF EXISTS fk_livros_autores_livro;
+ALTER TABLE livros RENAME TO livros_nao_particionada;
+
+CREATE TABLE livros (LIKE livros_nao_particionada INCLUDING DEFAULTS) PARTITION BY HASH (isbn);
+
+DO $$
+DECLARE
+    particoes int := current_setting('biblioteca.particoes_livros')::int;
+BEGIN
+    IF particoes < 1 THEN
+        RAISE EXCEPTION 'Número de partições inválido: %', particoes;
+    END IF;
+    FOR resto IN 0..particoes - 1 LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF livros FOR VALUES WITH (MODULUS %s, REMAINDER %s)',
+                       'livros_p' || resto, particoes, resto);
+    END LOOP;
+END
+$$;
+
+-- Cópia antes dos triggers: os mesmos livros, sem notificações, registros de alteração nem
+-- mudança nas estatísticas
+INSERT INTO livros SELECT * FROM livros_nao_particionada;
+DROP TABLE livros_nao_particionada;
+
+-- Única por isbn é permitida por conter a chave de partição; busca por ISBN lê uma partição só
+ALTER TABLE livros ADD CONSTRAINT uk_livros_isbn UNIQUE (isbn);
+-- Busca por id e leitura em ordem de id (percorrerResumos) consultam um índice por partição
+CREATE INDEX ix_livros_id ON livros (id);
+-- Ordenação da tabela (V012); a collation das colunas veio com o LIKE
+CREATE INDEX ix_livros_ordem_titulo ON livros (titulo, id);
+CREATE INDEX ix_livros_ordem_autores ON livros (autores, id);
+CREATE INDEX ix_livros_ordem_editora ON livros (editora, id);
+CREATE INDEX ix_livros_ordem_data ON livros (data_publicacao, id);
+CREATE INDEX ix_livros_ordem_edicoes ON livros (livros_semelhantes, id);
+-- Busca por trecho (V013), se a extensão pg_trgm foi instalada
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_extension WHERE extname = 'pg_trgm') THEN
+        CREATE INDEX ix_livros_titulo_trigrama ON livros USING gin (LOWER(titulo) gin_trgm_ops);
+        CREATE INDEX ix_livros_editora_trigrama ON livros USING gin (LOWER(editora) gin_trgm_ops);
+    END IF;
+END
+$$;
+
+CREATE TABLE livros_chaves (
+    id            BIGINT PRIMARY KEY,
+    titulo_chave  TEXT NOT NULL,
+    autores_chave TEXT NOT NULL,
+    CONSTRAINT ux_livros_titulo_autores UNIQUE (titulo_chave, autores_chave)
+);
+
+INSERT INTO livros_chaves (id, titulo_chave, autores_chave)
+SELECT id, lower(titulo), lower(autores) FROM livros;
+
+ALTER TABLE livros_autores
+    ADD CONSTRAINT fk_livros_autores_livro FOREIGN KEY (livro_id) REFERENCES livros_chaves (id) ON DELETE CASCADE;
+
+-- Trocar o ISBN move a linha de partição: os triggers por linha recebem DELETE e INSERT.
+-- Por isso o DELETE só remove a chave (e os vínculos de autores) se o id não existir mais.
+CREATE OR REPLACE FUNCTION manter_chave_livro() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        INSERT INTO livros_chaves (id, titulo_chave, autores_chave)
+        VALUES (NEW.id, lower(NEW.titulo), lower(NEW.autores))
+        ON CONFLICT (id) DO UPDATE
+            SET titulo_chave = EXCLUDED.titulo_chave, autores_chave = EXCLUDED.autores_chave;
+    ELSIF TG_OP = 'UPDATE' THEN
+        IF lower(NEW.titulo) <> lower(OLD.titulo) OR lower(NEW.autores) <> lower(OLD.autores) THEN
+            UPDATE livros_chaves
+            SET titulo_chave = lower(NEW.titulo), autores_chave = lower(NEW.autores)
+            WHERE id = NEW.id;
+        END IF;
+    ELSIF NOT EXISTS (SELECT 1 FROM livros WHERE id = OLD.id) THEN
+        DELETE FROM livros_chaves WHERE id = OLD.id;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER tg_livros_chave
+    AFTER INSERT OR UPDATE OR DELETE ON livros
+    FOR EACH ROW EXECUTE PROCEDURE manter_chave_livro();
+
+-- Triggers das migrações anteriores, recriados na tabela nova (V004/V008, V009, V010, V011)
+CREATE TRIGGER tg_livros_notificar
+    AFTER INSERT OR UPDATE OR DELETE ON livros
+    FOR EACH ROW EXECUTE PROCEDURE notificar_alteracao_livro();
+
+CREATE TRIGGER tg_livros_marcador
+    AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON livros
+    FOR EACH STATEMENT EXECUTE PROCEDURE incrementar_marcador_catalogo();
+
+CREATE TRIGGER tg_estatisticas_livros_insert
+    AFTER INSERT ON livros REFERENCING NEW TABLE AS novos
+    FOR EACH STATEMENT EXECUTE PROCEDURE estatisticas_livros();
+
+CREATE TRIGGER tg_estatisticas_livros_update
+    AFTER UPDATE ON livros REFERENCING OLD TABLE AS antigos NEW TABLE AS novos
+    FOR EACH STATEMENT EXECUTE PROCEDURE estatisticas_livros();
+
+CREATE TRIGGER tg_estatisticas_livros_delete
+    AFTER DELETE ON livros REFERENCING OLD TABLE AS antigos
+    FOR EACH STATEMENT EXECUTE PROCEDURE estatisticas_livros();
+
+CREATE TRIGGER tg_livros_registro_alteracoes
+    AFTER INSERT OR UPDATE OR DELETE ON livros
+    FOR EACH ROW EXECUTE PROCEDURE registrar_alteracao_livro();
@@ -0,0 +1,12 @@
+-- Troca a coluna IDENTITY/serial de livros.id pela sequence livros_seq, que é
+-- consumida em blocos de 50 pelo otimizador pooled-lo do Hibernate.
+
+CREATE SEQUENCE IF NOT EXISTS livros_seq INCREMENT BY 50;
+ALTER SEQUENCE livros_seq INCREMENT BY 50;
+
+-- Posiciona a sequence depois do maior id existente
+SELECT setval('livros_seq', COALESCE((SELECT MAX(id) FROM livros), 0) + 1);
+
+-- O default antigo (nextval da serial) colidiria com os blocos reservados pelo Hibernate
+ALTER TABLE livros ALTER COLUMN id DROP DEFAULT;
+DROP SEQUENCE IF EXISTS livros_id_seq;
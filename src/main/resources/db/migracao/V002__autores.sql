@@ -0,0 +1,29 @@
+-- Popula autores e livros_autores (criadas pelo hbm2ddl) separando o texto de livros.autores.
+-- A normalização precisa bater com Autor.normalizar/Autor.separarNomes.
+
+-- Índice para o autocomplete (LIKE 'prefixo%') independente da collation do banco
+CREATE INDEX IF NOT EXISTS ix_autores_nome_prefixo ON autores (nome_normalizado text_pattern_ops);
+
+INSERT INTO autores (id, nome, nome_normalizado)
+SELECT nextval('autores_seq'), t.nome, t.nome_normalizado
+FROM (
+    SELECT DISTINCT ON (lower(n.nome)) n.nome, lower(n.nome) AS nome_normalizado
+    FROM livros l
+    CROSS JOIN LATERAL (
+        SELECT regexp_replace(btrim(parte), '\s+', ' ', 'g') AS nome
+        FROM regexp_split_to_table(l.autores, '[,;]') AS parte
+    ) n
+    WHERE n.nome <> ''
+    ORDER BY lower(n.nome), n.nome
+) t
+ON CONFLICT (nome_normalizado) DO NOTHING;
+
+INSERT INTO livros_autores (livro_id, autor_id)
+SELECT DISTINCT l.id, a.id
+FROM livros l
+CROSS JOIN LATERAL (
+    SELECT lower(regexp_replace(btrim(parte), '\s+', ' ', 'g')) AS nome_normalizado
+    FROM regexp_split_to_table(l.autores, '[,;]') AS parte
+) n
+JOIN autores a ON a.nome_normalizado = n.nome_normalizado
+ON CONFLICT DO NOTHING;
@@ -0,0 +1,31 @@
+-- Deduplicação garantida pelo banco, no lugar da consulta COUNT feita antes de cada gravação.
+-- Se já houver livros repetidos (mesmo título e autor, sem diferenciar maiúsculas), esta
+-- migração falha e os registros precisam ser corrigidos antes.
+
+-- Troca a restrição única de isbn com nome gerado pelo Hibernate por uma com nome fixo,
+-- que o LivroRepository reconhece ao traduzir o erro.
+DO $$
+DECLARE
+    restricao RECORD;
+BEGIN
+    FOR restricao IN
+        SELECT c.conname
+        FROM pg_constraint c
+        JOIN pg_attribute a ON a.attrelid = c.conrelid AND a.attnum = ANY (c.conkey)
+        WHERE c.conrelid = 'livros'::regclass
+          AND c.contype = 'u'
+          AND array_length(c.conkey, 1) = 1
+          AND a.attname = 'isbn'
+          AND c.conname <> 'uk_livros_isbn'
+    LOOP
+        EXECUTE format('ALTER TABLE livros DROP CONSTRAINT %I', restricao.conname);
+    END LOOP;
+
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint
+                   WHERE conrelid = 'livros'::regclass AND conname = 'uk_livros_isbn') THEN
+        ALTER TABLE livros ADD CONSTRAINT uk_livros_isbn UNIQUE (isbn);
+    END IF;
+END
+$$;
+
+CREATE UNIQUE INDEX IF NOT EXISTS ux_livros_titulo_autores ON livros (LOWER(titulo), LOWER(autores));
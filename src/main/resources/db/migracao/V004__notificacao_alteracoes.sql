@@ -0,0 +1,18 @@
+-- Publica cada alteração em livros no canal livros_alterados (LISTEN/NOTIFY).
+-- Payload: '<operação>:<id>', ex.: 'INSERT:42'. A notificação só é entregue no commit.
+
+CREATE OR REPLACE FUNCTION notificar_alteracao_livro() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        PERFORM pg_notify('livros_alterados', TG_OP || ':' || OLD.id);
+        RETURN OLD;
+    END IF;
+    PERFORM pg_notify('livros_alterados', TG_OP || ':' || NEW.id);
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS tg_livros_notificar ON livros;
+CREATE TRIGGER tg_livros_notificar
+    AFTER INSERT OR UPDATE OR DELETE ON livros
+    FOR EACH ROW EXECUTE PROCEDURE notificar_alteracao_livro();
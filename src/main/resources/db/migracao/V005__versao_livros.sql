@@ -0,0 +1,7 @@
+-- Coluna de versão do controle otimista. O hbm2ddl cria a coluna anulável; livros já
+-- existentes começam na versão 0.
+
+ALTER TABLE livros ADD COLUMN IF NOT EXISTS versao BIGINT;
+UPDATE livros SET versao = 0 WHERE versao IS NULL;
+ALTER TABLE livros ALTER COLUMN versao SET DEFAULT 0;
+ALTER TABLE livros ALTER COLUMN versao SET NOT NULL;
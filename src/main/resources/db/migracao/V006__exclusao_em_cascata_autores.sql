@@ -0,0 +1,21 @@
+-- Exclusões de livros (inclusive em lote) removem os vínculos de autores no próprio banco.
+-- Substitui a chave estrangeira criada pelo hbm2ddl por uma com nome fixo e ON DELETE CASCADE.
+
+DO $$
+DECLARE
+    restricao RECORD;
+BEGIN
+    FOR restricao IN
+        SELECT conname
+        FROM pg_constraint
+        WHERE conrelid = 'livros_autores'::regclass
+          AND confrelid = 'livros'::regclass
+          AND contype = 'f'
+    LOOP
+        EXECUTE format('ALTER TABLE livros_autores DROP CONSTRAINT %I', restricao.conname);
+    END LOOP;
+END
+$$;
+
+ALTER TABLE livros_autores
+    ADD CONSTRAINT fk_livros_autores_livro FOREIGN KEY (livro_id) REFERENCES livros (id) ON DELETE CASCADE;
@@ -0,0 +1,61 @@
+-- Guarda o ISBN como o número do ISBN-13 canônico (BIGINT), conferindo o dígito verificador.
+-- ISBN-10 é convertido para o ISBN-13 com prefixo 978. A lógica espelha biblioteca.util.Isbn.
+--
+-- O texto original vai para isbn_legado apenas quando não pôde ser aproveitado (inválido, ou
+-- o mesmo livro já cadastrado em outro formato, caso em que fica com o de menor id), para
+-- conferência manual.
+
+CREATE OR REPLACE FUNCTION isbn_canonico(texto text) RETURNS bigint AS $$
+DECLARE
+    limpo text := upper(regexp_replace(coalesce(texto, ''), '[-\s]', '', 'g'));
+    base text;
+    soma int := 0;
+    digito int;
+BEGIN
+    IF limpo ~ '^[0-9]{9}[0-9X]$' THEN
+        FOR i IN 1..10 LOOP
+            IF substr(limpo, i, 1) = 'X' THEN
+                digito := 10;
+            ELSE
+                digito := substr(limpo, i, 1)::int;
+            END IF;
+            soma := soma + digito * (11 - i);
+        END LOOP;
+        IF soma % 11 <> 0 THEN
+            RETURN NULL;
+        END IF;
+        base := '978' || substr(limpo, 1, 9);
+    ELSIF limpo ~ '^97[89][0-9]{10}$' THEN
+        FOR i IN 1..13 LOOP
+            soma := soma + substr(limpo, i, 1)::int * CASE WHEN i % 2 = 1 THEN 1 ELSE 3 END;
+        END LOOP;
+        IF soma % 10 <> 0 THEN
+            RETURN NULL;
+        END IF;
+        RETURN limpo::bigint;
+    ELSE
+        RETURN NULL;
+    END IF;
+
+    soma := 0;
+    FOR i IN 1..12 LOOP
+        soma := soma + substr(base, i, 1)::int * CASE WHEN i % 2 = 1 THEN 1 ELSE 3 END;
+    END LOOP;
+    RETURN (base || ((10 - soma % 10) % 10)::text)::bigint;
+END;
+$$ LANGUAGE plpgsql IMMUTABLE;
+
+ALTER TABLE livros ADD COLUMN IF NOT EXISTS isbn_legado VARCHAR(255);
+UPDATE livros SET isbn_legado = isbn::text WHERE isbn IS NOT NULL;
+
+ALTER TABLE livros DROP CONSTRAINT IF EXISTS uk_livros_isbn;
+ALTER TABLE livros ALTER COLUMN isbn TYPE BIGINT USING isbn_canonico(isbn::text);
+
+-- Mesmo livro cadastrado em formatos diferentes: mantém o ISBN no de menor id
+UPDATE livros l SET isbn = NULL
+WHERE l.isbn IS NOT NULL
+  AND EXISTS (SELECT 1 FROM livros o WHERE o.isbn = l.isbn AND o.id < l.id);
+
+ALTER TABLE livros ADD CONSTRAINT uk_livros_isbn UNIQUE (isbn);
+
+UPDATE livros SET isbn_legado = NULL WHERE isbn IS NOT NULL;
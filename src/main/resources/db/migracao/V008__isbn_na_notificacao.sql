@@ -0,0 +1,20 @@
+-- Acrescenta ao payload de livros_alterados o ISBN que deixou de valer, para os clientes
+-- manterem o índice de ISBNs em memória (IndiceIsbn) sem consultar o banco.
+-- Payload: '<operação>:<id>[:<isbn anterior>]', ex.: 'DELETE:42:9788535902778'.
+-- O ISBN anterior vai no DELETE e no UPDATE que troca ou remove o ISBN; o novo ISBN os
+-- clientes já obtêm ao buscar a linha inserida/alterada.
+
+CREATE OR REPLACE FUNCTION notificar_alteracao_livro() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        PERFORM pg_notify('livros_alterados', TG_OP || ':' || OLD.id || coalesce(':' || OLD.isbn, ''));
+        RETURN OLD;
+    END IF;
+    IF TG_OP = 'UPDATE' AND OLD.isbn IS DISTINCT FROM NEW.isbn THEN
+        PERFORM pg_notify('livros_alterados', TG_OP || ':' || NEW.id || coalesce(':' || OLD.isbn, ''));
+        RETURN NEW;
+    END IF;
+    PERFORM pg_notify('livros_alterados', TG_OP || ':' || NEW.id);
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
@@ -0,0 +1,25 @@
+-- Marcador de alterações do catálogo: um contador incrementado a cada comando que altera livros.
+-- Quem guarda uma cópia local do catálogo (ArquivoCatalogo) anota o marcador lido junto com os
+-- dados; se o marcador do banco for o mesmo, a cópia continua válida.
+--
+-- Fica em tabela (e não em sequence) para o incremento só aparecer no commit, junto com os dados.
+-- O trigger é por comando, não por linha: um DELETE ou UPDATE em lote incrementa uma vez só.
+
+CREATE TABLE IF NOT EXISTS catalogo_marcador (
+    id     INT PRIMARY KEY CHECK (id = 1),
+    versao BIGINT NOT NULL
+);
+
+INSERT INTO catalogo_marcador (id, versao) VALUES (1, 0) ON CONFLICT (id) DO NOTHING;
+
+CREATE OR REPLACE FUNCTION incrementar_marcador_catalogo() RETURNS trigger AS $$
+BEGIN
+    UPDATE catalogo_marcador SET versao = versao + 1 WHERE id = 1;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS tg_livros_marcador ON livros;
+CREATE TRIGGER tg_livros_marcador
+    AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON livros
+    FOR EACH STATEMENT EXECUTE PROCEDURE incrementar_marcador_catalogo();
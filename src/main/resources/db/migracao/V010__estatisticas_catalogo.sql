@@ -0,0 +1,149 @@
+-- Contagens do catálogo por editora, autor, ano de publicação e faixa de edições, mantidas
+-- incrementalmente por triggers: qualquer INSERT/UPDATE/DELETE em livros ou livros_autores
+-- (salvar, excluir, operações em lote, importação) ajusta só as chaves afetadas. A tela de
+-- estatísticas lê esta tabela, sem GROUP BY sobre livros.
+--
+-- Os triggers são por comando e usam tabelas de transição (PostgreSQL 10+): um INSERT em lote
+-- de 50 livros faz um único UPSERT agregado, e não 50.
+--
+-- Dimensões e chaves:
+--   total          ''                     total de livros
+--   editora        nome da editora        '' = sem editora
+--   ano            ano com 4 dígitos      '' = sem data
+--   faixa_edicoes  '0'..'5'               ver faixa_edicoes(); rótulos em EstatisticaCatalogo
+--   autor          autores.id             livros por autor (via livros_autores)
+--
+-- Se as contagens divergirem (ex.: TRUNCATE, edição manual), SELECT recalcular_estatisticas() as refaz.
+
+CREATE TABLE IF NOT EXISTS estatisticas_catalogo (
+    dimensao   VARCHAR(20) NOT NULL,
+    chave      TEXT        NOT NULL,
+    quantidade BIGINT      NOT NULL,
+    PRIMARY KEY (dimensao, chave)
+);
+
+CREATE INDEX IF NOT EXISTS ix_estatisticas_catalogo_quantidade
+    ON estatisticas_catalogo (dimensao, quantidade DESC);
+
+CREATE OR REPLACE FUNCTION faixa_edicoes(livros_semelhantes int) RETURNS text AS $$
+    SELECT CASE
+        WHEN livros_semelhantes IS NULL OR livros_semelhantes <= 0 THEN '0'
+        WHEN livros_semelhantes = 1 THEN '1'
+        WHEN livros_semelhantes <= 5 THEN '2'
+        WHEN livros_semelhantes <= 20 THEN '3'
+        WHEN livros_semelhantes <= 100 THEN '4'
+        ELSE '5'
+    END
+$$ LANGUAGE sql IMMUTABLE;
+
+CREATE OR REPLACE FUNCTION dimensoes_livro(editora text, data_publicacao date, livros_semelhantes int)
+    RETURNS TABLE (dimensao text, chave text) AS $$
+    VALUES ('total', ''),
+           ('editora', coalesce(editora, '')),
+           ('ano', coalesce(lpad(extract(year FROM data_publicacao)::int::text, 4, '0'), '')),
+           ('faixa_edicoes', faixa_edicoes(livros_semelhantes))
+$$ LANGUAGE sql IMMUTABLE;
+
+CREATE OR REPLACE FUNCTION estatisticas_livros() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        INSERT INTO estatisticas_catalogo AS e (dimensao, chave, quantidade)
+        SELECT d.dimensao, d.chave, count(*)
+        FROM novos n
+        CROSS JOIN LATERAL dimensoes_livro(n.editora, n.data_publicacao, n.livros_semelhantes) d
+        GROUP BY d.dimensao, d.chave
+        ORDER BY d.dimensao, d.chave
+        ON CONFLICT (dimensao, chave) DO UPDATE SET quantidade = e.quantidade + EXCLUDED.quantidade;
+    ELSIF TG_OP = 'DELETE' THEN
+        INSERT INTO estatisticas_catalogo AS e (dimensao, chave, quantidade)
+        SELECT d.dimensao, d.chave, -count(*)
+        FROM antigos a
+        CROSS JOIN LATERAL dimensoes_livro(a.editora, a.data_publicacao, a.livros_semelhantes) d
+        GROUP BY d.dimensao, d.chave
+        ORDER BY d.dimensao, d.chave
+        ON CONFLICT (dimensao, chave) DO UPDATE SET quantidade = e.quantidade + EXCLUDED.quantidade;
+    ELSE
+        -- UPDATE: só as chaves que mudaram saldo diferente de zero
+        INSERT INTO estatisticas_catalogo AS e (dimensao, chave, quantidade)
+        SELECT d.dimensao, d.chave, sum(x.sinal)
+        FROM (
+            SELECT n.editora, n.data_publicacao, n.livros_semelhantes, 1 AS sinal FROM novos n
+            UNION ALL
+            SELECT a.editora, a.data_publicacao, a.livros_semelhantes, -1 FROM antigos a
+        ) x
+        CROSS JOIN LATERAL dimensoes_livro(x.editora, x.data_publicacao, x.livros_semelhantes) d
+        GROUP BY d.dimensao, d.chave
+        HAVING sum(x.sinal) <> 0
+        ORDER BY d.dimensao, d.chave
+        ON CONFLICT (dimensao, chave) DO UPDATE SET quantidade = e.quantidade + EXCLUDED.quantidade;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION estatisticas_livros_autores() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        INSERT INTO estatisticas_catalogo AS e (dimensao, chave, quantidade)
+        SELECT 'autor', n.autor_id::text, count(*)
+        FROM novos n
+        GROUP BY n.autor_id
+        ORDER BY n.autor_id
+        ON CONFLICT (dimensao, chave) DO UPDATE SET quantidade = e.quantidade + EXCLUDED.quantidade;
+    ELSE
+        INSERT INTO estatisticas_catalogo AS e (dimensao, chave, quantidade)
+        SELECT 'autor', a.autor_id::text, -count(*)
+        FROM antigos a
+        GROUP BY a.autor_id
+        ORDER BY a.autor_id
+        ON CONFLICT (dimensao, chave) DO UPDATE SET quantidade = e.quantidade + EXCLUDED.quantidade;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Tabelas de transição exigem um trigger por evento
+DROP TRIGGER IF EXISTS tg_estatisticas_livros_insert ON livros;
+CREATE TRIGGER tg_estatisticas_livros_insert
+    AFTER INSERT ON livros REFERENCING NEW TABLE AS novos
+    FOR EACH STATEMENT EXECUTE PROCEDURE estatisticas_livros();
+
+DROP TRIGGER IF EXISTS tg_estatisticas_livros_update ON livros;
+CREATE TRIGGER tg_estatisticas_livros_update
+    AFTER UPDATE ON livros REFERENCING OLD TABLE AS antigos NEW TABLE AS novos
+    FOR EACH STATEMENT EXECUTE PROCEDURE estatisticas_livros();
+
+DROP TRIGGER IF EXISTS tg_estatisticas_livros_delete ON livros;
+CREATE TRIGGER tg_estatisticas_livros_delete
+    AFTER DELETE ON livros REFERENCING OLD TABLE AS antigos
+    FOR EACH STATEMENT EXECUTE PROCEDURE estatisticas_livros();
+
+DROP TRIGGER IF EXISTS tg_estatisticas_livros_autores_insert ON livros_autores;
+CREATE TRIGGER tg_estatisticas_livros_autores_insert
+    AFTER INSERT ON livros_autores REFERENCING NEW TABLE AS novos
+    FOR EACH STATEMENT EXECUTE PROCEDURE estatisticas_livros_autores();
+
+DROP TRIGGER IF EXISTS tg_estatisticas_livros_autores_delete ON livros_autores;
+CREATE TRIGGER tg_estatisticas_livros_autores_delete
+    AFTER DELETE ON livros_autores REFERENCING OLD TABLE AS antigos
+    FOR EACH STATEMENT EXECUTE PROCEDURE estatisticas_livros_autores();
+
+CREATE OR REPLACE FUNCTION recalcular_estatisticas() RETURNS void AS $$
+BEGIN
+    LOCK TABLE livros, livros_autores IN SHARE MODE;
+    DELETE FROM estatisticas_catalogo;
+
+    INSERT INTO estatisticas_catalogo (dimensao, chave, quantidade)
+    SELECT d.dimensao, d.chave, count(*)
+    FROM livros l
+    CROSS JOIN LATERAL dimensoes_livro(l.editora, l.data_publicacao, l.livros_semelhantes) d
+    GROUP BY d.dimensao, d.chave;
+
+    INSERT INTO estatisticas_catalogo (dimensao, chave, quantidade)
+    SELECT 'autor', la.autor_id::text, count(*)
+    FROM livros_autores la
+    GROUP BY la.autor_id;
+END;
+$$ LANGUAGE plpgsql;
+
+SELECT recalcular_estatisticas();
@@ -0,0 +1,68 @@
+-- Registro de alterações (change log) de livros para exportação incremental.
+--
+-- Um trigger por linha grava cada INSERT/UPDATE/DELETE em livros_alteracoes, com a linha
+-- resultante em JSON (null na exclusão) e o id da transação. Assim salvar, excluir, operações
+-- em lote e importação ficam registrados pelo mesmo caminho.
+--
+-- O número de sequência exportado (seq) não é atribuído na gravação: com transações
+-- concorrentes, um nextval menor pode ser confirmado depois de um maior, e quem exportou
+-- "desde o maior" perderia o menor. publicar_alteracoes_livros() numera, em ordem, apenas os
+-- registros de transações mais antigas que qualquer transação ainda em andamento; números
+-- publicados depois são sempre maiores, e nenhum registro aparece atrás de um seq já exportado.
+
+CREATE TABLE IF NOT EXISTS livros_alteracoes (
+    id          BIGSERIAL PRIMARY KEY,
+    seq         BIGINT UNIQUE,
+    transacao   BIGINT      NOT NULL DEFAULT txid_current(),
+    operacao    CHAR(1)     NOT NULL,
+    livro_id    BIGINT      NOT NULL,
+    dados       JSONB,
+    alterado_em TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+-- Registros ainda não publicados, varridos por publicar_alteracoes_livros()
+CREATE INDEX IF NOT EXISTS ix_livros_alteracoes_pendentes
+    ON livros_alteracoes (transacao, id) WHERE seq IS NULL;
+
+CREATE SEQUENCE IF NOT EXISTS livros_alteracoes_seq;
+
+CREATE OR REPLACE FUNCTION registrar_alteracao_livro() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        INSERT INTO livros_alteracoes (operacao, livro_id, dados) VALUES ('D', OLD.id, NULL);
+        RETURN OLD;
+    END IF;
+    INSERT INTO livros_alteracoes (operacao, livro_id, dados)
+    VALUES (CASE TG_OP WHEN 'INSERT' THEN 'I' ELSE 'U' END, NEW.id, to_jsonb(NEW));
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS tg_livros_registro_alteracoes ON livros;
+CREATE TRIGGER tg_livros_registro_alteracoes
+    AFTER INSERT OR UPDATE OR DELETE ON livros
+    FOR EACH ROW EXECUTE PROCEDURE registrar_alteracao_livro();
+
+-- Numera os registros já definitivos e devolve o maior seq publicado.
+-- O advisory lock serializa exportações simultâneas.
+CREATE OR REPLACE FUNCTION publicar_alteracoes_livros() RETURNS bigint AS $$
+DECLARE
+    limite bigint := txid_snapshot_xmin(txid_current_snapshot());
+BEGIN
+    PERFORM pg_advisory_xact_lock(7310022);
+
+    UPDATE livros_alteracoes a
+    SET seq = p.seq
+    FROM (
+        SELECT o.id, nextval('livros_alteracoes_seq') AS seq
+        FROM (
+            SELECT id FROM livros_alteracoes
+            WHERE seq IS NULL AND transacao < limite
+            ORDER BY transacao, id
+        ) o
+    ) p
+    WHERE a.id = p.id;
+
+    RETURN coalesce((SELECT max(seq) FROM livros_alteracoes), 0);
+END;
+$$ LANGUAGE plpgsql;
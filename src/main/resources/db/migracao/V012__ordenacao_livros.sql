@@ -0,0 +1,40 @@
+-- Ordenação da tabela principal pelo banco (LivroRepository.listarPaginaResumos com Ordenacao).
+--
+-- Título, autores e editora passam a comparar pela collation do português, quando o servidor a
+-- tem (ICU pt-BR, do PostgreSQL 10+ compilado com ICU, ou a pt_BR do sistema): acentos e
+-- maiúsculas ficam junto da letra base ("Érico" perto de "Erico", não depois de "Z"). Sem nenhuma
+-- delas a ordem segue a collation padrão do banco. Alterar a collation refaz os índices das
+-- colunas, inclusive ux_livros_titulo_autores.
+--
+-- Cada ordenação termina em id (desempate que torna a paginação estável), então os índices são
+-- (coluna, id); lidos de trás para frente, atendem também a ordem decrescente.
+
+DO $$
+DECLARE
+    preferidas TEXT[] := ARRAY['pt-BR-x-icu', 'pt_BR.utf8', 'pt_BR.UTF-8', 'pt_BR'];
+    collation_pt TEXT;
+BEGIN
+    SELECT collname INTO collation_pt
+    FROM pg_collation
+    WHERE collname = ANY (preferidas)
+      AND collencoding IN (-1, pg_char_to_encoding(getdatabaseencoding()))
+    ORDER BY array_position(preferidas, collname::TEXT)
+    LIMIT 1;
+
+    IF collation_pt IS NULL THEN
+        RAISE NOTICE 'Nenhuma collation pt-BR no servidor; texto ordenado pela collation padrão';
+    ELSE
+        EXECUTE format('ALTER TABLE livros '
+                           || 'ALTER COLUMN titulo TYPE VARCHAR(255) COLLATE %1$I, '
+                           || 'ALTER COLUMN autores TYPE VARCHAR(255) COLLATE %1$I, '
+                           || 'ALTER COLUMN editora TYPE VARCHAR(255) COLLATE %1$I',
+                       collation_pt);
+    END IF;
+END
+$$;
+
+CREATE INDEX IF NOT EXISTS ix_livros_ordem_titulo ON livros (titulo, id);
+CREATE INDEX IF NOT EXISTS ix_livros_ordem_autores ON livros (autores, id);
+CREATE INDEX IF NOT EXISTS ix_livros_ordem_editora ON livros (editora, id);
+CREATE INDEX IF NOT EXISTS ix_livros_ordem_data ON livros (data_publicacao, id);
+CREATE INDEX IF NOT EXISTS ix_livros_ordem_edicoes ON livros (livros_semelhantes, id);
@@ -0,0 +1,24 @@
+-- Índices de trigramas (pg_trgm) para as buscas por trecho do texto (LIKE '%x%'), que os índices
+-- B-tree não atendem: busca simples e CriteriosBusca por título e editora (LOWER(coluna), como nas
+-- consultas) e por autor (autores.nome_normalizado, já em minúsculas).
+--
+-- CREATE EXTENSION exige permissão no banco e o pacote contrib do PostgreSQL. Sem eles a migração
+-- só avisa e as buscas continuam lendo a tabela inteira; depois de instalar a extensão, basta
+-- apagar a linha desta migração em esquema_migracoes para ela rodar de novo.
+--
+-- Trechos com menos de três letras não formam trigramas e continuam percorrendo o índice todo.
+
+DO $$
+BEGIN
+    BEGIN
+        CREATE EXTENSION IF NOT EXISTS pg_trgm;
+    EXCEPTION WHEN OTHERS THEN
+        RAISE NOTICE 'pg_trgm indisponível (%); buscas por trecho sem índice', SQLERRM;
+        RETURN;
+    END;
+
+    CREATE INDEX IF NOT EXISTS ix_livros_titulo_trigrama ON livros USING gin (LOWER(titulo) gin_trgm_ops);
+    CREATE INDEX IF NOT EXISTS ix_livros_editora_trigrama ON livros USING gin (LOWER(editora) gin_trgm_ops);
+    CREATE INDEX IF NOT EXISTS ix_autores_nome_trigrama ON autores USING gin (nome_normalizado gin_trgm_ops);
+END
+$$;
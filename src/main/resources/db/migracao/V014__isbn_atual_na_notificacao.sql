@@ -0,0 +1,20 @@
+-- Acrescenta ao payload de livros_alterados o ISBN atual do livro inserido/alterado, para os
+-- clientes buscarem a linha pelo id e pelo ISBN: na tabela particionada (P001) a busca vai só à
+-- partição do livro, em vez de consultar o índice do id em todas.
+-- Payload: '<operação>:<id>:[<isbn anterior>]:[<isbn atual>]', ex.: 'UPDATE:42::9788535902778' ou
+-- 'UPDATE:42:9788535902778:9780306406157'. A exclusão continua 'DELETE:42[:<isbn>]' (V008).
+-- Campos vazios no fim podem faltar: 'UPDATE:42' é um livro sem ISBN.
+
+CREATE OR REPLACE FUNCTION notificar_alteracao_livro() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        PERFORM pg_notify('livros_alterados', TG_OP || ':' || OLD.id || coalesce(':' || OLD.isbn, ''));
+        RETURN OLD;
+    END IF;
+    PERFORM pg_notify('livros_alterados', TG_OP || ':' || NEW.id
+            || CASE WHEN TG_OP = 'UPDATE' AND OLD.isbn IS DISTINCT FROM NEW.isbn
+                    THEN coalesce(':' || OLD.isbn, ':') ELSE ':' END
+            || coalesce(':' || NEW.isbn, ''));
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
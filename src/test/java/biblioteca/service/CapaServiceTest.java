@@ -0,0 +1,126 @@
+package biblioteca.service;
+
+import biblioteca.util.Isbn;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * CapaService contra um servidor HTTP local no lugar de covers.openlibrary.org. Cada teste usa um
+ * ISBN próprio, já que o diretório das capas é o mesmo para todos.
+ */
+class CapaServiceTest {
+    private static final byte[] IMAGEM = "capa de teste".getBytes(StandardCharsets.US_ASCII);
+    private static final long ISBN_COM_CAPA = 9788535902778L;
+    private static final long ISBN_SEM_CAPA = 9780000000002L;
+    private static final long ISBN_SEM_CAPA_EXPIRADO = 9780000000019L;
+    private static final long ISBN_ERRO = 9780000000026L;
+
+    @TempDir
+    static Path diretorio;
+
+    private static HttpServer servidor;
+    private static final Map<Long, AtomicInteger> acessos = new ConcurrentHashMap<>();
+
+    @BeforeAll
+    static void iniciarServidor() throws IOException {
+        servidor = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        servidor.createContext("/", troca -> {
+            // Caminho: /[ISBN-13]-M.jpg
+            String caminho = troca.getRequestURI().getPath();
+            long isbn = Long.parseLong(caminho.substring(1, caminho.indexOf('-')));
+            acessos.computeIfAbsent(isbn, i -> new AtomicInteger()).incrementAndGet();
+
+            if (isbn == ISBN_COM_CAPA) {
+                troca.sendResponseHeaders(200, IMAGEM.length);
+                try (OutputStream corpo = troca.getResponseBody()) {
+                    corpo.write(IMAGEM);
+                }
+            } else {
+                troca.sendResponseHeaders(isbn == ISBN_ERRO ? 503 : 404, -1);
+            }
+            troca.close();
+        });
+        servidor.start();
+
+        System.setProperty("biblioteca.capas.url", "http://localhost:" + servidor.getAddress().getPort() + "/");
+        System.setProperty("biblioteca.capas.diretorio", diretorio.toString());
+    }
+
+    @AfterAll
+    static void pararServidor() {
+        servidor.stop(0);
+        System.clearProperty("biblioteca.capas.url");
+        System.clearProperty("biblioteca.capas.diretorio");
+    }
+
+    @Test
+    void capaBaixadaFicaEmObjetosComReferenciaPeloIsbn() throws Exception {
+        assertArrayEquals(IMAGEM, CapaService.obterImagem(ISBN_COM_CAPA));
+
+        String hash = sha256(IMAGEM);
+        Path referencia = diretorio.resolve("isbn").resolve(Isbn.formatar(ISBN_COM_CAPA));
+        assertEquals(hash, new String(Files.readAllBytes(referencia), StandardCharsets.US_ASCII));
+        Path objeto = diretorio.resolve("objetos").resolve(hash.substring(0, 2)).resolve(hash);
+        assertArrayEquals(IMAGEM, Files.readAllBytes(objeto));
+
+        assertArrayEquals(IMAGEM, CapaService.obterImagem(ISBN_COM_CAPA));
+        assertEquals(1, acessos.get(ISBN_COM_CAPA).get());
+    }
+
+    @Test
+    void semCapaFicaRegistradaAteVencer() throws Exception {
+        assertNull(CapaService.obterImagem(ISBN_SEM_CAPA));
+
+        Path referencia = diretorio.resolve("isbn").resolve(Isbn.formatar(ISBN_SEM_CAPA));
+        assertEquals(0, Files.size(referencia));
+
+        assertNull(CapaService.obterImagem(ISBN_SEM_CAPA));
+        assertEquals(1, acessos.get(ISBN_SEM_CAPA).get());
+    }
+
+    @Test
+    void semCapaVencidaConsultaDeNovo() throws Exception {
+        assertNull(CapaService.obterImagem(ISBN_SEM_CAPA_EXPIRADO));
+
+        Path referencia = diretorio.resolve("isbn").resolve(Isbn.formatar(ISBN_SEM_CAPA_EXPIRADO));
+        Instant vencido = Instant.now().minus(CapaService.VALIDADE_SEM_CAPA).minus(Duration.ofHours(1));
+        Files.setLastModifiedTime(referencia, FileTime.from(vencido));
+
+        assertNull(CapaService.obterImagem(ISBN_SEM_CAPA_EXPIRADO));
+        assertEquals(2, acessos.get(ISBN_SEM_CAPA_EXPIRADO).get());
+    }
+
+    @Test
+    void erroDoServidorNaoFicaRegistrado() {
+        assertThrows(IOException.class, () -> CapaService.obterImagem(ISBN_ERRO));
+        assertFalse(Files.exists(diretorio.resolve("isbn").resolve(Isbn.formatar(ISBN_ERRO))));
+    }
+
+    private static String sha256(byte[] conteudo) throws Exception {
+        StringBuilder hash = new StringBuilder();
+        for (byte b : MessageDigest.getInstance("SHA-256").digest(conteudo)) {
+            hash.append(String.format("%02x", b));
+        }
+        return hash.toString();
+    }
+}
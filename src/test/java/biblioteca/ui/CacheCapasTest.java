@@ -0,0 +1,56 @@
+package biblioteca.ui;
+
+import org.junit.jupiter.api.Test;
+
+import javax.swing.*;
+import java.awt.image.BufferedImage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * LRU das miniaturas, sem threads de carga (concorrência 0): as miniaturas entram direto por
+ * receber, como se tivessem chegado do CapaService.
+ */
+class CacheCapasTest {
+    private static final int ALTURA = 10;
+    private static final Runnable NADA = () -> {};
+
+    @Test
+    void descartaAMenosUsadaQuandoPassaDoLimiteDeBytes() {
+        // Cada miniatura 10x10 ocupa 400 bytes; cabem duas
+        CacheCapas cache = new CacheCapas(0, 1000);
+        cache.receber(new CacheCapas.Chave(1, ALTURA), miniatura(10));
+        cache.receber(new CacheCapas.Chave(2, ALTURA), miniatura(10));
+        // Usar a 1 faz da 2 a menos usada
+        assertNotNull(cache.obter(1, ALTURA, NADA));
+
+        cache.receber(new CacheCapas.Chave(3, ALTURA), miniatura(10));
+
+        assertNull(cache.obter(2, ALTURA, NADA));
+        assertNotNull(cache.obter(1, ALTURA, NADA));
+        assertNotNull(cache.obter(3, ALTURA, NADA));
+    }
+
+    @Test
+    void miniaturaGrandeDescartaQuantasForemPrecisas() {
+        CacheCapas cache = new CacheCapas(0, 1000);
+        for (long isbn = 1; isbn <= 5; isbn++) {
+            // 10x5: 200 bytes cada, 1000 no total
+            cache.receber(new CacheCapas.Chave(isbn, ALTURA), miniatura(5));
+        }
+
+        // 10x15: 600 bytes, só sobram as duas mais recentes
+        cache.receber(new CacheCapas.Chave(6, ALTURA), miniatura(15));
+
+        for (long isbn = 1; isbn <= 3; isbn++) {
+            assertNull(cache.obter(isbn, ALTURA, NADA));
+        }
+        assertNotNull(cache.obter(4, ALTURA, NADA));
+        assertNotNull(cache.obter(5, ALTURA, NADA));
+        assertNotNull(cache.obter(6, ALTURA, NADA));
+    }
+
+    private static ImageIcon miniatura(int altura) {
+        return new ImageIcon(new BufferedImage(10, altura, BufferedImage.TYPE_INT_RGB));
+    }
+}